@@ -0,0 +1,123 @@
+package org.nerdola.openj3d.bench;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Base64;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Arquivos de modelo sintéticos para os benchmarks de carregamento: a mesma grade de
+ * n x n quads (vértices compartilhados, UVs, relevo senoidal) em cada formato suportado.
+ */
+public final class BenchModels {
+
+    private BenchModels() {}
+
+    private static double x(int n, int i) { return i / (double) n - 0.5; }
+    private static double y(int n, int j) { return j / (double) n - 0.5; }
+    private static double z(int i, int j) { return 0.1 * Math.sin(i * 0.3) * Math.cos(j * 0.3); }
+
+    /**
+     * OBJ com "v", "vt" e faces quadradas "f a/a b/b c/c d/d" (o loader triangula).
+     */
+    public static void writeObj(File file, int n) throws IOException {
+        try (Writer w = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            w.write("# grade sintética " + n + "x" + n + "\n");
+            for (int j = 0; j <= n; j++)
+                for (int i = 0; i <= n; i++)
+                    w.write("v " + x(n, i) + " " + y(n, j) + " " + z(i, j) + "\n");
+            for (int j = 0; j <= n; j++)
+                for (int i = 0; i <= n; i++)
+                    w.write("vt " + (i / (double) n) + " " + (j / (double) n) + "\n");
+            for (int j = 0; j < n; j++) {
+                for (int i = 0; i < n; i++) {
+                    int a = j * (n + 1) + i + 1, b = a + 1, c = a + n + 2, d = a + n + 1;
+                    w.write("f " + a + "/" + a + " " + b + "/" + b + " " + c + "/" + c + " " + d + "/" + d + "\n");
+                }
+            }
+        }
+    }
+
+    /**
+     * glTF 2.0 com um buffer base64 embutido: POSITION (VEC3 float), TEXCOORD_0 (VEC2 float)
+     * e índices UNSIGNED_INT.
+     */
+    public static void writeGltf(File file, int n) throws IOException {
+        int vc = (n + 1) * (n + 1), ic = n * n * 6;
+        int posBytes = vc * 12, uvBytes = vc * 8, idxBytes = ic * 4;
+        ByteBuffer bb = ByteBuffer.allocate(posBytes + uvBytes + idxBytes).order(ByteOrder.LITTLE_ENDIAN);
+        for (int j = 0; j <= n; j++)
+            for (int i = 0; i <= n; i++)
+                bb.putFloat((float) x(n, i)).putFloat((float) y(n, j)).putFloat((float) z(i, j));
+        for (int j = 0; j <= n; j++)
+            for (int i = 0; i <= n; i++)
+                bb.putFloat(i / (float) n).putFloat(j / (float) n);
+        for (int j = 0; j < n; j++) {
+            for (int i = 0; i < n; i++) {
+                int a = j * (n + 1) + i, b = a + 1, c = a + n + 2, d = a + n + 1;
+                bb.putInt(a).putInt(b).putInt(c).putInt(a).putInt(c).putInt(d);
+            }
+        }
+
+        String json = "{\"asset\":{\"version\":\"2.0\"},"
+                + "\"buffers\":[{\"byteLength\":" + bb.capacity() + ",\"uri\":\"data:application/octet-stream;base64,"
+                + Base64.getEncoder().encodeToString(bb.array()) + "\"}],"
+                + "\"bufferViews\":["
+                + "{\"buffer\":0,\"byteOffset\":0,\"byteLength\":" + posBytes + "},"
+                + "{\"buffer\":0,\"byteOffset\":" + posBytes + ",\"byteLength\":" + uvBytes + "},"
+                + "{\"buffer\":0,\"byteOffset\":" + (posBytes + uvBytes) + ",\"byteLength\":" + idxBytes + "}],"
+                + "\"accessors\":["
+                + "{\"bufferView\":0,\"componentType\":5126,\"count\":" + vc + ",\"type\":\"VEC3\"},"
+                + "{\"bufferView\":1,\"componentType\":5126,\"count\":" + vc + ",\"type\":\"VEC2\"},"
+                + "{\"bufferView\":2,\"componentType\":5125,\"count\":" + ic + ",\"type\":\"SCALAR\"}],"
+                + "\"meshes\":[{\"primitives\":[{\"attributes\":{\"POSITION\":0,\"TEXCOORD_0\":1},\"indices\":2}]}]}";
+        Files.writeString(file.toPath(), json, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * .oj3d: zip com Model.json (uma mesh, vértices/UVs como objetos e triângulos como [a,b,c]).
+     */
+    public static void writeOj3d(File file, int n) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"meshes\":[{\"name\":\"grid\",\"material\":\"default\",\"vertices\":[");
+        for (int j = 0; j <= n; j++) {
+            for (int i = 0; i <= n; i++) {
+                if (i + j > 0) sb.append(',');
+                sb.append("{\"x\":").append(x(n, i)).append(",\"y\":").append(y(n, j))
+                  .append(",\"z\":").append(z(i, j)).append('}');
+            }
+        }
+        sb.append("],\"uvs\":[");
+        for (int j = 0; j <= n; j++) {
+            for (int i = 0; i <= n; i++) {
+                if (i + j > 0) sb.append(',');
+                sb.append("{\"u\":").append(i / (double) n).append(",\"v\":").append(j / (double) n).append('}');
+            }
+        }
+        sb.append("],\"triangles\":[");
+        for (int j = 0; j < n; j++) {
+            for (int i = 0; i < n; i++) {
+                int a = j * (n + 1) + i, b = a + 1, c = a + n + 2, d = a + n + 1;
+                if (i + j > 0) sb.append(',');
+                sb.append('[').append(a).append(',').append(b).append(',').append(c).append("],[")
+                  .append(a).append(',').append(c).append(',').append(d).append(']');
+            }
+        }
+        sb.append("]}]}");
+
+        try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(file))) {
+            zip.putNextEntry(new ZipEntry("Model.json"));
+            zip.write(sb.toString().getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package org.nerdola.openj3d.bench;
+
+import org.nerdola.openj3d.core.Mesh;
+import org.nerdola.openj3d.core.MeshUtils;
+import org.nerdola.openj3d.core.Triangle;
+import org.nerdola.openj3d.core.Vertex;
+import org.nerdola.openj3d.io.Material;
+import org.nerdola.openj3d.io.Texture;
+import org.nerdola.openj3d.io.TexturedTriangle;
+import org.nerdola.openj3d.io.UV;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Cenas sintéticas determinísticas usadas pelos benchmarks.
+ */
+public final class BenchScenes {
+
+    private BenchScenes() {}
+
+    /**
+     * Triângulos aleatórios já em coordenadas de tela, espalhados por uma área width x height.
+     * O tamanho médio é escolhido para cobrir a tela algumas vezes (overdraw moderado).
+     */
+    public static Mesh screenSpaceTriangles(int count, int width, int height, boolean textured, long seed) {
+        return screenSpaceTriangles(count, width, height, textured ? 256 : 0, seed);
+    }
+
+    /**
+     * Como {@link #screenSpaceTriangles(int, int, int, boolean, long)}, com textura xadrez
+     * textureSize x textureSize (0 = sem textura).
+     */
+    public static Mesh screenSpaceTriangles(int count, int width, int height, int textureSize, long seed) {
+        Random r = new Random(seed);
+        boolean textured = textureSize > 0;
+        Material mat = textured ? checkerMaterial(textureSize, r) : null;
+        double size = Math.sqrt(4.0 * width * height / Math.max(1, count));
+
+        Mesh mesh = new Mesh();
+        for (int i = 0; i < count; i++) {
+            double cx = r.nextDouble() * width, cy = r.nextDouble() * height;
+            Vertex a = new Vertex(cx + r.nextGaussian() * size, cy + r.nextGaussian() * size, r.nextDouble() * 200 - 100);
+            Vertex b = new Vertex(cx + r.nextGaussian() * size, cy + r.nextGaussian() * size, r.nextDouble() * 200 - 100);
+            Vertex c = new Vertex(cx + r.nextGaussian() * size, cy + r.nextGaussian() * size, r.nextDouble() * 200 - 100);
+            if (textured) {
+                mesh.addTriangle(new TexturedTriangle(a, b, c,
+                        new UV(r.nextDouble(), r.nextDouble()),
+                        new UV(r.nextDouble(), r.nextDouble()),
+                        new UV(r.nextDouble(), r.nextDouble()), mat));
+            } else {
+                mesh.addTriangle(new Triangle(a, b, c, new Color(r.nextInt(0xFFFFFF))));
+            }
+        }
+        return mesh;
+    }
+
+    /**
+     * {@code layers} camadas que cobrem a tela inteira, cada uma uma grade de quadrados de
+     * {@code cell} pixels (dois triângulos cada, com cor própria e leve inclinação em z). Com
+     * {@code frontToBack} a primeira camada é a mais próxima; senão a ordem é a inversa, o pior
+     * caso de overdraw (toda camada repinta a tela).
+     */
+    public static Mesh layeredQuads(int layers, int width, int height, int cell, boolean frontToBack, long seed) {
+        Random r = new Random(seed);
+        Mesh mesh = new Mesh();
+        for (int l = 0; l < layers; l++) {
+            double z = frontToBack ? layers - l : l;
+            Color color = new Color(r.nextInt(0xFFFFFF));
+            for (int y = 0; y < height; y += cell) {
+                for (int x = 0; x < width; x += cell) {
+                    double tilt = r.nextDouble() * 0.5;
+                    Vertex a = new Vertex(x, y, z + tilt), b = new Vertex(x + cell, y, z);
+                    Vertex c = new Vertex(x + cell, y + cell, z + tilt * 0.5), d = new Vertex(x, y + cell, z);
+                    mesh.addTriangle(new Triangle(a, b, c, color));
+                    mesh.addTriangle(new Triangle(a, c, d, color));
+                }
+            }
+        }
+        return mesh;
+    }
+
+    /**
+     * {@code count} triângulos pequenos (lado até 1) em grupos de 64 ao redor de centros
+     * espalhados num campo de {@code extent x extent/10 x extent} centrado na origem: cena em
+     * coordenadas de mundo para câmera, da qual uma vista comum só enxerga uma parte. Cada grupo
+     * é contíguo na lista, como os triângulos de um objeto carregado de arquivo.
+     */
+    public static Mesh scatteredTriangles(int count, double extent, long seed) {
+        Random r = new Random(seed);
+        List<Triangle> tris = new ArrayList<>(count);
+        double cx = 0, cy = 0, cz = 0;
+        for (int i = 0; i < count; i++) {
+            if ((i & 63) == 0) {
+                cx = (r.nextDouble() - 0.5) * extent;
+                cy = (r.nextDouble() - 0.5) * extent * 0.1;
+                cz = (r.nextDouble() - 0.5) * extent;
+            }
+            double x = cx + r.nextGaussian() * 2, y = cy + r.nextGaussian() * 2, z = cz + r.nextGaussian() * 2;
+            double s = 0.25 + r.nextDouble() * 0.75;
+            Color color = new Color(r.nextInt(0xFFFFFF));
+            tris.add(new Triangle(new Vertex(x, y, z), new Vertex(x + s, y + r.nextDouble() * s, z + r.nextDouble() * s),
+                    new Vertex(x + r.nextDouble() * s, y + s, z), color));
+        }
+        return new Mesh(tris);
+    }
+
+    /**
+     * Octaedro subdividido {@code level} vezes com {@link MeshUtils#inflate}: 8 * 4^level triângulos.
+     */
+    public static Mesh sphere(int level, double radius) {
+        Vertex[] v = {
+            new Vertex(radius, 0, 0), new Vertex(-radius, 0, 0),
+            new Vertex(0, radius, 0), new Vertex(0, -radius, 0),
+            new Vertex(0, 0, radius), new Vertex(0, 0, -radius)
+        };
+        int[][] faces = {
+            {0, 2, 4}, {2, 1, 4}, {1, 3, 4}, {3, 0, 4},
+            {2, 0, 5}, {1, 2, 5}, {3, 1, 5}, {0, 3, 5}
+        };
+        List<Triangle> tris = new ArrayList<>();
+        for (int[] f : faces) tris.add(new Triangle(v[f[0]], v[f[1]], v[f[2]], Color.LIGHT_GRAY));
+        for (int i = 0; i < level; i++) tris = MeshUtils.inflate(tris, radius);
+        return new Mesh(tris);
+    }
+
+    /**
+     * Quadrado texturizado (dois triângulos, UV de 0 a 1) centrado na tela, com lado de 70% da
+     * menor dimensão, girado {@code degrees} graus em torno do centro.
+     */
+    public static Mesh rotatedQuad(int width, int height, double degrees, Material mat) {
+        double half = Math.min(width, height) * 0.35;
+        double c = Math.cos(Math.toRadians(degrees)), s = Math.sin(Math.toRadians(degrees));
+        double[][] corners = {{-1, -1}, {1, -1}, {1, 1}, {-1, 1}};
+        Vertex[] v = new Vertex[4];
+        for (int i = 0; i < 4; i++) {
+            double x = corners[i][0] * half, y = corners[i][1] * half;
+            v[i] = new Vertex(width / 2.0 + x * c - y * s, height / 2.0 + x * s + y * c, 0);
+        }
+        Mesh mesh = new Mesh();
+        mesh.addTriangle(new TexturedTriangle(v[0], v[1], v[2], new UV(0, 1), new UV(1, 1), new UV(1, 0), mat));
+        mesh.addTriangle(new TexturedTriangle(v[0], v[2], v[3], new UV(0, 1), new UV(1, 0), new UV(0, 0), mat));
+        return mesh;
+    }
+
+    /**
+     * Material com textura de ruído size x size (sem regiões uniformes, todo texel conta).
+     */
+    public static Material noiseMaterial(int size, Texture.Layout layout, Random r) {
+        BufferedImage img = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < size; y++)
+            for (int x = 0; x < size; x++)
+                img.setRGB(x, y, 0xFF000000 | r.nextInt(0xFFFFFF));
+        Material mat = new Material("noise");
+        mat.setTexture(new Texture(img, layout));
+        return mat;
+    }
+
+    /**
+     * Material com textura xadrez size x size.
+     */
+    public static Material checkerMaterial(int size, Random r) {
+        BufferedImage img = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        int a = 0xFF000000 | r.nextInt(0xFFFFFF), b = 0xFF000000 | r.nextInt(0xFFFFFF);
+        for (int y = 0; y < size; y++)
+            for (int x = 0; x < size; x++)
+                img.setRGB(x, y, ((x >> 4) + (y >> 4)) % 2 == 0 ? a : b);
+        Material mat = new Material("checker");
+        mat.setTexture(new Texture(img));
+        return mat;
+    }
+}
@@ -0,0 +1,102 @@
+package org.nerdola.openj3d.bench;
+
+import org.nerdola.openj3d.core.Bvh;
+import org.nerdola.openj3d.core.Camera3D;
+import org.nerdola.openj3d.core.Matrix4;
+import org.nerdola.openj3d.core.Mesh;
+import org.nerdola.openj3d.core.RenderTarget;
+import org.nerdola.openj3d.core.Renderer3D;
+import org.nerdola.openj3d.core.Triangle;
+import org.nerdola.openj3d.core.Vertex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.Color;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Bvh} sobre triângulos espalhados num campo ({@link BenchScenes#scatteredTriangles}),
+ * vistos por uma câmera no meio do campo (a maior parte fica fora do frustum), atrás de uma
+ * parede que esconde parte da vista. Mede a construção, o refit depois de uma translação e o render com e sem a árvore
+ * (a parede é desenhada antes, então a árvore também descarta o que fica atrás dela). O tamanho
+ * da árvore e as {@link org.nerdola.openj3d.core.RenderStats} do último frame são impressos no
+ * fim de cada trial.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class BvhBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int triangles;
+
+    private Mesh mesh, moved, wall;
+    private Bvh bvh;
+    private Camera3D camera;
+    private RenderTarget target;
+    private Renderer3D renderer;
+
+    @Setup
+    public void setup() {
+        mesh = BenchScenes.scatteredTriangles(triangles, 400, 42);
+        moved = mesh.transformed(Matrix4.translation(5, 0, -5));
+        bvh = Bvh.build(mesh);
+        camera = new Camera3D();
+        camera.setPos(0, 10, 0);
+        camera.setPitch(-0.15);
+        camera.setAspect(1280 / 720.0);
+        wall = new Mesh();
+        Vertex a = new Vertex(-40, -30, -60), b = new Vertex(10, -30, -60), c = new Vertex(10, 40, -60), d = new Vertex(-40, 40, -60);
+        wall.addTriangle(new Triangle(a, b, c, Color.GRAY));
+        wall.addTriangle(new Triangle(a, c, d, Color.GRAY));
+        target = new RenderTarget(1280, 720);
+        renderer = new Renderer3D();
+    }
+
+    @Benchmark
+    public Bvh build() {
+        return Bvh.build(mesh);
+    }
+
+    @Benchmark
+    public Bvh refit() {
+        bvh.refit(moved);
+        bvh.refit(mesh);
+        return bvh;
+    }
+
+    @Benchmark
+    public RenderTarget renderWithBvh() {
+        target.clear();
+        renderer.render(wall, Matrix4.identity(), camera, target);
+        renderer.render(mesh, bvh, Matrix4.identity(), camera, target);
+        return target;
+    }
+
+    @Benchmark
+    public RenderTarget renderWithoutBvh() {
+        target.clear();
+        renderer.render(wall, Matrix4.identity(), camera, target);
+        renderer.render(mesh, Matrix4.identity(), camera, target);
+        return target;
+    }
+
+    @TearDown
+    public void report() {
+        System.out.println(bvh);
+        System.out.println(renderer.getStats());
+    }
+}
@@ -0,0 +1,66 @@
+package org.nerdola.openj3d.bench;
+
+import org.nerdola.openj3d.core.Mesh;
+import org.nerdola.openj3d.core.RenderTarget;
+import org.nerdola.openj3d.core.Renderer3D;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 20 mil triângulos texturizados (1024x1024) em ordem aleatória de profundidade em 1280x720,
+ * com e sem ordenação da frente para trás ({@link Renderer3D#setFrontToBack}) e pré-passe de
+ * profundidade ({@link Renderer3D#setDepthPrePass}), para escolher a combinação por cena.
+ * As {@link org.nerdola.openj3d.core.RenderStats} do último frame saem no fim de cada trial.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DepthOrderBenchmark {
+
+    @Param({"NEAREST", "TRILINEAR"})
+    public Renderer3D.TextureFilter filter;
+
+    @Param({"false", "true"})
+    public boolean frontToBack;
+
+    @Param({"false", "true"})
+    public boolean depthPrePass;
+
+    private Mesh mesh;
+    private RenderTarget target;
+    private Renderer3D renderer;
+
+    @Setup
+    public void setup() {
+        mesh = BenchScenes.screenSpaceTriangles(20_000, 1280, 720, 1024, 42);
+        target = new RenderTarget(1280, 720);
+        renderer = new Renderer3D().setTextureFilter(filter).setFrontToBack(frontToBack).setDepthPrePass(depthPrePass);
+    }
+
+    @Benchmark
+    public RenderTarget render() {
+        target.clear();
+        renderer.render(mesh, target);
+        return target;
+    }
+
+    @TearDown
+    public void report() {
+        System.out.println(renderer.getStats());
+    }
+}
@@ -0,0 +1,47 @@
+package org.nerdola.openj3d.bench;
+
+import org.nerdola.openj3d.core.MeshUtils;
+import org.nerdola.openj3d.core.Triangle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Uma chamada de {@link MeshUtils#inflate(List, double)} sobre a esfera do nível anterior,
+ * ou seja, a subdivisão que produz 8 * 4^level triângulos.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InflateBenchmark {
+
+    @Param({"1", "3", "5", "7"})
+    public int level;
+
+    private List<Triangle> input;
+
+    @Setup
+    public void setup() {
+        input = BenchScenes.sphere(level - 1, 200).getTriangles();
+    }
+
+    @Benchmark
+    public List<Triangle> inflate() {
+        // inflate normaliza os vértices da entrada no lugar; como já estão no raio, repetir é estável
+        return MeshUtils.inflate(input, 200);
+    }
+}
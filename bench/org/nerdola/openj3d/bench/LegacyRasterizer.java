@@ -0,0 +1,108 @@
+package org.nerdola.openj3d.bench;
+
+import org.nerdola.openj3d.core.ColorUtils;
+import org.nerdola.openj3d.core.DepthBuffer;
+import org.nerdola.openj3d.core.FrameBuffer;
+import org.nerdola.openj3d.core.Mesh;
+import org.nerdola.openj3d.core.RenderTarget;
+import org.nerdola.openj3d.core.Triangle;
+import org.nerdola.openj3d.io.Material;
+import org.nerdola.openj3d.io.TexturedTriangle;
+
+import java.awt.image.BufferedImage;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cópia do rasterizador antigo (baricentros completos com divisão por área em cada pixel),
+ * mantida apenas como referência para os benchmarks.
+ */
+public final class LegacyRasterizer {
+
+    private final Map<BufferedImage, int[]> texCache = new IdentityHashMap<>();
+
+    public void render(Mesh mesh, RenderTarget target) {
+        FrameBuffer fb = target.getColorBuffer();
+        DepthBuffer zBuffer = target.getDepthBuffer();
+        List<Triangle> tris = mesh.getTriangles();
+        for (int i = 0, n = tris.size(); i < n; i++) {
+            Triangle t = tris.get(i);
+            if (t instanceof TexturedTriangle) {
+                Material mat = ((TexturedTriangle) t).material;
+                if (mat != null && mat.hasTexture()) {
+                    drawTexturedTriangle(fb, zBuffer, (TexturedTriangle) t);
+                    continue;
+                }
+            }
+            drawTriangle(fb, zBuffer, t, ColorUtils.shadeRGB(t.color, Math.abs(t.normalZ())));
+        }
+    }
+
+    private void drawTriangle(FrameBuffer fb, DepthBuffer zBuffer, Triangle t, int argb) {
+        int width = fb.getWidth(), height = fb.getHeight();
+        int[] pixels = fb.getPixels();
+
+        int minX = (int) Math.max(0, Math.ceil(Math.min(t.v1.x, Math.min(t.v2.x, t.v3.x))));
+        int maxX = (int) Math.min(width - 1, Math.floor(Math.max(t.v1.x, Math.max(t.v2.x, t.v3.x))));
+        int minY = (int) Math.max(0, Math.ceil(Math.min(t.v1.y, Math.min(t.v2.y, t.v3.y))));
+        int maxY = (int) Math.min(height - 1, Math.floor(Math.max(t.v1.y, Math.max(t.v2.y, t.v3.y))));
+
+        double area = (t.v1.y - t.v3.y) * (t.v2.x - t.v3.x) + (t.v2.y - t.v3.y) * (t.v3.x - t.v1.x);
+
+        for (int y = minY; y <= maxY; y++) {
+            for (int x = minX; x <= maxX; x++) {
+                double b1 = ((y - t.v3.y) * (t.v2.x - t.v3.x) + (t.v2.y - t.v3.y) * (t.v3.x - x)) / area;
+                double b2 = ((y - t.v1.y) * (t.v3.x - t.v1.x) + (t.v3.y - t.v1.y) * (t.v1.x - x)) / area;
+                double b3 = ((y - t.v2.y) * (t.v1.x - t.v2.x) + (t.v1.y - t.v2.y) * (t.v2.x - x)) / area;
+
+                if (b1 >= 0 && b2 >= 0 && b3 >= 0 && b1 <= 1 && b2 <= 1 && b3 <= 1) {
+                    double depth = b1 * t.v1.z + b2 * t.v2.z + b3 * t.v3.z;
+                    int zIndex = y * width + x;
+                    if (zBuffer.testAndSet(zIndex, depth)) {
+                        pixels[zIndex] = argb;
+                    }
+                }
+            }
+        }
+    }
+
+    private void drawTexturedTriangle(FrameBuffer fb, DepthBuffer zBuffer, TexturedTriangle t) {
+        int width = fb.getWidth(), height = fb.getHeight();
+        int[] pixels = fb.getPixels();
+
+        int minX = (int) Math.max(0, Math.ceil(Math.min(t.v1.x, Math.min(t.v2.x, t.v3.x))));
+        int maxX = (int) Math.min(width - 1, Math.floor(Math.max(t.v1.x, Math.max(t.v2.x, t.v3.x))));
+        int minY = (int) Math.max(0, Math.ceil(Math.min(t.v1.y, Math.min(t.v2.y, t.v3.y))));
+        int maxY = (int) Math.min(height - 1, Math.floor(Math.max(t.v1.y, Math.max(t.v2.y, t.v3.y))));
+
+        double area = (t.v1.y - t.v3.y) * (t.v2.x - t.v3.x) + (t.v2.y - t.v3.y) * (t.v3.x - t.v1.x);
+
+        BufferedImage texImg = t.material.texture.getLayer(0);
+        int tw = texImg.getWidth();
+        int th = texImg.getHeight();
+        int[] texPixels = texCache.computeIfAbsent(texImg, img -> img.getRGB(0, 0, tw, th, null, 0, tw));
+
+        for (int y = minY; y <= maxY; y++) {
+            for (int x = minX; x <= maxX; x++) {
+                double b1 = ((y - t.v3.y) * (t.v2.x - t.v3.x) + (t.v2.y - t.v3.y) * (t.v3.x - x)) / area;
+                double b2 = ((y - t.v1.y) * (t.v3.x - t.v1.x) + (t.v3.y - t.v1.y) * (t.v1.x - x)) / area;
+                double b3 = ((y - t.v2.y) * (t.v1.x - t.v2.x) + (t.v1.y - t.v2.y) * (t.v2.x - x)) / area;
+
+                if (b1 >= 0 && b2 >= 0 && b3 >= 0 && b1 <= 1 && b2 <= 1 && b3 <= 1) {
+                    double depth = b1 * t.v1.z + b2 * t.v2.z + b3 * t.v3.z;
+                    int zIndex = y * width + x;
+                    if (zBuffer.testAndSet(zIndex, depth)) {
+                        double u = b1 * t.uv1.u + b2 * t.uv2.u + b3 * t.uv3.u;
+                        double v = b1 * t.uv1.v + b2 * t.uv2.v + b3 * t.uv3.v;
+                        u = u - Math.floor(u);
+                        v = v - Math.floor(v);
+                        int px = Math.max(0, Math.min(tw - 1, (int) (u * (tw - 1))));
+                        int py = Math.max(0, Math.min(th - 1, (int) ((1.0 - v) * (th - 1))));
+                        pixels[zIndex] = texPixels[py * tw + px];
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package org.nerdola.openj3d.bench;
+
+import org.nerdola.openj3d.core.Mesh;
+import org.nerdola.openj3d.io.GLTFLoader;
+import org.nerdola.openj3d.io.ModelLoader;
+import org.nerdola.openj3d.io.ObjLoader;
+import org.nerdola.openj3d.io.OpenJ3DModelLoader;
+import org.nerdola.openj3d.io.OpenJ3DModelWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cada {@link ModelLoader} lendo uma grade gerada no setup (n x n quads, 2n² triângulos,
+ * com UVs) no seu formato: OBJ texto, glTF com buffer base64 embutido, .oj3d v1 (zip + JSON) e
+ * .oj3d v2 (blobs binários mapeados).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoaderBenchmark {
+
+    @Param({"obj", "gltf", "oj3d", "oj3d2"})
+    public String format;
+
+    @Param({"50", "300"})
+    public int grid;
+
+    private File dir, file;
+    private ModelLoader loader;
+    private PrintStream stdout;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("openj3d-bench").toFile();
+        switch (format) {
+            case "obj":
+                file = new File(dir, "grid.obj");
+                BenchModels.writeObj(file, grid);
+                loader = new ObjLoader();
+                break;
+            case "gltf":
+                file = new File(dir, "grid.gltf");
+                BenchModels.writeGltf(file, grid);
+                loader = new GLTFLoader();
+                break;
+            case "oj3d":
+                file = new File(dir, "grid.oj3d");
+                BenchModels.writeOj3d(file, grid);
+                loader = new OpenJ3DModelLoader();
+                break;
+            case "oj3d2":
+                File v1 = new File(dir, "grid-v1.oj3d");
+                BenchModels.writeOj3d(v1, grid);
+                file = new File(dir, "grid.oj3d");
+                OpenJ3DModelWriter.convert(v1, file);
+                loader = new OpenJ3DModelLoader();
+                break;
+            default:
+                throw new IllegalArgumentException("Formato desconhecido: " + format);
+        }
+        // Os loaders registram progresso no console a cada chamada; isso só poluiria a saída do JMH
+        stdout = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.setOut(stdout);
+        File[] files = dir.listFiles();
+        if (files != null) for (File f : files) f.delete();
+        dir.delete();
+    }
+
+    @Benchmark
+    public Mesh load() throws IOException {
+        return loader.load(file);
+    }
+}
@@ -0,0 +1,67 @@
+package org.nerdola.openj3d.bench;
+
+import org.nerdola.openj3d.core.Mesh;
+import org.nerdola.openj3d.core.RenderTarget;
+import org.nerdola.openj3d.core.Renderer3D;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Camadas sobrepostas em 1280x720 com e sem a rejeição pela profundidade por bloco
+ * ({@link Renderer3D#setHierarchicalDepth}). De frente para trás quase tudo depois da primeira
+ * camada é descartado sem visitar pixels; de trás para frente nada é descartado e o resultado
+ * mostra o custo de manter os blocos. As {@link org.nerdola.openj3d.core.RenderStats} do último
+ * frame (overdraw, blocos rejeitados) são impressas no fim de cada trial.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OverdrawBenchmark {
+
+    @Param({"4", "16"})
+    public int layers;
+
+    @Param({"true", "false"})
+    public boolean frontToBack;
+
+    @Param({"true", "false"})
+    public boolean hierarchicalDepth;
+
+    private Mesh mesh;
+    private RenderTarget target;
+    private Renderer3D renderer;
+
+    @Setup
+    public void setup() {
+        mesh = BenchScenes.layeredQuads(layers, 1280, 720, 32, frontToBack, 42);
+        target = new RenderTarget(1280, 720);
+        renderer = new Renderer3D().setHierarchicalDepth(hierarchicalDepth);
+    }
+
+    @Benchmark
+    public RenderTarget render() {
+        target.clear();
+        renderer.render(mesh, target);
+        return target;
+    }
+
+    @TearDown
+    public void report() {
+        System.out.println(renderer.getStats());
+    }
+}
@@ -0,0 +1,67 @@
+package org.nerdola.openj3d.bench;
+
+import org.nerdola.openj3d.core.Camera3D;
+import org.nerdola.openj3d.core.Mesh;
+import org.nerdola.openj3d.core.Picker;
+import org.nerdola.openj3d.core.Ray;
+import org.nerdola.openj3d.core.RayHit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Picker} sobre o campo de {@link BenchScenes#scatteredTriangles}: 4096 raios de câmera em
+ * pixels aleatórios, em lote (paralelo) e um a um.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class PickBenchmark {
+
+    private static final int RAYS = 4096;
+
+    @Param({"100000", "1000000"})
+    public int triangles;
+
+    private Picker picker;
+    private Ray[] rays;
+
+    @Setup
+    public void setup() {
+        Mesh mesh = BenchScenes.scatteredTriangles(triangles, 400, 42);
+        picker = new Picker(mesh);
+        Camera3D camera = new Camera3D();
+        camera.setPos(0, 10, 0);
+        camera.setPitch(-0.15);
+        camera.setAspect(1280 / 720.0);
+        Random random = new Random(7);
+        rays = new Ray[RAYS];
+        for (int i = 0; i < RAYS; i++) rays[i] = camera.getRay(random.nextDouble() * 1280, random.nextDouble() * 720, 1280, 720);
+    }
+
+    @Benchmark
+    public RayHit[] raycastBatch() {
+        return picker.raycast(rays);
+    }
+
+    @Benchmark
+    public int raycastSerial() {
+        int hits = 0;
+        for (Ray ray : rays) if (picker.raycast(ray) != null) hits++;
+        return hits;
+    }
+}
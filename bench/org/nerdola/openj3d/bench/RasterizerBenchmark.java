@@ -0,0 +1,62 @@
+package org.nerdola.openj3d.bench;
+
+import org.nerdola.openj3d.core.Mesh;
+import org.nerdola.openj3d.core.RenderTarget;
+import org.nerdola.openj3d.core.Renderer3D;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rasterizador incremental (funções de aresta + rejeição por bloco 8x8) contra o
+ * rasterizador antigo com baricentros completos por pixel, sobre a mesma cena.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RasterizerBenchmark {
+
+    @Param({"100", "10000"})
+    public int triangles;
+
+    @Param({"false", "true"})
+    public boolean textured;
+
+    private Mesh mesh;
+    private RenderTarget target;
+    private final Renderer3D renderer = new Renderer3D();
+    private final LegacyRasterizer legacy = new LegacyRasterizer();
+
+    @Setup
+    public void setup() {
+        mesh = BenchScenes.screenSpaceTriangles(triangles, 1280, 720, textured, 42);
+        target = new RenderTarget(1280, 720);
+    }
+
+    @Benchmark
+    public RenderTarget incremental() {
+        target.clear();
+        renderer.render(mesh, target);
+        return target;
+    }
+
+    @Benchmark
+    public RenderTarget legacy() {
+        target.clear();
+        legacy.render(mesh, target);
+        return target;
+    }
+}
@@ -0,0 +1,60 @@
+package org.nerdola.openj3d.bench;
+
+import org.nerdola.openj3d.core.Mesh;
+import org.nerdola.openj3d.core.RenderTarget;
+import org.nerdola.openj3d.core.Renderer3D;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Frame completo de {@link Renderer3D#render(Mesh, RenderTarget)} (limpeza + render) por
+ * resolução, quantidade de triângulos e tipo de preenchimento.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RenderBenchmark {
+
+    @Param({"640x480", "1280x720", "1920x1080"})
+    public String resolution;
+
+    @Param({"1000", "100000"})
+    public int triangles;
+
+    @Param({"false", "true"})
+    public boolean textured;
+
+    private Mesh mesh;
+    private RenderTarget target;
+    private final Renderer3D renderer = new Renderer3D();
+
+    @Setup
+    public void setup() {
+        int x = resolution.indexOf('x');
+        int width = Integer.parseInt(resolution.substring(0, x));
+        int height = Integer.parseInt(resolution.substring(x + 1));
+        mesh = BenchScenes.screenSpaceTriangles(triangles, width, height, textured, 42);
+        target = new RenderTarget(width, height);
+    }
+
+    @Benchmark
+    public RenderTarget render() {
+        target.clear();
+        renderer.render(mesh, target);
+        return target;
+    }
+}
@@ -0,0 +1,104 @@
+package org.nerdola.openj3d.bench;
+
+import org.nerdola.openj3d.core.Bvh;
+import org.nerdola.openj3d.core.Camera3D;
+import org.nerdola.openj3d.core.Matrix4;
+import org.nerdola.openj3d.core.Mesh;
+import org.nerdola.openj3d.core.RenderTarget;
+import org.nerdola.openj3d.core.Renderer3D;
+import org.nerdola.openj3d.core.SceneNode;
+import org.nerdola.openj3d.core.Triangle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Uma esfera de 512 triângulos ({@link BenchScenes#sphere}) repetida numa grade com rotações
+ * aleatórias: grafo de {@link SceneNode} com a mesh compartilhada (com e sem {@link Bvh}) contra a
+ * mesma cena materializada com {@link Mesh#transformed} numa única mesh. O fim de cada trial
+ * imprime os triângulos guardados em cada caso.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SceneBenchmark {
+
+    @Param({"1000", "4000"})
+    public int instances;
+
+    private Mesh sphere, merged;
+    private SceneNode scene, sceneBvh;
+    private Camera3D camera;
+    private RenderTarget target;
+    private Renderer3D renderer;
+
+    @Setup
+    public void setup() {
+        sphere = BenchScenes.sphere(3, 1);
+        Bvh bvh = Bvh.build(sphere);
+        scene = new SceneNode("scene");
+        sceneBvh = new SceneNode("sceneBvh");
+        List<Triangle> all = new ArrayList<>();
+        Random random = new Random(42);
+        int side = (int) Math.ceil(Math.sqrt(instances));
+        for (int i = 0; i < instances; i++) {
+            Matrix4 world = Matrix4.translation((i % side - side / 2.0) * 3, 0, -(i / side) * 3 - 5)
+                    .multiply(Matrix4.rotationY(random.nextDouble() * Math.PI * 2));
+            scene.addChild(new SceneNode().setTransform(world).setMesh(sphere));
+            sceneBvh.addChild(new SceneNode().setTransform(world).setMesh(sphere, bvh));
+            all.addAll(sphere.transformed(world).getTriangles());
+        }
+        merged = new Mesh(all);
+        camera = new Camera3D();
+        camera.setPos(0, 8, 5);
+        camera.setPitch(-0.3);
+        camera.setAspect(1280 / 720.0);
+        target = new RenderTarget(1280, 720);
+        renderer = new Renderer3D();
+    }
+
+    @Benchmark
+    public RenderTarget renderScene() {
+        target.clear();
+        renderer.render(scene, camera, target);
+        return target;
+    }
+
+    @Benchmark
+    public RenderTarget renderSceneWithBvh() {
+        target.clear();
+        renderer.render(sceneBvh, camera, target);
+        return target;
+    }
+
+    @Benchmark
+    public RenderTarget renderMerged() {
+        target.clear();
+        renderer.render(merged, Matrix4.identity(), camera, target);
+        return target;
+    }
+
+    @TearDown
+    public void report() {
+        System.out.println("shared: " + sphere.getTriangles().size() + " tris x " + instances
+                + " instances; merged: " + merged.getTriangles().size() + " tris");
+        System.out.println(renderer.getStats());
+    }
+}
@@ -0,0 +1,89 @@
+package org.nerdola.openj3d.bench;
+
+import org.nerdola.openj3d.core.Matrix4;
+import org.nerdola.openj3d.core.Mesh;
+import org.nerdola.openj3d.core.RenderTarget;
+import org.nerdola.openj3d.core.Renderer3D;
+import org.nerdola.openj3d.core.Simd;
+import org.nerdola.openj3d.core.Triangle;
+import org.nerdola.openj3d.core.Vertex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.Color;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Backend escalar contra o vetorial ({@link Simd}): vértices por segundo em
+ * {@link Matrix4#transform(float[], int, int, float[], int, int, int)} e pixels por segundo
+ * em camadas de tela cheia (todas passam no teste de profundidade).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class SimdBenchmark {
+
+    private static final int VERTICES = 65536;
+    private static final int WIDTH = 1280, HEIGHT = 720, LAYERS = 8;
+
+    @Param({"scalar", "vector"})
+    public String backend;
+
+    private final float[] src = new float[VERTICES * 3];
+    private final float[] dst = new float[VERTICES * 3];
+    private final Matrix4 matrix = Matrix4.translation(1, 2, 3).multiply(Matrix4.rotationY(0.7));
+    private final Renderer3D renderer = new Renderer3D();
+    private RenderTarget target;
+    private Mesh layers;
+
+    @Setup
+    public void setup() {
+        boolean vector = "vector".equals(backend);
+        if (Simd.setEnabled(vector) != vector) throw new IllegalStateException("Vector API indisponível.");
+        Simd.setRasterEnabled(vector);
+
+        Random r = new Random(42);
+        for (int i = 0; i < src.length; i++) src[i] = (float) (r.nextDouble() * 200 - 100);
+
+        // Camadas de trás para frente: cada pixel passa no teste de profundidade em todas
+        layers = new Mesh();
+        for (int l = 0; l < LAYERS; l++) {
+            double z = l;
+            Color c = new Color(l * 30, 255 - l * 30, 128);
+            Vertex a = new Vertex(0, 0, z), b = new Vertex(WIDTH, 0, z);
+            Vertex d = new Vertex(WIDTH, HEIGHT, z), e = new Vertex(0, HEIGHT, z);
+            layers.addTriangle(new Triangle(a, b, d, c));
+            layers.addTriangle(new Triangle(a, d, e, c));
+        }
+        target = new RenderTarget(WIDTH, HEIGHT);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VERTICES)
+    public float[] transformVertices() {
+        matrix.transform(src, 0, 3, dst, 0, 3, VERTICES);
+        return dst;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(WIDTH * HEIGHT * LAYERS)
+    public RenderTarget fillLayers() {
+        target.clear();
+        renderer.render(layers, target);
+        return target;
+    }
+}
@@ -0,0 +1,58 @@
+package org.nerdola.openj3d.bench;
+
+import org.nerdola.openj3d.core.Mesh;
+import org.nerdola.openj3d.core.RenderTarget;
+import org.nerdola.openj3d.core.Renderer3D;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Frame texturizado em 1280x720 por filtro de textura, mipmaps e tamanho da textura. Os
+ * triângulos são pequenos e mapeiam a textura inteira, ou seja, quase tudo é minificado.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TextureFilterBenchmark {
+
+    @Param({"NEAREST", "BILINEAR", "TRILINEAR"})
+    public Renderer3D.TextureFilter filter;
+
+    @Param({"false", "true"})
+    public boolean mipmaps;
+
+    @Param({"256", "2048"})
+    public int textureSize;
+
+    private Mesh mesh;
+    private RenderTarget target;
+    private Renderer3D renderer;
+
+    @Setup
+    public void setup() {
+        mesh = BenchScenes.screenSpaceTriangles(100_000, 1280, 720, textureSize, 42);
+        target = new RenderTarget(1280, 720);
+        renderer = new Renderer3D().setTextureFilter(filter).setMipmaps(mipmaps);
+    }
+
+    @Benchmark
+    public RenderTarget render() {
+        target.clear();
+        renderer.render(mesh, target);
+        return target;
+    }
+}
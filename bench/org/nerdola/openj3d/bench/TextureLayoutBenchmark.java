@@ -0,0 +1,66 @@
+package org.nerdola.openj3d.bench;
+
+import org.nerdola.openj3d.core.Mesh;
+import org.nerdola.openj3d.core.RenderTarget;
+import org.nerdola.openj3d.core.Renderer3D;
+import org.nerdola.openj3d.io.Texture;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Quadrado texturizado girado (como a mesh que gira em {@code test/main.java}) em 1280x720,
+ * por layout de memória da textura e ângulo. A 0 grau uma linha da tela percorre uma linha da
+ * textura; a 90 graus percorre uma coluna, o pior caso do layout linha a linha.
+ * <p>
+ * Para ver as faltas de cache junto do tempo: {@code -prof perfnorm} (Linux).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TextureLayoutBenchmark {
+
+    @Param({"ROW_MAJOR", "TILED", "MORTON"})
+    public Texture.Layout layout;
+
+    @Param({"0", "45", "90"})
+    public int degrees;
+
+    @Param({"NEAREST", "BILINEAR"})
+    public Renderer3D.TextureFilter filter;
+
+    @Param({"1024", "4096"})
+    public int textureSize;
+
+    private Mesh mesh;
+    private RenderTarget target;
+    private Renderer3D renderer;
+
+    @Setup
+    public void setup() {
+        mesh = BenchScenes.rotatedQuad(1280, 720, degrees, BenchScenes.noiseMaterial(textureSize, layout, new Random(42)));
+        target = new RenderTarget(1280, 720);
+        renderer = new Renderer3D().setTextureFilter(filter);
+    }
+
+    @Benchmark
+    public RenderTarget render() {
+        target.clear();
+        renderer.render(mesh, target);
+        return target;
+    }
+}
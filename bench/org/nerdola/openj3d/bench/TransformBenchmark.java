@@ -0,0 +1,55 @@
+package org.nerdola.openj3d.bench;
+
+import org.nerdola.openj3d.core.Matrix3;
+import org.nerdola.openj3d.core.Matrix4;
+import org.nerdola.openj3d.core.Mesh;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Mesh#transformed(Matrix3)} e {@link Mesh#transformed(Matrix4)} sobre esferas
+ * geradas com {@link org.nerdola.openj3d.core.MeshUtils#inflate}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransformBenchmark {
+
+    // 8 * 4^level triângulos
+    @Param({"3", "5", "7"})
+    public int level;
+
+    private Mesh mesh;
+    private final Matrix3 rotation = Matrix3.rotationY(0.7).multiply(Matrix3.rotationX(0.3));
+    private final Matrix4 model = Matrix4.translation(320, 240, 0)
+            .multiply(Matrix4.rotationY(0.7)).multiply(Matrix4.rotationX(0.3));
+
+    @Setup
+    public void setup() {
+        mesh = BenchScenes.sphere(level, 200);
+    }
+
+    @Benchmark
+    public Mesh matrix3() {
+        return mesh.transformed(rotation);
+    }
+
+    @Benchmark
+    public Mesh matrix4() {
+        return mesh.transformed(model);
+    }
+}
@@ -0,0 +1,657 @@
+package org.nerdola.openj3d.core;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+/**
+ * Hierarquia de caixas envolventes (alinhadas aos eixos) sobre os triângulos de uma {@link Mesh}.
+ * <p>
+ * A construção divide cada nó pelo SAH (custo pela área de superfície) avaliado em 16 bins por
+ * eixo sobre os centros das caixas dos triângulos; nós com até 4 triângulos, ou em que dividir
+ * não compensa, viram folhas. Subárvores grandes são construídas em paralelo no
+ * {@link ForkJoinPool#commonPool()}.
+ * <p>
+ * A árvore fica em arrays planos: 6 floats de caixa por nó (arredondados para fora) e 3 ints
+ * (primeiro filho ou -1 numa folha, primeiro triângulo e quantidade de triângulos da subárvore,
+ * que é uma faixa contígua da lista de índices). O filho direito vem logo depois do esquerdo e
+ * filhos sempre têm índice maior que o pai, então {@link #refit} recalcula todas as caixas numa
+ * varredura de trás para frente, sem mexer na topologia.
+ * <p>
+ * {@link Renderer3D#render(Mesh, Bvh, Matrix4, Camera3D, RenderTarget)} usa a árvore para
+ * descartar subárvores inteiras fora do frustum da câmera ou escondidas atrás do que já está no
+ * alvo; {@link #queryFrustum} expõe o mesmo teste de frustum, e {@link Picker} usa a árvore
+ * para lançar raios.
+ */
+public final class Bvh {
+
+    private static final int BINS = 16;
+    private static final int LEAF_SIZE = 4;     // até aqui vira folha sem avaliar o SAH
+    private static final int MAX_LEAF = 16;     // acima disso sempre divide, mesmo que o SAH prefira folha
+    private static final int MAX_DEPTH = 100;   // proteção contra distribuições degeneradas
+    private static final int PARALLEL_THRESHOLD = 32 * 1024;
+    private static final double TRAVERSAL_COST = 1.0; // relativo a processar um triângulo
+    private static final int CHUNK_SHIFT = 14;          // nós por bloco de alocação na construção: 16K
+    private static final int REFIT_BLOCK = 256;         // triângulos lidos de uma vez no refit
+    private static final int OCCLUSION_MIN = 32;        // subárvores menores não testam oclusão
+
+    private final int triangleCount;
+    private float[] bounds;  // 6 por nó: min x, y, z, max x, y, z
+    private int[] nodes;     // 3 por nó: primeiro filho (-1 = folha), primeiro triângulo, quantidade
+    private final int[] primitives;
+    private int[] leafOrder; // folhas na ordem de primitives (primeiro triângulo crescente)
+    private int nodeCount, leafCount, maxDepth;
+    private final long buildNanos;
+    private long refitNanos = -1;
+
+    // Só durante a construção: caixas dos triângulos, na mesma ordem de primitives (a partição troca
+    // as duas juntas, então cada passada lê memória sequencial), e nós em blocos alocados sob
+    // demanda (o total só é conhecido no fim; reservar o pior caso, 2n - 1, pesaria em milhões)
+    private float[] triBounds;
+    private AtomicInteger nextNode;
+    private int[][] nodeChunks;
+    private float[][] boundChunks;
+
+    private Bvh(List<Triangle> tris, boolean parallel) {
+        long start = System.nanoTime();
+        int n = tris.size();
+        this.triangleCount = n;
+        this.primitives = new int[n];
+        for (int i = 0; i < n; i++) primitives[i] = i;
+        int maxNodes = Math.max(1, 2 * n - 1);
+        int chunks = ((maxNodes - 1) >>> CHUNK_SHIFT) + 1;
+        nodeChunks = new int[chunks][];
+        boundChunks = new float[chunks][];
+        chunk(0);
+
+        triBounds = new float[n * 6];
+        nextNode = new AtomicInteger(1);
+        if (parallel && n > PARALLEL_THRESHOLD) {
+            ForkJoinPool.commonPool().invoke(new RangeTask(0, n, PARALLEL_THRESHOLD, (from, to) -> triangleBounds(tris, from, to)));
+            ForkJoinPool.commonPool().invoke(new BuildTask(0, 0, n, 0));
+        } else {
+            triangleBounds(tris, 0, n);
+            build(0, 0, n, 0, new Scratch(), false);
+        }
+        triBounds = null;
+
+        nodeCount = nextNode.get();
+        nextNode = null;
+        bounds = new float[nodeCount * 6];
+        nodes = new int[nodeCount * 3];
+        int size = 1 << CHUNK_SHIFT;
+        for (int c = 0, first = 0; first < nodeCount; c++, first += size) {
+            int len = Math.min(size, nodeCount - first);
+            System.arraycopy(nodeChunks[c], 0, nodes, first * 3, len * 3);
+            System.arraycopy(boundChunks[c], 0, bounds, first * 6, len * 6);
+        }
+        nodeChunks = null;
+        boundChunks = null;
+        measure();
+        buildNanos = System.nanoTime() - start;
+    }
+
+    /** Constrói a árvore da mesh, em paralelo quando ela é grande. */
+    public static Bvh build(Mesh mesh) {
+        return build(mesh, true);
+    }
+
+    public static Bvh build(Mesh mesh, boolean parallel) {
+        return new Bvh(mesh.getTriangles(), parallel);
+    }
+
+    public int getTriangleCount() { return triangleCount; }
+    public int getNodeCount() { return nodeCount; }
+    public int getLeafCount() { return leafCount; }
+    public int getMaxDepth() { return maxDepth; }
+
+    /** Duração da construção em nanossegundos. */
+    public long getBuildNanos() { return buildNanos; }
+
+    /** Duração do último {@link #refit}, ou -1 se nunca houve. */
+    public long getRefitNanos() { return refitNanos; }
+
+    /** Memória dos arrays da árvore (caixas, nós e índices de triângulos). */
+    public long sizeInBytes() {
+        return (long) bounds.length * 4 + (long) nodes.length * 4 + (long) primitives.length * 4 + (long) leafOrder.length * 4;
+    }
+
+    /**
+     * Recalcula as caixas a partir das posições atuais dos triângulos de {@code mesh}, mantendo a
+     * topologia: serve para a mesma mesh com vértices movidos ou para o resultado de
+     * {@link Mesh#transformed} (mesma ordem de triângulos). Custa uma passada pelos triângulos e
+     * uma pelos nós internos; a qualidade da árvore cai se a deformação for grande, e aí vale
+     * reconstruir.
+     */
+    public void refit(Mesh mesh) {
+        List<Triangle> tris = mesh.getTriangles();
+        if (tris.size() != triangleCount)
+            throw new IllegalArgumentException("A mesh tem " + tris.size() + " triângulos; a BVH foi construída com " + triangleCount + ".");
+        long start = System.nanoTime();
+        // Folhas são independentes entre si
+        if (triangleCount > PARALLEL_THRESHOLD) {
+            int grain = Math.max(1, (int) ((long) leafCount * PARALLEL_THRESHOLD / triangleCount));
+            ForkJoinPool.commonPool().invoke(new RangeTask(0, leafCount, grain, (from, to) -> refitLeaves(tris, from, to)));
+        } else {
+            refitLeaves(tris, 0, leafCount);
+        }
+        float[] b = bounds;
+        for (int node = nodeCount - 1; node >= 0; node--) {
+            int child = nodes[node * 3];
+            if (child < 0) continue;
+            int o = node * 6, l = child * 6, r = l + 6;
+            for (int k = 0; k < 3; k++) {
+                b[o + k] = Math.min(b[l + k], b[r + k]);
+                b[o + 3 + k] = Math.max(b[l + 3 + k], b[r + 3 + k]);
+            }
+        }
+        refitNanos = System.nanoTime() - start;
+    }
+
+    /**
+     * Chama {@code action} com o índice (na mesh) de cada triângulo cujas folhas tocam o frustum
+     * de {@code viewProjection} (coordenadas da mesh para clip, ex.: projeção * visualização *
+     * modelo). Subárvores inteiramente fora não são visitadas. Retorna quantos triângulos foram
+     * entregues.
+     */
+    public int queryFrustum(Matrix4 viewProjection, IntConsumer action) {
+        double[] m = new double[16];
+        for (int i = 0; i < 16; i++) m[i] = viewProjection.get(i >> 2, i & 3);
+        int[] counters = new int[3];
+        int[] delivered = new int[1];
+        traverse(m, null, 0, 0, (prims, first, count) -> {
+            for (int i = first, end = first + count; i < end; i++) action.accept(prims[i]);
+            delivered[0] += count;
+        }, new double[24], new int[stackSize()], counters);
+        return delivered[0];
+    }
+
+    @Override
+    public String toString() {
+        return "Bvh(tris=" + triangleCount + ", nodes=" + nodeCount + ", leaves=" + leafCount
+                + ", depth=" + maxDepth + ", build=" + (buildNanos / 1_000_000) + "ms"
+                + ", memory=" + (sizeInBytes() / 1024) + "KB)";
+    }
+
+    // ----------------------------
+    // Percurso (usado pelo Renderer3D)
+
+    /**
+     * Recebe faixas de {@code primitives} (índices de triângulos na mesh) que devem ser desenhadas.
+     */
+    interface Visitor {
+        void visit(int[] primitives, int first, int count);
+    }
+
+    // Arrays da árvore para o Picker (não altere)
+    float[] bounds() { return bounds; }
+    int[] nodes() { return nodes; }
+    int[] primitives() { return primitives; }
+
+    /** Tamanho mínimo do array de pilha de {@link #traverse}. */
+    int stackSize() { return 2 * (maxDepth + 2); }
+
+    /**
+     * Percorre a árvore com a matriz de clip {@code m} (16 valores, linha a linha), do nó mais
+     * próximo para o mais distante. Subárvores fora do frustum são descartadas; com {@code hiZ},
+     * as que projetam atrás da profundidade por bloco do alvo ({@code width x height}) também.
+     * Subárvores inteiras dentro do frustum são entregues de uma vez quando não há oclusão a
+     * testar (sem hiZ ou com menos de {@link #OCCLUSION_MIN} triângulos: ali o teste custaria
+     * mais que rasterizar, que também rejeita pela profundidade por bloco).
+     * {@code counters} recebe: nós visitados, triângulos fora do frustum, triângulos escondidos;
+     * {@code planes} (24 valores) e {@code stack} ({@link #stackSize()}) são áreas de trabalho.
+     */
+    void traverse(double[] m, HierarchicalDepth hiZ, int width, int height, Visitor visitor,
+                  double[] planes, int[] stack, int[] counters) {
+        if (triangleCount == 0) return;
+        // Planos do frustum (a, b, c, d) com a*x + b*y + c*z + d >= 0 do lado de dentro: w ± x, w ± y, w ± z
+        for (int p = 0; p < 6; p++) {
+            int row = p >> 1;
+            double sign = (p & 1) == 0 ? 1 : -1;
+            for (int k = 0; k < 4; k++) planes[p * 4 + k] = m[12 + k] + sign * m[row * 4 + k];
+        }
+        float[] b = bounds;
+        int sp = 0, node = 0, mask = 0x3F;
+        while (true) {
+            counters[0]++;
+            int o = node * 6;
+            int count = nodes[node * 3 + 2];
+            boolean skip = false;
+            for (int p = 0; p < 6 && mask != 0; p++) {
+                if ((mask & (1 << p)) == 0) continue;
+                double a = planes[p * 4], pb = planes[p * 4 + 1], c = planes[p * 4 + 2], d = planes[p * 4 + 3];
+                // Canto mais "para dentro" do plano: se ele está fora, a caixa toda está
+                double far = a * (a >= 0 ? b[o + 3] : b[o]) + pb * (pb >= 0 ? b[o + 4] : b[o + 1]) + c * (c >= 0 ? b[o + 5] : b[o + 2]) + d;
+                if (far < 0) {
+                    skip = true;
+                    counters[1] += count;
+                    break;
+                }
+                double near = a * (a >= 0 ? b[o] : b[o + 3]) + pb * (pb >= 0 ? b[o + 1] : b[o + 4]) + c * (c >= 0 ? b[o + 2] : b[o + 5]) + d;
+                if (near >= 0) mask &= ~(1 << p); // filhos não precisam testar este plano
+            }
+            boolean testOcclusion = hiZ != null && count >= OCCLUSION_MIN;
+            if (!skip && testOcclusion && occluded(m, o, hiZ, width, height)) {
+                skip = true;
+                counters[2] += count;
+            }
+            if (!skip) {
+                int child = nodes[node * 3];
+                if (child < 0 || (mask == 0 && !testOcclusion)) {
+                    visitor.visit(primitives, nodes[node * 3 + 1], count);
+                } else {
+                    // Desce pelo filho mais próximo; o outro fica na pilha
+                    int first = child, second = child + 1;
+                    if (nearness(m, second * 6) > nearness(m, first * 6)) {
+                        first = second;
+                        second = child;
+                    }
+                    stack[sp++] = second;
+                    stack[sp++] = mask;
+                    node = first;
+                    continue;
+                }
+            }
+            if (sp == 0) break;
+            mask = stack[--sp];
+            node = stack[--sp];
+        }
+    }
+
+    // Profundidade de tela (-z/w, maior = mais perto) do centro da caixa
+    private double nearness(double[] m, int o) {
+        float[] b = bounds;
+        double x = (b[o] + b[o + 3]) * 0.5, y = (b[o + 1] + b[o + 4]) * 0.5, z = (b[o + 2] + b[o + 5]) * 0.5;
+        double w = m[12] * x + m[13] * y + m[14] * z + m[15];
+        if (!(w > 0)) return Double.POSITIVE_INFINITY; // cruza o plano da câmera: visita primeiro
+        return -(m[8] * x + m[9] * y + m[10] * z + m[11]) / w;
+    }
+
+    /**
+     * Projeta os 8 cantos da caixa: o retângulo de tela que eles cobrem e a profundidade mais
+     * próxima entre eles limitam tudo o que a subárvore pode desenhar. Caixas que cruzam o plano
+     * da câmera não são testadas.
+     */
+    private boolean occluded(double[] m, int o, HierarchicalDepth hiZ, int width, int height) {
+        float[] b = bounds;
+        double hw = width * 0.5, hh = height * 0.5;
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        double nearest = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < 8; i++) {
+            double x = b[o + ((i & 1) != 0 ? 3 : 0)], y = b[o + ((i & 2) != 0 ? 4 : 1)], z = b[o + ((i & 4) != 0 ? 5 : 2)];
+            double w = m[12] * x + m[13] * y + m[14] * z + m[15];
+            if (!(w > 1e-9)) return false;
+            double iw = 1.0 / w;
+            double sx = ((m[0] * x + m[1] * y + m[2] * z + m[3]) * iw + 1) * hw;
+            double sy = (1 - (m[4] * x + m[5] * y + m[6] * z + m[7]) * iw) * hh;
+            double d = -(m[8] * x + m[9] * y + m[10] * z + m[11]) * iw;
+            minX = Math.min(minX, sx); maxX = Math.max(maxX, sx);
+            minY = Math.min(minY, sy); maxY = Math.max(maxY, sy);
+            nearest = Math.max(nearest, d);
+        }
+        int x0 = (int) Math.max(0, Math.floor(minX)), x1 = (int) Math.min(width - 1, Math.ceil(maxX));
+        int y0 = (int) Math.max(0, Math.floor(minY)), y1 = (int) Math.min(height - 1, Math.ceil(maxY));
+        if (x0 > x1 || y0 > y1) return false;
+        return hiZ.occluded(x0, y0, x1, y1, nearest + 1e-6 * (1 + Math.abs(nearest)));
+    }
+
+    // ----------------------------
+    // Construção
+
+    private static final class Scratch {
+        final int[] binCount = new int[3 * BINS];
+        final float[] binBounds = new float[3 * BINS * 6]; // float como as caixas dos triângulos
+        final double[] scale = new double[3];
+        double bestCost;
+        final double[] rightArea = new double[BINS];
+        final int[] rightCount = new int[BINS];
+        final double[] box = new double[6], centroids = new double[6];
+    }
+
+    private final class BuildTask extends RecursiveAction {
+        private final int node, start, end, depth;
+
+        BuildTask(int node, int start, int end, int depth) {
+            this.node = node; this.start = start; this.end = end; this.depth = depth;
+        }
+
+        @Override
+        protected void compute() {
+            build(node, start, end, depth, new Scratch(), true);
+        }
+    }
+
+    interface Range {
+        void run(int from, int to);
+    }
+
+    /** Executa {@code body} em faixas de até {@code grain} índices, divididas no ForkJoinPool. */
+    static final class RangeTask extends RecursiveAction {
+        private final int from, to, grain;
+        private final Range body;
+
+        RangeTask(int from, int to, int grain, Range body) {
+            this.from = from; this.to = to; this.grain = grain; this.body = body;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                body.run(from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RangeTask(from, mid, grain, body), new RangeTask(mid, to, grain, body));
+        }
+    }
+
+    private void triangleBounds(List<Triangle> tris, int from, int to) {
+        float[] tb = triBounds;
+        for (int i = from; i < to; i++) {
+            Triangle t = tris.get(i);
+            store(tb, i * 6, t);
+        }
+    }
+
+    /**
+     * Caixas das folhas {@code leafOrder[from..to)}. Os vértices são copiados em blocos numa volta
+     * sem desvios (as faltas de cache de vários triângulos se sobrepõem) e só depois reduzidos às
+     * caixas das folhas, que cobrem faixas consecutivas de primitives.
+     */
+    private void refitLeaves(List<Triangle> tris, int from, int to) {
+        if (from >= to || triangleCount == 0) return;
+        double[] v = new double[REFIT_BLOCK * 9];
+        int[] prims = primitives;
+        int leaf = from, end = rangeEnd(leafOrder[leaf]);
+        int pos = nodes[leafOrder[from] * 3 + 1], last = rangeEnd(leafOrder[to - 1]);
+        double x0 = Double.POSITIVE_INFINITY, y0 = x0, z0 = x0, x1 = Double.NEGATIVE_INFINITY, y1 = x1, z1 = x1;
+        while (pos < last) {
+            int n = Math.min(REFIT_BLOCK, last - pos);
+            for (int i = 0; i < n; i++) {
+                Triangle t = tris.get(prims[pos + i]);
+                Vertex p = t.v1, q = t.v2, r = t.v3;
+                int o = i * 9;
+                v[o] = p.x; v[o + 1] = p.y; v[o + 2] = p.z;
+                v[o + 3] = q.x; v[o + 4] = q.y; v[o + 5] = q.z;
+                v[o + 6] = r.x; v[o + 7] = r.y; v[o + 8] = r.z;
+            }
+            for (int i = 0; i < n * 9; i += 9, pos++) {
+                if (pos == end) {
+                    setBounds(leafOrder[leaf], x0, y0, z0, x1, y1, z1);
+                    end = rangeEnd(leafOrder[++leaf]);
+                    x0 = y0 = z0 = Double.POSITIVE_INFINITY;
+                    x1 = y1 = z1 = Double.NEGATIVE_INFINITY;
+                }
+                for (int k = i; k < i + 9; k += 3) {
+                    x0 = Math.min(x0, v[k]); y0 = Math.min(y0, v[k + 1]); z0 = Math.min(z0, v[k + 2]);
+                    x1 = Math.max(x1, v[k]); y1 = Math.max(y1, v[k + 1]); z1 = Math.max(z1, v[k + 2]);
+                }
+            }
+        }
+        setBounds(leafOrder[leaf], x0, y0, z0, x1, y1, z1);
+    }
+
+    private void setBounds(int node, double x0, double y0, double z0, double x1, double y1, double z1) {
+        float[] b = bounds;
+        int o = node * 6;
+        b[o] = down(x0); b[o + 1] = down(y0); b[o + 2] = down(z0);
+        b[o + 3] = up(x1); b[o + 4] = up(y1); b[o + 5] = up(z1);
+    }
+
+    private int rangeEnd(int node) {
+        return nodes[node * 3 + 1] + nodes[node * 3 + 2];
+    }
+
+    // Caixa do triângulo em float, arredondada para fora
+    private static void store(float[] dst, int o, Triangle t) {
+        Vertex a = t.v1, b = t.v2, c = t.v3;
+        dst[o] = down(min(a.x, b.x, c.x));
+        dst[o + 1] = down(min(a.y, b.y, c.y));
+        dst[o + 2] = down(min(a.z, b.z, c.z));
+        dst[o + 3] = up(max(a.x, b.x, c.x));
+        dst[o + 4] = up(max(a.y, b.y, c.y));
+        dst[o + 5] = up(max(a.z, b.z, c.z));
+    }
+
+    // Comparações simples: Math.min/max de double tratam NaN e -0 com desvios extras
+    private static double min(double a, double b, double c) {
+        double m = a < b ? a : b;
+        return m < c ? m : c;
+    }
+
+    private static double max(double a, double b, double c) {
+        double m = a > b ? a : b;
+        return m > c ? m : c;
+    }
+
+    // Afasta v de 2^-22 relativo (mais o menor float) antes de converter: o arredondamento para
+    // float erra no máximo 2^-24 relativo, então o resultado nunca passa de v. Sem desvios, ao
+    // contrário de comparar e chamar Math.nextDown (metade dos valores, ao acaso)
+    private static float down(double v) {
+        return (float) (v - (Math.abs(v) * 0x1p-22 + Float.MIN_VALUE));
+    }
+
+    private static float up(double v) {
+        return (float) (v + (Math.abs(v) * 0x1p-22 + Float.MIN_VALUE));
+    }
+
+    private static double area(double dx, double dy, double dz) {
+        return dx * dy + dy * dz + dz * dx; // metade da área: só a razão importa
+    }
+
+    private void build(int node, int start, int end, int depth, Scratch s, boolean parallel) {
+        int count = end - start;
+        nodeBounds(start, end, s);
+        int local = node & ((1 << CHUNK_SHIFT) - 1);
+        float[] nb = boundChunks[node >>> CHUNK_SHIFT];
+        int[] nn = nodeChunks[node >>> CHUNK_SHIFT];
+        for (int k = 0; k < 6; k++) nb[local * 6 + k] = (float) s.box[k]; // já são floats
+        nn[local * 3] = -1;
+        nn[local * 3 + 1] = start;
+        nn[local * 3 + 2] = count;
+        if (count <= LEAF_SIZE) return;
+
+        int mid = -1;
+        if (depth < MAX_DEPTH) {
+            fillBins(start, end, s);
+            int split = bestSplit(s);
+            if (split < 0 || (s.bestCost >= count && count <= MAX_LEAF)) {
+                if (count <= MAX_LEAF) return; // folha
+            } else {
+                mid = partition(start, end, split / BINS, split % BINS, s);
+            }
+        }
+        if (mid <= start || mid >= end) mid = (start + end) >>> 1; // centros iguais ou profundidade demais
+
+        int left = nextNode.getAndAdd(2);
+        chunk(left);
+        chunk(left + 1);
+        nn[local * 3] = left;
+        if (parallel && count > PARALLEL_THRESHOLD) {
+            RecursiveAction.invokeAll(new BuildTask(left, start, mid, depth + 1), new BuildTask(left + 1, mid, end, depth + 1));
+        } else {
+            build(left, start, mid, depth + 1, s, false);
+            build(left + 1, mid, end, depth + 1, s, false);
+        }
+    }
+
+    // Caixa do nó e caixa dos centros, em s.box e s.centroids
+    private void nodeBounds(int start, int end, Scratch s) {
+        float[] tb = triBounds;
+        double[] box = s.box, cen = s.centroids;
+        Arrays.fill(box, 0, 3, Double.POSITIVE_INFINITY);
+        Arrays.fill(box, 3, 6, Double.NEGATIVE_INFINITY);
+        Arrays.fill(cen, 0, 3, Double.POSITIVE_INFINITY);
+        Arrays.fill(cen, 3, 6, Double.NEGATIVE_INFINITY);
+        for (int i = start; i < end; i++) {
+            int o = i * 6;
+            for (int k = 0; k < 3; k++) {
+                double lo = tb[o + k], hi = tb[o + 3 + k], c = (lo + hi) * 0.5;
+                if (lo < box[k]) box[k] = lo;
+                if (hi > box[3 + k]) box[3 + k] = hi;
+                if (c < cen[k]) cen[k] = c;
+                if (c > cen[3 + k]) cen[3 + k] = c;
+            }
+        }
+        for (int k = 0; k < 3; k++) s.scale[k] = binScale(cen[3 + k] - cen[k]);
+    }
+
+    // Contagem e caixa de cada bin nos três eixos
+    private void fillBins(int start, int end, Scratch s) {
+        float[] tb = triBounds;
+        int[] bc = s.binCount;
+        float[] bb = s.binBounds;
+        double[] scale = s.scale, cen = s.centroids;
+        Arrays.fill(bc, 0);
+        for (int j = 0; j < 3 * BINS; j++) {
+            int o = j * 6;
+            bb[o] = bb[o + 1] = bb[o + 2] = Float.POSITIVE_INFINITY;
+            bb[o + 3] = bb[o + 4] = bb[o + 5] = Float.NEGATIVE_INFINITY;
+        }
+        for (int i = start; i < end; i++) {
+            int o = i * 6;
+            for (int k = 0; k < 3; k++) {
+                if (scale[k] == 0) continue;
+                int j = k * BINS + bin((tb[o + k] + tb[o + 3 + k]) * 0.5, cen[k], scale[k]);
+                bc[j]++;
+                int bo = j * 6;
+                for (int q = 0; q < 3; q++) {
+                    bb[bo + q] = Math.min(bb[bo + q], tb[o + q]);
+                    bb[bo + 3 + q] = Math.max(bb[bo + 3 + q], tb[o + 3 + q]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Melhor corte por SAH entre os bins dos três eixos: eixo * BINS + primeiro bin da direita,
+     * com o custo em s.bestCost; -1 se nenhum eixo tem centros espalhados.
+     */
+    private static int bestSplit(Scratch s) {
+        double[] box = s.box;
+        double parentArea = area(box[3] - box[0], box[4] - box[1], box[5] - box[2]);
+        if (!(parentArea > 0)) parentArea = 1;
+        int[] bc = s.binCount;
+        float[] bb = s.binBounds;
+        double bestCost = Double.POSITIVE_INFINITY;
+        int best = -1;
+        for (int k = 0; k < 3; k++) {
+            if (s.scale[k] == 0) continue;
+            // Sufixos: área e contagem à direita de cada corte
+            double x0 = Double.POSITIVE_INFINITY, y0 = x0, z0 = x0, x1 = Double.NEGATIVE_INFINITY, y1 = x1, z1 = x1;
+            int n = 0;
+            for (int j = BINS - 1; j > 0; j--) {
+                int jj = k * BINS + j, bo = jj * 6;
+                if (bc[jj] > 0) {
+                    n += bc[jj];
+                    x0 = Math.min(x0, bb[bo]); y0 = Math.min(y0, bb[bo + 1]); z0 = Math.min(z0, bb[bo + 2]);
+                    x1 = Math.max(x1, bb[bo + 3]); y1 = Math.max(y1, bb[bo + 4]); z1 = Math.max(z1, bb[bo + 5]);
+                }
+                s.rightCount[j] = n;
+                s.rightArea[j] = n > 0 ? area(x1 - x0, y1 - y0, z1 - z0) : 0;
+            }
+            x0 = y0 = z0 = Double.POSITIVE_INFINITY;
+            x1 = y1 = z1 = Double.NEGATIVE_INFINITY;
+            n = 0;
+            for (int j = 1; j < BINS; j++) {
+                int jj = k * BINS + j - 1, bo = jj * 6;
+                if (bc[jj] > 0) {
+                    n += bc[jj];
+                    x0 = Math.min(x0, bb[bo]); y0 = Math.min(y0, bb[bo + 1]); z0 = Math.min(z0, bb[bo + 2]);
+                    x1 = Math.max(x1, bb[bo + 3]); y1 = Math.max(y1, bb[bo + 4]); z1 = Math.max(z1, bb[bo + 5]);
+                }
+                int rn = s.rightCount[j];
+                if (n == 0 || rn == 0) continue;
+                double cost = TRAVERSAL_COST + (area(x1 - x0, y1 - y0, z1 - z0) * n + s.rightArea[j] * rn) / parentArea;
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    best = k * BINS + j;
+                }
+            }
+        }
+        s.bestCost = bestCost;
+        return best;
+    }
+
+    // Partição in-place (índices e caixas juntos): bins abaixo do corte à esquerda; retorna o meio
+    private int partition(int start, int end, int axis, int split, Scratch s) {
+        float[] tb = triBounds;
+        int[] prims = primitives;
+        double lo = s.centroids[axis], scale = s.scale[axis];
+        int i = start, j = end - 1;
+        while (i <= j) {
+            int o = i * 6;
+            if (bin((tb[o + axis] + tb[o + 3 + axis]) * 0.5, lo, scale) < split) {
+                i++;
+            } else {
+                int t = prims[i];
+                prims[i] = prims[j];
+                prims[j] = t;
+                for (int q = 0, p = j * 6; q < 6; q++) {
+                    float f = tb[o + q];
+                    tb[o + q] = tb[p + q];
+                    tb[p + q] = f;
+                }
+                j--;
+            }
+        }
+        return i;
+    }
+
+    /**
+     * Garante o bloco do nó. Quem aloca um nó cria o bloco antes de escrever nele; uma leitura sem
+     * lock que veja o bloco já criado por outra thread só encontra o array zerado, que é o esperado.
+     */
+    private void chunk(int node) {
+        int c = node >>> CHUNK_SHIFT;
+        if (nodeChunks[c] != null) return;
+        synchronized (this) {
+            if (nodeChunks[c] == null) {
+                boundChunks[c] = new float[6 << CHUNK_SHIFT];
+                nodeChunks[c] = new int[3 << CHUNK_SHIFT];
+            }
+        }
+    }
+
+    // Bins por unidade ao longo de um eixo; 0 se os centros não se espalham nele
+    private static double binScale(double extent) {
+        return extent > 0 ? BINS / extent : 0;
+    }
+
+    private static int bin(double c, double lo, double scale) {
+        int b = (int) ((c - lo) * scale);
+        return b < 0 ? 0 : b >= BINS ? BINS - 1 : b;
+    }
+
+    // Folhas (em leafOrder, da esquerda para a direita) e profundidade máxima; sem recursão: a
+    // pilha guarda nó e profundidade, e o filho direito entra antes para sair depois
+    private void measure() {
+        int[] order = new int[(nodeCount + 1) / 2];
+        int leaves = 0, deepest = 0;
+        int[] stack = new int[2 * (MAX_DEPTH + 64)];
+        int sp = 0;
+        stack[sp++] = 0;
+        stack[sp++] = 0;
+        while (sp > 0) {
+            int depth = stack[--sp], node = stack[--sp];
+            deepest = Math.max(deepest, depth);
+            int child = nodes[node * 3];
+            if (child < 0) {
+                order[leaves++] = node;
+                continue;
+            }
+            if (sp + 4 > stack.length) stack = Arrays.copyOf(stack, stack.length * 2);
+            stack[sp++] = child + 1;
+            stack[sp++] = depth + 1;
+            stack[sp++] = child;
+            stack[sp++] = depth + 1;
+        }
+        leafCount = leaves;
+        leafOrder = order.length == leaves ? order : Arrays.copyOf(order, leaves);
+        maxDepth = deepest;
+    }
+}
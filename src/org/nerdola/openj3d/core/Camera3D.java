@@ -2,23 +2,38 @@ package org.nerdola.openj3d.core;
 
 /**
  * Câmera simples sem controles.
- * Apenas posição e ângulos ajustáveis manualmente.
+ * Apenas posição e ângulos ajustáveis manualmente, mais a projeção (perspectiva por padrão).
+ * <p>
+ * As matrizes de visualização e visualização-projeção ficam em cache e só são recalculadas
+ * quando posição, yaw, pitch ou projeção mudam; em um frame sem movimento
+ * {@link #getViewProjectionMatrix()} devolve a mesma instância (Matrix4 é imutável).
  */
 public class Camera3D {
 
-    private Vector3 position = new Vector3();
+    public static final double DEFAULT_FOV_Y = Math.toRadians(60);
+    public static final double DEFAULT_NEAR = 0.1;
+    public static final double DEFAULT_FAR = 1000;
+
+    private final Vector3 position = new Vector3();
     private double yaw = 0;   // rotação horizontal
     private double pitch = 0; // rotação vertical
 
+    // Projeção: perspectiva com estes parâmetros, ou a matriz fixa de setProjection
+    private double fovY = DEFAULT_FOV_Y, aspect = 4.0 / 3.0, near = DEFAULT_NEAR, far = DEFAULT_FAR;
+    private Matrix4 customProjection;
+
+    // Cache (null = recalcular)
+    private Matrix4 view, projection, viewProjection, inverseViewProjection;
+
     public Camera3D() {}
 
     // ----------------------------
     // Posicionamento
-    public void setPos(Vector3 pos) { this.position = pos.copy(); }
-    public void setPos(double x, double y, double z) { this.position.set(x, y, z); }
-    public void setPosX(double x) { this.position.x = x; }
-    public void setPosY(double y) { this.position.y = y; }
-    public void setPosZ(double z) { this.position.z = z; }
+    public void setPos(Vector3 pos) { setPos(pos.x, pos.y, pos.z); }
+    public void setPos(double x, double y, double z) { this.position.set(x, y, z); viewChanged(); }
+    public void setPosX(double x) { this.position.x = x; viewChanged(); }
+    public void setPosY(double y) { this.position.y = y; viewChanged(); }
+    public void setPosZ(double z) { this.position.z = z; viewChanged(); }
 
     public Vector3 getPos() { return position.copy(); }
     public double getX() { return position.x; }
@@ -27,18 +42,117 @@ public class Camera3D {
 
     // ----------------------------
     // Rotação
-    public void setYaw(double yaw) { this.yaw = yaw; }
-    public void setPitch(double pitch) { this.pitch = pitch; }
+    public void setYaw(double yaw) { this.yaw = yaw; viewChanged(); }
+    public void setPitch(double pitch) { this.pitch = pitch; viewChanged(); }
 
     public double getYaw() { return yaw; }
     public double getPitch() { return pitch; }
 
     // ----------------------------
-    // Matriz de visualização para render
+    // Projeção
+
+    /**
+     * Projeção em perspectiva ({@link Matrix4#perspective}); {@code fovY} em radianos.
+     */
+    public void setPerspective(double fovY, double aspect, double near, double far) {
+        Matrix4.perspective(fovY, aspect, near, far); // valida antes de alterar o estado
+        this.fovY = fovY;
+        this.aspect = aspect;
+        this.near = near;
+        this.far = far;
+        this.customProjection = null;
+        projectionChanged();
+    }
+
+    /**
+     * Só a proporção da perspectiva (ex.: largura / altura depois de redimensionar a janela).
+     * Sem efeito com uma projeção de {@link #setProjection}.
+     */
+    public void setAspect(double aspect) {
+        if (!(aspect > 0)) throw new IllegalArgumentException("aspect precisa ser > 0.");
+        if (aspect == this.aspect) return;
+        this.aspect = aspect;
+        if (customProjection == null) projectionChanged();
+    }
+
+    /**
+     * Projeção fixa, por exemplo {@link Matrix4#orthographic}; null volta para a perspectiva.
+     */
+    public void setProjection(Matrix4 projection) {
+        this.customProjection = projection;
+        projectionChanged();
+    }
+
+    public double getFovY() { return fovY; }
+    public double getAspect() { return aspect; }
+    public double getNear() { return near; }
+    public double getFar() { return far; }
+
+    // ----------------------------
+    // Matrizes para render
+
     public Matrix4 getViewMatrix() {
-        // rotaciona primeiro, depois aplica translação inversa
-        Matrix4 rotation = Matrix4.rotationY(-yaw).multiply(Matrix4.rotationX(-pitch));
-        Matrix4 translation = Matrix4.translation(-position.x, -position.y, -position.z);
-        return rotation.multiply(translation);
+        if (view == null) {
+            // rotaciona primeiro, depois aplica translação inversa
+            Matrix4 rotation = Matrix4.rotationY(-yaw).multiply(Matrix4.rotationX(-pitch));
+            Matrix4 translation = Matrix4.translation(-position.x, -position.y, -position.z);
+            view = rotation.multiply(translation);
+        }
+        return view;
+    }
+
+    public Matrix4 getProjectionMatrix() {
+        if (projection == null) {
+            projection = customProjection != null ? customProjection : Matrix4.perspective(fovY, aspect, near, far);
+        }
+        return projection;
+    }
+
+    /**
+     * Projeção * visualização: leva coordenadas de mundo para coordenadas de clip.
+     */
+    public Matrix4 getViewProjectionMatrix() {
+        if (viewProjection == null) viewProjection = getProjectionMatrix().multiply(getViewMatrix());
+        return viewProjection;
+    }
+
+    // ----------------------------
+    // Picking
+
+    /**
+     * Raio de mundo que passa pelo pixel (x, y) de um alvo {@code width x height} renderizado com
+     * esta câmera (mesma convenção de tela do {@link Renderer3D}, ex.: coordenadas do mouse).
+     * Sai do plano near, com direção unitária, então t é a distância a partir dele. Funciona com
+     * perspectiva e com projeções de {@link #setProjection}.
+     */
+    public Ray getRay(double x, double y, int width, int height) {
+        if (width <= 0 || height <= 0) throw new IllegalArgumentException("width e height precisam ser > 0.");
+        if (inverseViewProjection == null) inverseViewProjection = getViewProjectionMatrix().inverse();
+        Matrix4 inv = inverseViewProjection;
+        double nx = 2 * x / width - 1, ny = 1 - 2 * y / height;
+        // Pontos do pixel nos planos near (z = -w) e far (z = w) de clip, de volta para o mundo
+        double[] near = unproject(inv, nx, ny, -1), far = unproject(inv, nx, ny, 1);
+        double dx = far[0] - near[0], dy = far[1] - near[1], dz = far[2] - near[2];
+        double len = Math.sqrt(dx * dx + dy * dy + dz * dz);
+        return new Ray(near[0], near[1], near[2], dx / len, dy / len, dz / len);
+    }
+
+    private static double[] unproject(Matrix4 inv, double x, double y, double z) {
+        double[] r = new double[3];
+        double w = inv.get(3, 0) * x + inv.get(3, 1) * y + inv.get(3, 2) * z + inv.get(3, 3);
+        for (int i = 0; i < 3; i++) r[i] = (inv.get(i, 0) * x + inv.get(i, 1) * y + inv.get(i, 2) * z + inv.get(i, 3)) / w;
+        return r;
+    }
+
+    private void viewChanged() {
+        view = null;
+        viewProjection = null;
+        inverseViewProjection = null;
+    }
+
+    private void projectionChanged() {
+        projection = null;
+        viewProjection = null;
+        inverseViewProjection = null;
     }
 }
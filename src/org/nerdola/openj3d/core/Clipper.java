@@ -0,0 +1,95 @@
+package org.nerdola.openj3d.core;
+
+/**
+ * Recorte de triângulos em coordenadas de clip homogêneas (x, y, z, w) contra o frustum
+ * -w &lt;= x, y, z &lt;= w (Sutherland-Hodgman), interpolando as UVs junto.
+ * <p>
+ * Cada vértice ocupa {@link #STRIDE} doubles: x, y, z, w, u, v. Os buffers são
+ * reaproveitados; uma instância não é thread-safe.
+ */
+final class Clipper {
+
+    static final int STRIDE = 6;
+    // Um triângulo recortado por 6 planos tem no máximo 3 + 6 vértices
+    static final int MAX_VERTICES = 9;
+
+    static final int LEFT = 1, RIGHT = 2, BOTTOM = 4, TOP = 8, NEAR = 16, FAR = 32;
+
+    private double[] a = new double[MAX_VERTICES * STRIDE];
+    private double[] b = new double[MAX_VERTICES * STRIDE];
+
+    /**
+     * Bits dos planos do frustum dos quais o ponto está do lado de fora (0 = dentro).
+     */
+    static int outcode(double x, double y, double z, double w) {
+        int code = 0;
+        if (w + x < 0) code |= LEFT;
+        if (w - x < 0) code |= RIGHT;
+        if (w + y < 0) code |= BOTTOM;
+        if (w - y < 0) code |= TOP;
+        if (w + z < 0) code |= NEAR;
+        if (w - z < 0) code |= FAR;
+        return code;
+    }
+
+    /**
+     * Recorta o triângulo {@code tri} (3 vértices de {@link #STRIDE} doubles) contra os planos
+     * em {@code planes} e retorna o número de vértices do polígono resultante (0 se sumiu).
+     * O polígono fica em {@link #result()} e é convexo, pronto para triangular em leque.
+     */
+    int clip(double[] tri, int planes) {
+        System.arraycopy(tri, 0, a, 0, 3 * STRIDE);
+        int n = 3;
+        for (int plane = LEFT; plane <= FAR && n > 0; plane <<= 1) {
+            if ((planes & plane) == 0) continue;
+            n = clipPlane(a, n, b, plane);
+            double[] t = a; a = b; b = t;
+        }
+        return n;
+    }
+
+    /**
+     * Vértices do último polígono recortado.
+     */
+    double[] result() { return a; }
+
+    private static int clipPlane(double[] in, int n, double[] out, int plane) {
+        int count = 0;
+        int prev = (n - 1) * STRIDE;
+        double dPrev = distance(in, prev, plane);
+        for (int i = 0; i < n; i++) {
+            int cur = i * STRIDE;
+            double dCur = distance(in, cur, plane);
+            if (dCur >= 0) {
+                if (dPrev < 0) count = intersect(in, prev, cur, dPrev, dCur, out, count);
+                System.arraycopy(in, cur, out, count * STRIDE, STRIDE);
+                count++;
+            } else if (dPrev >= 0) {
+                count = intersect(in, prev, cur, dPrev, dCur, out, count);
+            }
+            prev = cur;
+            dPrev = dCur;
+        }
+        return count;
+    }
+
+    private static int intersect(double[] in, int p, int q, double dp, double dq, double[] out, int count) {
+        double t = dp / (dp - dq);
+        int o = count * STRIDE;
+        for (int k = 0; k < STRIDE; k++) out[o + k] = in[p + k] + (in[q + k] - in[p + k]) * t;
+        return count + 1;
+    }
+
+    // Distância assinada (não normalizada) do vértice ao plano; >= 0 é dentro
+    private static double distance(double[] v, int o, int plane) {
+        double w = v[o + 3];
+        switch (plane) {
+            case LEFT: return w + v[o];
+            case RIGHT: return w - v[o];
+            case BOTTOM: return w + v[o + 1];
+            case TOP: return w - v[o + 1];
+            case NEAR: return w + v[o + 2];
+            default: return w - v[o + 2];
+        }
+    }
+}
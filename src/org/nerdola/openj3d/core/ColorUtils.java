@@ -13,4 +13,15 @@ public class ColorUtils {
         int b = (int) (color.getBlue() * shade);
         return new Color(r, g, b);
     }
+
+    /**
+     * Igual a {@link #shade(Color, double)}, mas retorna o ARGB opaco sem alocar um Color.
+     */
+    public static int shadeRGB(Color color, double shade) {
+        shade = Math.max(0, Math.min(1, shade));
+        int r = (int) (color.getRed() * shade);
+        int g = (int) (color.getGreen() * shade);
+        int b = (int) (color.getBlue() * shade);
+        return 0xFF000000 | (r << 16) | (g << 8) | b;
+    }
 }
@@ -0,0 +1,184 @@
+package org.nerdola.openj3d.core;
+
+import java.util.Arrays;
+
+/**
+ * Z-buffer com formato selecionável. Maior profundidade = mais perto da câmera.
+ * <p>
+ * {@link Format#FLOAT32} guarda a profundidade em um float[] (metade de um double[]).
+ * Os formatos de ponto fixo quantizam a profundidade dentro de [min, max] (ver
+ * {@link #setRange(double, double)}) em 16 bits (char[], 1/4 de um double[]) ou 24 bits
+ * (int[]). Valores fora do intervalo são saturados; o valor 0 é reservado para "vazio".
+ */
+public final class DepthBuffer {
+
+    public enum Format {
+        FLOAT32(4), FIXED16(2), FIXED24(4);
+
+        public final int bytesPerPixel;
+
+        Format(int bytesPerPixel) { this.bytesPerPixel = bytesPerPixel; }
+    }
+
+    private static final int MAX16 = 0xFFFF;
+    private static final int MAX24 = 0xFFFFFF;
+
+    private final Format format;
+    private final int size;
+    private final float[] f32;
+    private final char[] u16;
+    private final int[] u24;
+
+    // Mapeamento linear profundidade -> inteiro, usado pelos formatos de ponto fixo
+    private double min = -1, max = 1;
+    private double scale;
+    private int clears;
+
+    public DepthBuffer(int size, Format format) {
+        this.size = size;
+        this.format = format;
+        this.f32 = format == Format.FLOAT32 ? new float[size] : null;
+        this.u16 = format == Format.FIXED16 ? new char[size] : null;
+        this.u24 = format == Format.FIXED24 ? new int[size] : null;
+        setRange(min, max);
+        clear();
+    }
+
+    public Format getFormat() { return format; }
+    public int size() { return size; }
+    public long sizeInBytes() { return (long) size * format.bytesPerPixel; }
+
+    /**
+     * Array FLOAT32 usado pelos núcleos vetoriais (null nos outros formatos).
+     */
+    float[] floatArray() { return f32; }
+
+    public double getRangeMin() { return min; }
+    public double getRangeMax() { return max; }
+
+    /**
+     * Intervalo de profundidade representado pelos formatos de ponto fixo (padrão [-1, 1]).
+     * Não tem efeito sobre FLOAT32.
+     */
+    public void setRange(double min, double max) {
+        if (!(max > min)) throw new IllegalArgumentException("Intervalo de profundidade inválido: " + min + ".." + max);
+        this.min = min;
+        this.max = max;
+        int levels = format == Format.FIXED16 ? MAX16 - 1 : MAX24 - 1;
+        this.scale = levels / (max - min);
+        clears++; // os valores guardados mudam de significado
+    }
+
+    public void clear() {
+        clears++;
+        switch (format) {
+            case FLOAT32: Arrays.fill(f32, Float.NEGATIVE_INFINITY); break;
+            case FIXED16: Arrays.fill(u16, (char) 0); break;
+            case FIXED24: Arrays.fill(u24, 0); break;
+        }
+    }
+
+    /**
+     * Se a profundidade passa no teste (mais perto que a armazenada), grava e retorna true.
+     */
+    public boolean testAndSet(int index, double depth) {
+        switch (format) {
+            case FLOAT32: {
+                float d = (float) depth;
+                if (f32[index] < d) { f32[index] = d; return true; }
+                return false;
+            }
+            case FIXED16: {
+                char q = (char) quantize(depth, MAX16);
+                if (u16[index] < q) { u16[index] = q; return true; }
+                return false;
+            }
+            default: {
+                int q = quantize(depth, MAX24);
+                if (u24[index] < q) { u24[index] = q; return true; }
+                return false;
+            }
+        }
+    }
+
+    /**
+     * True se a profundidade, no formato do buffer, é igual à armazenada (não grava). Usado na
+     * passada de cor depois de um pré-passe só de profundidade.
+     */
+    public boolean testEqual(int index, double depth) {
+        switch (format) {
+            case FLOAT32: return f32[index] == (float) depth;
+            case FIXED16: return u16[index] == quantize(depth, MAX16);
+            default: return u24[index] == quantize(depth, MAX24);
+        }
+    }
+
+    /**
+     * Profundidade armazenada, decodificada (NEGATIVE_INFINITY se vazio).
+     */
+    public double get(int index) {
+        switch (format) {
+            case FLOAT32: return f32[index];
+            case FIXED16: return decode(u16[index]);
+            default: return decode(u24[index]);
+        }
+    }
+
+    /**
+     * Quantas vezes o buffer foi limpo (usado por {@link HierarchicalDepth} para se invalidar).
+     */
+    int clearCount() { return clears; }
+
+    /**
+     * Profundidade mais distante (menor valor, decodificado) em um retângulo de {@code w x h}
+     * pixels começando em {@code start}, com {@code stride} pixels por linha. Para ao encontrar um
+     * pixel mais distante que {@code limit} e devolve NEGATIVE_INFINITY: quem pergunta só quer
+     * saber se o retângulo inteiro está na frente de {@code limit}.
+     */
+    double farthest(int start, int stride, int w, int h, double limit) {
+        switch (format) {
+            case FLOAT32: {
+                float m = Float.POSITIVE_INFINITY;
+                for (int y = 0, row = start; y < h; y++, row += stride)
+                    for (int i = row, end = row + w; i < end; i++) {
+                        float d = f32[i];
+                        if (d < limit) return Double.NEGATIVE_INFINITY;
+                        m = Math.min(m, d);
+                    }
+                return m;
+            }
+            case FIXED16: {
+                int q = quantize(limit, MAX16) - 1, m = MAX16;
+                for (int y = 0, row = start; y < h; y++, row += stride)
+                    for (int i = row, end = row + w; i < end; i++) {
+                        int d = u16[i];
+                        if (d < q) return Double.NEGATIVE_INFINITY;
+                        m = Math.min(m, d);
+                    }
+                return decode(m);
+            }
+            default: {
+                int q = quantize(limit, MAX24) - 1, m = MAX24;
+                for (int y = 0, row = start; y < h; y++, row += stride)
+                    for (int i = row, end = row + w; i < end; i++) {
+                        int d = u24[i];
+                        if (d < q) return Double.NEGATIVE_INFINITY;
+                        m = Math.min(m, d);
+                    }
+                return decode(m);
+            }
+        }
+    }
+
+    private int quantize(double depth, int maxQ) {
+        double q = (depth - min) * scale;
+        if (!(q > 0)) return 1; // inclui NaN
+        if (q >= maxQ - 1) return maxQ;
+        return (int) q + 1;
+    }
+
+    private double decode(int q) {
+        if (q == 0) return Double.NEGATIVE_INFINITY;
+        return min + (q - 1) / scale;
+    }
+}
@@ -0,0 +1,43 @@
+package org.nerdola.openj3d.core;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+
+/**
+ * Buffer de cor ARGB escrito diretamente no array do {@link DataBufferInt}
+ * de uma imagem TYPE_INT_ARGB, sem passar por ColorModel/Raster a cada pixel.
+ * A {@link BufferedImage} é apenas uma visão do mesmo array.
+ */
+public class FrameBuffer {
+
+    private final int width, height;
+    private final BufferedImage image;
+    private final int[] pixels; // row-major, índice = y * width + x
+
+    public FrameBuffer(int width, int height) {
+        if (width < 1 || height < 1) throw new IllegalArgumentException("FrameBuffer precisa de dimensões positivas.");
+        this.width = width;
+        this.height = height;
+        this.image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        this.pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    }
+
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+
+    /**
+     * Array de pixels ARGB compartilhado com a imagem.
+     */
+    public int[] getPixels() { return pixels; }
+
+    public void setRGB(int x, int y, int argb) { pixels[y * width + x] = argb; }
+    public int getRGB(int x, int y) { return pixels[y * width + x]; }
+
+    public void clear(int argb) { Arrays.fill(pixels, argb); }
+
+    /**
+     * Visão da imagem (sem cópia) para desenhar com Graphics2D.
+     */
+    public BufferedImage toImage() { return image; }
+}
@@ -0,0 +1,107 @@
+package org.nerdola.openj3d.core;
+
+import java.util.Arrays;
+
+/**
+ * Nível grosso do z-buffer: para cada bloco de 8x8 pixels da tela, a profundidade mais
+ * distante armazenada nele (o menor valor, já que maior = mais perto).
+ * <p>
+ * Um triângulo cuja profundidade mais próxima não passa desse valor não pode ganhar o teste de
+ * profundidade em nenhum pixel do bloco, e o rasterizador pula o bloco (ou o triângulo inteiro)
+ * sem avaliar pixels. Dentro de um frame a profundidade de cada pixel só aumenta, então um valor
+ * calculado antes de novas escritas continua sendo um limite inferior válido: o bloco só é marcado
+ * como "sujo" depois de uma escrita e recalculado na próxima consulta que ainda dependa dele.
+ * O recálculo para no primeiro pixel mais distante que o triângulo consultado, então numa cena
+ * desenhada de trás para frente (nada a rejeitar) ele custa poucas leituras por bloco. Por isso
+ * tiles do modo paralelo que compartilham um bloco não precisam de sincronização; no pior caso
+ * perdem uma rejeição.
+ * <p>
+ * {@link DepthBuffer#clear()} volta os blocos para "vazio" (detectado na próxima
+ * {@link #sync()}); escritas feitas direto no {@link DepthBuffer} fora do rasterizador não
+ * invalidam nada, o que também é conservador.
+ */
+final class HierarchicalDepth {
+
+    static final int BLOCK = Rasterizer.BLOCK;
+    private static final int SHIFT = 3;
+
+    private final DepthBuffer depth;
+    private final int width, height, blocksX;
+    private final float[] far; // float: escrita atômica entre threads
+    private final boolean[] dirty;
+    private int clears = -1;
+    private boolean empty = true;
+
+    HierarchicalDepth(DepthBuffer depth, int width, int height) {
+        this.depth = depth;
+        this.width = width;
+        this.height = height;
+        this.blocksX = (width + BLOCK - 1) >> SHIFT;
+        int blocks = blocksX * ((height + BLOCK - 1) >> SHIFT);
+        this.far = new float[blocks];
+        this.dirty = new boolean[blocks];
+    }
+
+    /**
+     * Descarta os blocos se o z-buffer foi limpo desde a última chamada (início de cada frame).
+     */
+    void sync() {
+        int c = depth.clearCount();
+        if (c == clears) return;
+        clears = c;
+        Arrays.fill(far, Float.NEGATIVE_INFINITY);
+        Arrays.fill(dirty, false);
+        empty = true;
+    }
+
+    /**
+     * True se nada foi escrito desde a última limpeza: nenhuma consulta pode dar oclusão.
+     */
+    boolean isEmpty() {
+        return empty;
+    }
+
+    /**
+     * True se nenhum pixel do retângulo (em coordenadas de tela) aceitaria uma profundidade
+     * {@code nearest}: todos os blocos que ele toca já guardam algo mais perto ou igual.
+     */
+    boolean occluded(int minX, int minY, int maxX, int maxY, double nearest) {
+        int bx0 = minX >> SHIFT, bx1 = maxX >> SHIFT;
+        for (int by = minY >> SHIFT, by1 = maxY >> SHIFT; by <= by1; by++) {
+            for (int bx = bx0, b = by * blocksX + bx0; bx <= bx1; bx++, b++) {
+                if (nearest <= far[b]) continue;
+                if (!dirty[b] || !refresh(b, bx, by, nearest)) return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Marca os blocos do retângulo para recálculo (houve escrita no z-buffer).
+     */
+    void written(int minX, int minY, int maxX, int maxY) {
+        empty = false;
+        int bx0 = minX >> SHIFT, bx1 = maxX >> SHIFT;
+        for (int by = minY >> SHIFT, by1 = maxY >> SHIFT; by <= by1; by++) {
+            for (int b = by * blocksX + bx0, end = b + bx1 - bx0; b <= end; b++) dirty[b] = true;
+        }
+    }
+
+    /**
+     * Recalcula o bloco b; true se agora ele esconde {@code nearest}. Se algum pixel for mais
+     * distante a leitura para ali e o bloco continua sujo, com o valor antigo (ainda válido).
+     */
+    private boolean refresh(int b, int bx, int by, double nearest) {
+        int x0 = bx << SHIFT, y0 = by << SHIFT;
+        int w = Math.min(BLOCK, width - x0), h = Math.min(BLOCK, height - y0);
+        dirty[b] = false;
+        double d = depth.farthest(y0 * width + x0, width, w, h, nearest);
+        if (d == Double.NEGATIVE_INFINITY) {
+            dirty[b] = true;
+            return false;
+        }
+        float f = (float) d;
+        far[b] = f > d ? Math.nextDown(f) : f; // arredonda para baixo (mais distante)
+        return nearest <= far[b];
+    }
+}
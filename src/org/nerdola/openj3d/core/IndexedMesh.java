@@ -0,0 +1,203 @@
+package org.nerdola.openj3d.core;
+
+import org.nerdola.openj3d.io.Material;
+import org.nerdola.openj3d.io.TexturedTriangle;
+import org.nerdola.openj3d.io.UV;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mesh indexada em estrutura de arrays: posições, UVs e normais (opcionais) empacotadas em float[],
+ * triângulos como índices em int[] e faixas de índices por material (submeshes).
+ * Vértices compartilhados entre triângulos são armazenados uma única vez.
+ */
+public class IndexedMesh {
+
+    /**
+     * Faixa contígua de índices desenhada com o mesmo material (ou cor sólida).
+     */
+    public static final class Submesh {
+        public final Material material; // null = triângulos sem textura, cor em 'color'
+        public final Color color;
+        public final int firstIndex, indexCount;
+
+        public Submesh(Material material, int firstIndex, int indexCount) {
+            this(material, material != null ? material.diffuseColor : Color.WHITE, firstIndex, indexCount);
+        }
+
+        public Submesh(Material material, Color color, int firstIndex, int indexCount) {
+            this.material = material;
+            this.color = color;
+            this.firstIndex = firstIndex;
+            this.indexCount = indexCount;
+        }
+
+        public int getTriangleCount() { return indexCount / 3; }
+    }
+
+    private final float[] positions; // x,y,z por vértice
+    private final float[] uvs;       // u,v por vértice (null se não houver)
+    private final float[] normals;   // nx,ny,nz por vértice (null se não houver)
+    private final int[] indices;     // 3 por triângulo
+    private final List<Submesh> submeshes;
+
+    public IndexedMesh(float[] positions, float[] uvs, int[] indices, List<Submesh> submeshes) {
+        this(positions, uvs, null, indices, submeshes);
+    }
+
+    public IndexedMesh(float[] positions, float[] uvs, float[] normals, int[] indices, List<Submesh> submeshes) {
+        if (positions.length % 3 != 0) throw new IllegalArgumentException("positions precisa ter 3 floats por vértice.");
+        if (indices.length % 3 != 0) throw new IllegalArgumentException("indices precisa ter 3 índices por triângulo.");
+        if (uvs != null && uvs.length != positions.length / 3 * 2)
+            throw new IllegalArgumentException("uvs precisa ter 2 floats por vértice.");
+        if (normals != null && normals.length != positions.length)
+            throw new IllegalArgumentException("normals precisa ter 3 floats por vértice.");
+        this.positions = positions;
+        this.uvs = uvs;
+        this.normals = normals;
+        this.indices = indices;
+        this.submeshes = Collections.unmodifiableList(new ArrayList<>(submeshes));
+    }
+
+    public float[] getPositions() { return positions; }
+    public float[] getUVs() { return uvs; }
+    public boolean hasUVs() { return uvs != null; }
+    public float[] getNormals() { return normals; }
+    public boolean hasNormals() { return normals != null; }
+    public int[] getIndices() { return indices; }
+    public List<Submesh> getSubmeshes() { return submeshes; }
+
+    public int getVertexCount() { return positions.length / 3; }
+    public int getTriangleCount() { return indices.length / 3; }
+
+    // ----------------------------
+    // Conversão de/para Mesh
+
+    /**
+     * Converte uma {@link Mesh}. Vértices (e pares vértice+UV) compartilhados por identidade
+     * viram um único vértice indexado. A ordem dos triângulos é preservada: cada sequência
+     * consecutiva de triângulos com o mesmo material/cor vira um submesh.
+     */
+    public static IndexedMesh fromMesh(Mesh mesh) {
+        List<Triangle> tris = mesh.getTriangles();
+        boolean anyUV = false;
+        for (Triangle t : tris) {
+            if (t instanceof TexturedTriangle) { anyUV = true; break; }
+        }
+
+        Map<CornerKey, Integer> remap = new HashMap<>();
+        FloatList pos = new FloatList(tris.size() * 3);
+        FloatList uv = anyUV ? new FloatList(tris.size() * 2) : null;
+        int[] indices = new int[tris.size() * 3];
+        List<Submesh> submeshes = new ArrayList<>();
+
+        int runStart = 0;
+        Material runMat = null;
+        Color runColor = null;
+        for (int i = 0; i < tris.size(); i++) {
+            Triangle t = tris.get(i);
+            TexturedTriangle tt = t instanceof TexturedTriangle ? (TexturedTriangle) t : null;
+            Material mat = tt != null ? tt.material : null;
+            if (i > 0 && (mat != runMat || (mat == null && !t.color.equals(runColor)))) {
+                submeshes.add(new Submesh(runMat, runColor, runStart * 3, (i - runStart) * 3));
+                runStart = i;
+            }
+            runMat = mat;
+            runColor = t.color;
+
+            indices[i * 3] = corner(t.v1, tt != null ? tt.uv1 : null, remap, pos, uv);
+            indices[i * 3 + 1] = corner(t.v2, tt != null ? tt.uv2 : null, remap, pos, uv);
+            indices[i * 3 + 2] = corner(t.v3, tt != null ? tt.uv3 : null, remap, pos, uv);
+        }
+        if (!tris.isEmpty()) submeshes.add(new Submesh(runMat, runColor, runStart * 3, (tris.size() - runStart) * 3));
+
+        return new IndexedMesh(pos.toArray(), uv != null ? uv.toArray() : null, indices, submeshes);
+    }
+
+    private static int corner(Vertex v, UV t, Map<CornerKey, Integer> remap, FloatList pos, FloatList uv) {
+        CornerKey key = new CornerKey(v, t);
+        Integer idx = remap.get(key);
+        if (idx != null) return idx;
+        int i = pos.size() / 3;
+        pos.add((float) v.x); pos.add((float) v.y); pos.add((float) v.z);
+        if (uv != null) {
+            uv.add(t != null ? (float) t.u : 0f);
+            uv.add(t != null ? (float) t.v : 0f);
+        }
+        remap.put(key, i);
+        return i;
+    }
+
+    /**
+     * Converte de volta para {@link Mesh}, compartilhando os objetos Vertex/UV entre triângulos.
+     */
+    public Mesh toMesh() {
+        int vc = getVertexCount();
+        Vertex[] verts = new Vertex[vc];
+        for (int i = 0; i < vc; i++) verts[i] = new Vertex(positions[i * 3], positions[i * 3 + 1], positions[i * 3 + 2]);
+        UV[] uvObjs = null;
+        if (uvs != null) {
+            uvObjs = new UV[vc];
+            for (int i = 0; i < vc; i++) uvObjs[i] = new UV(uvs[i * 2], uvs[i * 2 + 1]);
+        }
+
+        List<Triangle> tris = new ArrayList<>(getTriangleCount());
+        UV zero = new UV(0, 0);
+        for (Submesh s : submeshes) {
+            for (int i = s.firstIndex; i < s.firstIndex + s.indexCount; i += 3) {
+                int a = indices[i], b = indices[i + 1], c = indices[i + 2];
+                if (s.material != null) {
+                    tris.add(new TexturedTriangle(verts[a], verts[b], verts[c],
+                            uvObjs != null ? uvObjs[a] : zero,
+                            uvObjs != null ? uvObjs[b] : zero,
+                            uvObjs != null ? uvObjs[c] : zero,
+                            s.material));
+                } else {
+                    tris.add(new Triangle(verts[a], verts[b], verts[c], s.color));
+                }
+            }
+        }
+        return new Mesh(tris);
+    }
+
+    // Chave por identidade do par (Vertex, UV)
+    private static final class CornerKey {
+        final Vertex v;
+        final UV uv;
+
+        CornerKey(Vertex v, UV uv) { this.v = v; this.uv = uv; }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof CornerKey && ((CornerKey) o).v == v && ((CornerKey) o).uv == uv;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(v) * 31 + System.identityHashCode(uv);
+        }
+    }
+
+    // Lista de floats primitivos que cresce sob demanda
+    private static final class FloatList {
+        private float[] data;
+        private int size;
+
+        FloatList(int capacity) { data = new float[Math.max(16, capacity)]; }
+
+        void add(float f) {
+            if (size == data.length) data = Arrays.copyOf(data, data.length * 2);
+            data[size++] = f;
+        }
+
+        int size() { return size; }
+
+        float[] toArray() { return Arrays.copyOf(data, size); }
+    }
+}
@@ -1,5 +1,7 @@
 package org.nerdola.openj3d.core;
 
+import java.nio.FloatBuffer;
+
 /**
  * Matriz 3x3 para transformações 3D.
  */
@@ -74,4 +76,70 @@ public class Matrix3 {
             v.x * m[2] + v.y * m[5] + v.z * m[8]
         );
     }
-}
\ No newline at end of file
+
+    /**
+     * Transforma {@code count} vértices empacotados (x,y,z) de {@code src} para {@code dst} em um
+     * único laço, sem alocar. {@code stride} é a distância (em elementos) entre vértices consecutivos;
+     * use 3 para arrays compactos. {@code src} e {@code dst} podem ser o mesmo array (modo in-place).
+     */
+    public void transform(double[] src, int srcOffset, int srcStride,
+                          double[] dst, int dstOffset, int dstStride, int count) {
+        double m0 = m[0], m1 = m[1], m2 = m[2];
+        double m3 = m[3], m4 = m[4], m5 = m[5];
+        double m6 = m[6], m7 = m[7], m8 = m[8];
+        for (int i = 0, s = srcOffset, d = dstOffset; i < count; i++, s += srcStride, d += dstStride) {
+            double x = src[s], y = src[s + 1], z = src[s + 2];
+            dst[d]     = x * m0 + y * m3 + z * m6;
+            dst[d + 1] = x * m1 + y * m4 + z * m7;
+            dst[d + 2] = x * m2 + y * m5 + z * m8;
+        }
+    }
+
+    /**
+     * Versão float de {@link #transform(double[], int, int, double[], int, int, int)}.
+     */
+    public void transform(float[] src, int srcOffset, int srcStride,
+                          float[] dst, int dstOffset, int dstStride, int count) {
+        double m0 = m[0], m1 = m[1], m2 = m[2];
+        double m3 = m[3], m4 = m[4], m5 = m[5];
+        double m6 = m[6], m7 = m[7], m8 = m[8];
+        for (int i = 0, s = srcOffset, d = dstOffset; i < count; i++, s += srcStride, d += dstStride) {
+            double x = src[s], y = src[s + 1], z = src[s + 2];
+            dst[d]     = (float) (x * m0 + y * m3 + z * m6);
+            dst[d + 1] = (float) (x * m1 + y * m4 + z * m7);
+            dst[d + 2] = (float) (x * m2 + y * m5 + z * m8);
+        }
+    }
+
+    /**
+     * Versão {@link FloatBuffer} (posições absolutas, a posição dos buffers não é alterada).
+     */
+    public void transform(FloatBuffer src, int srcOffset, int srcStride,
+                          FloatBuffer dst, int dstOffset, int dstStride, int count) {
+        if (src.hasArray() && dst.hasArray()) {
+            transform(src.array(), src.arrayOffset() + srcOffset, srcStride,
+                      dst.array(), dst.arrayOffset() + dstOffset, dstStride, count);
+            return;
+        }
+        double m0 = m[0], m1 = m[1], m2 = m[2];
+        double m3 = m[3], m4 = m[4], m5 = m[5];
+        double m6 = m[6], m7 = m[7], m8 = m[8];
+        for (int i = 0, s = srcOffset, d = dstOffset; i < count; i++, s += srcStride, d += dstStride) {
+            double x = src.get(s), y = src.get(s + 1), z = src.get(s + 2);
+            dst.put(d,     (float) (x * m0 + y * m3 + z * m6));
+            dst.put(d + 1, (float) (x * m1 + y * m4 + z * m7));
+            dst.put(d + 2, (float) (x * m2 + y * m5 + z * m8));
+        }
+    }
+
+    /**
+     * Transforma no próprio array {@code count} vértices compactos (x,y,z) a partir de {@code offset}.
+     */
+    public void transformInPlace(double[] data, int offset, int count) {
+        transform(data, offset, 3, data, offset, 3, count);
+    }
+
+    public void transformInPlace(float[] data, int offset, int count) {
+        transform(data, offset, 3, data, offset, 3, count);
+    }
+}
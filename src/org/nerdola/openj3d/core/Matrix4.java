@@ -1,5 +1,7 @@
 package org.nerdola.openj3d.core;
 
+import java.nio.FloatBuffer;
+
 /**
  * Matriz 4x4 homogênea para transformações 3D.
  */
@@ -12,6 +14,8 @@ public class Matrix4 {
         this.m = values.clone();
     }
 
+    public double get(int row, int col) { return m[row*4 + col]; }
+
     public static Matrix4 identity() {
         return new Matrix4(new double[]{
             1,0,0,0,
@@ -69,16 +73,91 @@ public class Matrix4 {
         });
     }
 
+    /**
+     * Projeção em perspectiva (convenção OpenGL: câmera olhando para -z, y para cima). Leva o
+     * frustum para coordenadas de clip com -w &lt;= x, y, z &lt;= w, como espera
+     * {@link Renderer3D#render(Mesh, Matrix4, RenderTarget)}.
+     *
+     * @param fovY   abertura vertical, em radianos
+     * @param aspect largura / altura da tela
+     * @param near   distância do plano near (&gt; 0)
+     * @param far    distância do plano far (&gt; near)
+     */
+    public static Matrix4 perspective(double fovY, double aspect, double near, double far) {
+        if (!(fovY > 0 && fovY < Math.PI)) throw new IllegalArgumentException("fovY precisa estar em (0, PI).");
+        if (!(aspect > 0)) throw new IllegalArgumentException("aspect precisa ser > 0.");
+        if (!(near > 0 && far > near)) throw new IllegalArgumentException("Precisa 0 < near < far.");
+        double f = 1.0 / Math.tan(fovY / 2);
+        return new Matrix4(new double[]{
+            f/aspect,0,0,0,
+            0,f,0,0,
+            0,0,(far+near)/(near-far),2*far*near/(near-far),
+            0,0,-1,0
+        });
+    }
+
+    /**
+     * Projeção ortográfica do volume [left, right] x [bottom, top] x [-near, -far] (convenção
+     * OpenGL) para coordenadas de clip, com w = 1.
+     */
+    public static Matrix4 orthographic(double left, double right, double bottom, double top, double near, double far) {
+        if (left == right || bottom == top || near == far)
+            throw new IllegalArgumentException("Volume ortográfico vazio.");
+        return new Matrix4(new double[]{
+            2/(right-left),0,0,-(right+left)/(right-left),
+            0,2/(top-bottom),0,-(top+bottom)/(top-bottom),
+            0,0,-2/(far-near),-(far+near)/(far-near),
+            0,0,0,1
+        });
+    }
+
     public Matrix4 multiply(Matrix4 other) {
         double[] r = new double[16];
+        multiply(this, other, r);
+        return new Matrix4(r);
+    }
+
+    /**
+     * {@code a * b} escrito em {@code out} (16 valores, linha a linha), sem alocar.
+     */
+    static void multiply(Matrix4 a, Matrix4 b, double[] out) {
         for (int row = 0; row < 4; row++) {
             for (int col = 0; col < 4; col++) {
+                double sum = 0;
                 for (int i = 0; i < 4; i++) {
-                    r[row*4 + col] += this.m[row*4 + i] * other.m[i*4 + col];
+                    sum += a.m[row*4 + i] * b.m[i*4 + col];
                 }
+                out[row*4 + col] = sum;
             }
         }
-        return new Matrix4(r);
+    }
+
+    /**
+     * Matriz inversa (pelos cofatores). Lança IllegalArgumentException se a matriz for singular.
+     */
+    public Matrix4 inverse() {
+        double[] inv = new double[16];
+        inv[0] = m[5]*m[10]*m[15] - m[5]*m[11]*m[14] - m[9]*m[6]*m[15] + m[9]*m[7]*m[14] + m[13]*m[6]*m[11] - m[13]*m[7]*m[10];
+        inv[4] = -m[4]*m[10]*m[15] + m[4]*m[11]*m[14] + m[8]*m[6]*m[15] - m[8]*m[7]*m[14] - m[12]*m[6]*m[11] + m[12]*m[7]*m[10];
+        inv[8] = m[4]*m[9]*m[15] - m[4]*m[11]*m[13] - m[8]*m[5]*m[15] + m[8]*m[7]*m[13] + m[12]*m[5]*m[11] - m[12]*m[7]*m[9];
+        inv[12] = -m[4]*m[9]*m[14] + m[4]*m[10]*m[13] + m[8]*m[5]*m[14] - m[8]*m[6]*m[13] - m[12]*m[5]*m[10] + m[12]*m[6]*m[9];
+        inv[1] = -m[1]*m[10]*m[15] + m[1]*m[11]*m[14] + m[9]*m[2]*m[15] - m[9]*m[3]*m[14] - m[13]*m[2]*m[11] + m[13]*m[3]*m[10];
+        inv[5] = m[0]*m[10]*m[15] - m[0]*m[11]*m[14] - m[8]*m[2]*m[15] + m[8]*m[3]*m[14] + m[12]*m[2]*m[11] - m[12]*m[3]*m[10];
+        inv[9] = -m[0]*m[9]*m[15] + m[0]*m[11]*m[13] + m[8]*m[1]*m[15] - m[8]*m[3]*m[13] - m[12]*m[1]*m[11] + m[12]*m[3]*m[9];
+        inv[13] = m[0]*m[9]*m[14] - m[0]*m[10]*m[13] - m[8]*m[1]*m[14] + m[8]*m[2]*m[13] + m[12]*m[1]*m[10] - m[12]*m[2]*m[9];
+        inv[2] = m[1]*m[6]*m[15] - m[1]*m[7]*m[14] - m[5]*m[2]*m[15] + m[5]*m[3]*m[14] + m[13]*m[2]*m[7] - m[13]*m[3]*m[6];
+        inv[6] = -m[0]*m[6]*m[15] + m[0]*m[7]*m[14] + m[4]*m[2]*m[15] - m[4]*m[3]*m[14] - m[12]*m[2]*m[7] + m[12]*m[3]*m[6];
+        inv[10] = m[0]*m[5]*m[15] - m[0]*m[7]*m[13] - m[4]*m[1]*m[15] + m[4]*m[3]*m[13] + m[12]*m[1]*m[7] - m[12]*m[3]*m[5];
+        inv[14] = -m[0]*m[5]*m[14] + m[0]*m[6]*m[13] + m[4]*m[1]*m[14] - m[4]*m[2]*m[13] - m[12]*m[1]*m[6] + m[12]*m[2]*m[5];
+        inv[3] = -m[1]*m[6]*m[11] + m[1]*m[7]*m[10] + m[5]*m[2]*m[11] - m[5]*m[3]*m[10] - m[9]*m[2]*m[7] + m[9]*m[3]*m[6];
+        inv[7] = m[0]*m[6]*m[11] - m[0]*m[7]*m[10] - m[4]*m[2]*m[11] + m[4]*m[3]*m[10] + m[8]*m[2]*m[7] - m[8]*m[3]*m[6];
+        inv[11] = -m[0]*m[5]*m[11] + m[0]*m[7]*m[9] + m[4]*m[1]*m[11] - m[4]*m[3]*m[9] - m[8]*m[1]*m[7] + m[8]*m[3]*m[5];
+        inv[15] = m[0]*m[5]*m[10] - m[0]*m[6]*m[9] - m[4]*m[1]*m[10] + m[4]*m[2]*m[9] + m[8]*m[1]*m[6] - m[8]*m[2]*m[5];
+        double det = m[0]*inv[0] + m[1]*inv[4] + m[2]*inv[8] + m[3]*inv[12];
+        if (det == 0 || !Double.isFinite(det)) throw new IllegalArgumentException("Matriz singular, sem inversa.");
+        double invDet = 1.0 / det;
+        for (int i = 0; i < 16; i++) inv[i] *= invDet;
+        return new Matrix4(inv);
     }
 
     public Vertex transform(Vertex v) {
@@ -91,4 +170,108 @@ public class Matrix4 {
         }
         return new Vertex(x, y, z);
     }
+
+    /**
+     * Transforma {@code count} vértices empacotados (x,y,z) de {@code src} para {@code dst} em um
+     * único laço, sem alocar. {@code stride} é a distância (em elementos) entre vértices consecutivos;
+     * use 3 para arrays compactos. {@code src} e {@code dst} podem ser o mesmo array (modo in-place)
+     * desde que as faixas coincidam exatamente.
+     * Aplica a divisão por w do mesmo jeito que {@link #transform(Vertex)}.
+     */
+    public void transform(double[] src, int srcOffset, int srcStride,
+                          double[] dst, int dstOffset, int dstStride, int count) {
+        double m0 = m[0], m1 = m[1], m2 = m[2], m3 = m[3];
+        double m4 = m[4], m5 = m[5], m6 = m[6], m7 = m[7];
+        double m8 = m[8], m9 = m[9], m10 = m[10], m11 = m[11];
+        double m12 = m[12], m13 = m[13], m14 = m[14], m15 = m[15];
+        boolean affine = m12 == 0 && m13 == 0 && m14 == 0 && m15 == 1;
+        for (int i = 0, s = srcOffset, d = dstOffset; i < count; i++, s += srcStride, d += dstStride) {
+            double vx = src[s], vy = src[s + 1], vz = src[s + 2];
+            double x = vx*m0 + vy*m1 + vz*m2 + m3;
+            double y = vx*m4 + vy*m5 + vz*m6 + m7;
+            double z = vx*m8 + vy*m9 + vz*m10 + m11;
+            if (!affine) {
+                double w = vx*m12 + vy*m13 + vz*m14 + m15;
+                if (w != 0 && w != 1) {
+                    x /= w; y /= w; z /= w;
+                }
+            }
+            dst[d] = x; dst[d + 1] = y; dst[d + 2] = z;
+        }
+    }
+
+    /**
+     * Versão float de {@link #transform(double[], int, int, double[], int, int, int)}.
+     * Com arrays compactos (stride 3) usa o backend {@link Simd} quando ativo.
+     */
+    public void transform(float[] src, int srcOffset, int srcStride,
+                          float[] dst, int dstOffset, int dstStride, int count) {
+        VectorKernels simd = Simd.kernels();
+        if (simd != null && srcStride == 3 && dstStride == 3 && count >= simd.vertexLanes()) {
+            boolean affine = m[12] == 0 && m[13] == 0 && m[14] == 0 && m[15] == 1;
+            int done = simd.transform(m, affine, src, srcOffset, dst, dstOffset, count);
+            srcOffset += done * 3;
+            dstOffset += done * 3;
+            count -= done;
+        }
+        double m0 = m[0], m1 = m[1], m2 = m[2], m3 = m[3];
+        double m4 = m[4], m5 = m[5], m6 = m[6], m7 = m[7];
+        double m8 = m[8], m9 = m[9], m10 = m[10], m11 = m[11];
+        double m12 = m[12], m13 = m[13], m14 = m[14], m15 = m[15];
+        boolean affine = m12 == 0 && m13 == 0 && m14 == 0 && m15 == 1;
+        for (int i = 0, s = srcOffset, d = dstOffset; i < count; i++, s += srcStride, d += dstStride) {
+            double vx = src[s], vy = src[s + 1], vz = src[s + 2];
+            double x = vx*m0 + vy*m1 + vz*m2 + m3;
+            double y = vx*m4 + vy*m5 + vz*m6 + m7;
+            double z = vx*m8 + vy*m9 + vz*m10 + m11;
+            if (!affine) {
+                double w = vx*m12 + vy*m13 + vz*m14 + m15;
+                if (w != 0 && w != 1) {
+                    x /= w; y /= w; z /= w;
+                }
+            }
+            dst[d] = (float) x; dst[d + 1] = (float) y; dst[d + 2] = (float) z;
+        }
+    }
+
+    /**
+     * Versão {@link FloatBuffer} (posições absolutas, a posição dos buffers não é alterada).
+     */
+    public void transform(FloatBuffer src, int srcOffset, int srcStride,
+                          FloatBuffer dst, int dstOffset, int dstStride, int count) {
+        if (src.hasArray() && dst.hasArray()) {
+            transform(src.array(), src.arrayOffset() + srcOffset, srcStride,
+                      dst.array(), dst.arrayOffset() + dstOffset, dstStride, count);
+            return;
+        }
+        double m0 = m[0], m1 = m[1], m2 = m[2], m3 = m[3];
+        double m4 = m[4], m5 = m[5], m6 = m[6], m7 = m[7];
+        double m8 = m[8], m9 = m[9], m10 = m[10], m11 = m[11];
+        double m12 = m[12], m13 = m[13], m14 = m[14], m15 = m[15];
+        boolean affine = m12 == 0 && m13 == 0 && m14 == 0 && m15 == 1;
+        for (int i = 0, s = srcOffset, d = dstOffset; i < count; i++, s += srcStride, d += dstStride) {
+            double vx = src.get(s), vy = src.get(s + 1), vz = src.get(s + 2);
+            double x = vx*m0 + vy*m1 + vz*m2 + m3;
+            double y = vx*m4 + vy*m5 + vz*m6 + m7;
+            double z = vx*m8 + vy*m9 + vz*m10 + m11;
+            if (!affine) {
+                double w = vx*m12 + vy*m13 + vz*m14 + m15;
+                if (w != 0 && w != 1) {
+                    x /= w; y /= w; z /= w;
+                }
+            }
+            dst.put(d, (float) x); dst.put(d + 1, (float) y); dst.put(d + 2, (float) z);
+        }
+    }
+
+    /**
+     * Transforma no próprio array {@code count} vértices compactos (x,y,z) a partir de {@code offset}.
+     */
+    public void transformInPlace(double[] data, int offset, int count) {
+        transform(data, offset, 3, data, offset, 3, count);
+    }
+
+    public void transformInPlace(float[] data, int offset, int count) {
+        transform(data, offset, 3, data, offset, 3, count);
+    }
 }
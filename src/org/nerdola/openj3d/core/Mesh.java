@@ -1,9 +1,10 @@
 package org.nerdola.openj3d.core;
 
 import org.nerdola.openj3d.io.TexturedTriangle;
-import org.nerdola.openj3d.io.UV;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
 import java.util.List;
 
 public class Mesh {
@@ -24,51 +25,58 @@ public class Mesh {
     // ----------------------------
     // Transformação usando Matrix3 (existente)
     public Mesh transformed(Matrix3 matrix) {
-        List<Triangle> transformed = new ArrayList<>();
-        for (Triangle t : triangles) {
-            if (t instanceof TexturedTriangle) {
-                TexturedTriangle tt = (TexturedTriangle) t;
-                Vertex tv1 = matrix.transform(tt.v1);
-                Vertex tv2 = matrix.transform(tt.v2);
-                Vertex tv3 = matrix.transform(tt.v3);
-                transformed.add(new TexturedTriangle(
-                        tv1, tv2, tv3,
-                        new UV(tt.uv1.u, tt.uv1.v),
-                        new UV(tt.uv2.u, tt.uv2.v),
-                        new UV(tt.uv3.u, tt.uv3.v),
-                        tt.material
-                ));
-            } else {
-                Vertex v1 = matrix.transform(t.v1);
-                Vertex v2 = matrix.transform(t.v2);
-                Vertex v3 = matrix.transform(t.v3);
-                transformed.add(new Triangle(v1, v2, v3, t.color));
-            }
-        }
-        return new Mesh(transformed);
+        return transformed(matrix, null);
     }
 
     // ----------------------------
     // NOVO: Transformação usando Matrix4
     public Mesh transformed(Matrix4 matrix) {
-        List<Triangle> transformed = new ArrayList<>();
-        for (Triangle t : triangles) {
+        return transformed(null, matrix);
+    }
+
+    /**
+     * Empacota os vértices distintos (por identidade), transforma todos em lote e remonta os
+     * triângulos. Vértices compartilhados são transformados uma única vez e continuam
+     * compartilhados na mesh resultante; UVs e materiais são reaproveitados sem cópia.
+     */
+    private Mesh transformed(Matrix3 m3, Matrix4 m4) {
+        int n = triangles.size();
+        IdentityHashMap<Vertex, Integer> index = new IdentityHashMap<>(n * 2);
+        int[] corners = new int[n * 3];
+        double[] packed = new double[Math.max(9, n * 3)];
+        int unique = 0;
+
+        for (int i = 0; i < n; i++) {
+            Triangle t = triangles.get(i);
+            for (int c = 0; c < 3; c++) {
+                Vertex v = c == 0 ? t.v1 : c == 1 ? t.v2 : t.v3;
+                Integer idx = index.get(v);
+                if (idx == null) {
+                    idx = unique++;
+                    index.put(v, idx);
+                    if (unique * 3 > packed.length) packed = Arrays.copyOf(packed, packed.length * 2);
+                    packed[idx * 3] = v.x;
+                    packed[idx * 3 + 1] = v.y;
+                    packed[idx * 3 + 2] = v.z;
+                }
+                corners[i * 3 + c] = idx;
+            }
+        }
+
+        if (m3 != null) m3.transformInPlace(packed, 0, unique);
+        else m4.transformInPlace(packed, 0, unique);
+
+        Vertex[] out = new Vertex[unique];
+        for (int i = 0; i < unique; i++) out[i] = new Vertex(packed[i * 3], packed[i * 3 + 1], packed[i * 3 + 2]);
+
+        List<Triangle> transformed = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            Triangle t = triangles.get(i);
+            Vertex v1 = out[corners[i * 3]], v2 = out[corners[i * 3 + 1]], v3 = out[corners[i * 3 + 2]];
             if (t instanceof TexturedTriangle) {
                 TexturedTriangle tt = (TexturedTriangle) t;
-                Vertex tv1 = matrix.transform(tt.v1);
-                Vertex tv2 = matrix.transform(tt.v2);
-                Vertex tv3 = matrix.transform(tt.v3);
-                transformed.add(new TexturedTriangle(
-                        tv1, tv2, tv3,
-                        new UV(tt.uv1.u, tt.uv1.v),
-                        new UV(tt.uv2.u, tt.uv2.v),
-                        new UV(tt.uv3.u, tt.uv3.v),
-                        tt.material
-                ));
+                transformed.add(new TexturedTriangle(v1, v2, v3, tt.uv1, tt.uv2, tt.uv3, tt.material));
             } else {
-                Vertex v1 = matrix.transform(t.v1);
-                Vertex v2 = matrix.transform(t.v2);
-                Vertex v3 = matrix.transform(t.v3);
                 transformed.add(new Triangle(v1, v2, v3, t.color));
             }
         }
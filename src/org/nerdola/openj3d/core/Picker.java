@@ -0,0 +1,209 @@
+package org.nerdola.openj3d.core;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Lança raios contra uma {@link Mesh} e devolve a interseção mais próxima: triângulo,
+ * baricêntricos, UV interpolado e material ({@link RayHit}).
+ * <p>
+ * Usa uma {@link Bvh} (a mesma pode ser compartilhada com
+ * {@link Renderer3D#render(Mesh, Bvh, Matrix4, Camera3D, RenderTarget)}) e uma cópia compacta dos
+ * vértices: 9 floats por triângulo na ordem das folhas da árvore, então o teste de cada folha lê
+ * memória contígua em vez de seguir os objetos {@link Triangle}. A interseção é a de
+ * Möller–Trumbore, dos dois lados do triângulo; vértices compartilhados viram o mesmo float, então
+ * um raio na aresta entre dois triângulos não passa pelo meio. Em empates de distância vence o
+ * menor índice na mesh.
+ * <p>
+ * Consultas em lote ({@link #raycast(Ray[])}) são divididas no {@link ForkJoinPool#commonPool()}.
+ * Se os vértices da mesh mudarem, chame {@link #refit}; consultas concorrentes com o refit não são
+ * suportadas.
+ */
+public final class Picker {
+
+    private static final int PARALLEL_RAYS = 64;     // raios por tarefa nas consultas em lote
+    private static final int PACK_GRAIN = 32 * 1024; // triângulos por tarefa ao empacotar
+
+    private final Bvh bvh;
+    private List<Triangle> triangles;
+    private final float[] vertices; // 9 por triângulo (v1, v2, v3), na ordem de bvh.primitives()
+
+    /** Constrói a {@link Bvh} da mesh e o picker sobre ela. */
+    public Picker(Mesh mesh) {
+        this(mesh, Bvh.build(mesh));
+    }
+
+    /** Picker sobre uma árvore já construída para {@code mesh}. */
+    public Picker(Mesh mesh, Bvh bvh) {
+        List<Triangle> tris = mesh.getTriangles();
+        if (bvh.getTriangleCount() != tris.size())
+            throw new IllegalArgumentException("A BVH tem " + bvh.getTriangleCount() + " triângulos; a mesh tem " + tris.size() + ".");
+        this.bvh = bvh;
+        this.triangles = tris;
+        this.vertices = new float[tris.size() * 9];
+        pack();
+    }
+
+    public Bvh getBvh() { return bvh; }
+
+    /** Memória da cópia dos vértices (a árvore é contada em {@link Bvh#sizeInBytes()}). */
+    public long sizeInBytes() { return (long) vertices.length * 4; }
+
+    /**
+     * Atualiza a árvore ({@link Bvh#refit}) e a cópia dos vértices depois que a mesh mudou (mesma
+     * mesh com vértices movidos, ou o resultado de {@link Mesh#transformed}).
+     */
+    public void refit(Mesh mesh) {
+        bvh.refit(mesh);
+        triangles = mesh.getTriangles();
+        pack();
+    }
+
+    /** Interseção mais próxima de {@code ray} (em coordenadas da mesh), ou null. */
+    public RayHit raycast(Ray ray) {
+        return raycast(ray, new int[bvh.stackSize()], new double[3]);
+    }
+
+    /**
+     * Interseção mais próxima de um raio de mundo com a mesh desenhada com a matriz
+     * {@code model}. A distância e o ponto do resultado ficam no espaço do raio, então hits de
+     * meshes com modelos diferentes podem ser comparados.
+     */
+    public RayHit raycast(Ray ray, Matrix4 model) {
+        RayHit hit = raycast(ray.transformed(model.inverse()));
+        return hit == null ? null : new RayHit(hit.getTriangleIndex(), hit.getTriangle(), hit.getDistance(),
+                hit.getBarycentric2(), hit.getBarycentric3(), ray);
+    }
+
+    /**
+     * Lote de raios (em coordenadas da mesh), em paralelo; cada posição do resultado é o hit do
+     * raio correspondente, ou null.
+     */
+    public RayHit[] raycast(Ray[] rays) {
+        RayHit[] hits = new RayHit[rays.length];
+        Bvh.Range body = (from, to) -> {
+            int[] stack = new int[bvh.stackSize()];
+            double[] out = new double[3];
+            for (int i = from; i < to; i++) hits[i] = raycast(rays[i], stack, out);
+        };
+        if (rays.length <= PARALLEL_RAYS) body.run(0, rays.length);
+        else ForkJoinPool.commonPool().invoke(new Bvh.RangeTask(0, rays.length, PARALLEL_RAYS, body));
+        return hits;
+    }
+
+    /** Como {@link #raycast(Ray[])}, com raios de mundo e a matriz de modelo da mesh. */
+    public RayHit[] raycast(Ray[] rays, Matrix4 model) {
+        Matrix4 inv = model.inverse();
+        Ray[] local = new Ray[rays.length];
+        for (int i = 0; i < rays.length; i++) local[i] = rays[i].transformed(inv);
+        RayHit[] hits = raycast(local);
+        for (int i = 0; i < hits.length; i++) {
+            RayHit h = hits[i];
+            if (h != null) hits[i] = new RayHit(h.getTriangleIndex(), h.getTriangle(), h.getDistance(),
+                    h.getBarycentric2(), h.getBarycentric3(), rays[i]);
+        }
+        return hits;
+    }
+
+    // ----------------------------
+    // Percurso
+
+    private RayHit raycast(Ray ray, int[] stack, double[] out) {
+        int pos = intersect(ray.ox, ray.oy, ray.oz, ray.dx, ray.dy, ray.dz, stack, out);
+        if (pos < 0) return null;
+        int index = bvh.primitives()[pos];
+        return new RayHit(index, triangles.get(index), out[0], out[1], out[2], ray);
+    }
+
+    /**
+     * Posição (em primitives) do triângulo mais próximo com t &gt;= 0, ou -1; {@code out} recebe
+     * t e os baricêntricos de v2 e v3.
+     */
+    private int intersect(double ox, double oy, double oz, double dx, double dy, double dz, int[] stack, double[] out) {
+        if (bvh.getTriangleCount() == 0) return -1;
+        float[] b = bvh.bounds();
+        int[] nodes = bvh.nodes(), prims = bvh.primitives();
+        // 1/0 viraria 0 * inf = NaN para origens sobre um plano da caixa; um valor enorme e finito não
+        double ix = 1 / (dx == 0 ? 1e-300 : dx), iy = 1 / (dy == 0 ? 1e-300 : dy), iz = 1 / (dz == 0 ? 1e-300 : dz);
+        double best = Double.MAX_VALUE; // finito: caixas não atingidas (+inf) já ficam de fora
+        int bestPos = -1, bestIndex = Integer.MAX_VALUE;
+        int sp = 0;
+        stack[sp++] = 0;
+        while (sp > 0) {
+            int node = stack[--sp];
+            if (enter(b, node * 6, ox, oy, oz, ix, iy, iz, best) > best) continue;
+            int child = nodes[node * 3];
+            if (child >= 0) {
+                // Filho mais próximo por cima da pilha
+                double tl = enter(b, child * 6, ox, oy, oz, ix, iy, iz, best);
+                double tr = enter(b, (child + 1) * 6, ox, oy, oz, ix, iy, iz, best);
+                if (tl <= tr) {
+                    if (tr <= best) stack[sp++] = child + 1;
+                    if (tl <= best) stack[sp++] = child;
+                } else {
+                    if (tl <= best) stack[sp++] = child;
+                    if (tr <= best) stack[sp++] = child + 1;
+                }
+                continue;
+            }
+            float[] v = vertices;
+            for (int i = nodes[node * 3 + 1], end = i + nodes[node * 3 + 2]; i < end; i++) {
+                int o = i * 9;
+                double x0 = v[o], y0 = v[o + 1], z0 = v[o + 2];
+                double e1x = v[o + 3] - x0, e1y = v[o + 4] - y0, e1z = v[o + 5] - z0;
+                double e2x = v[o + 6] - x0, e2y = v[o + 7] - y0, e2z = v[o + 8] - z0;
+                double px = dy * e2z - dz * e2y, py = dz * e2x - dx * e2z, pz = dx * e2y - dy * e2x;
+                double det = e1x * px + e1y * py + e1z * pz;
+                if (det == 0) continue; // raio paralelo ao plano (ou triângulo degenerado)
+                double inv = 1 / det;
+                double sx = ox - x0, sy = oy - y0, sz = oz - z0;
+                double u = (sx * px + sy * py + sz * pz) * inv;
+                if (u < 0 || u > 1) continue;
+                double qx = sy * e1z - sz * e1y, qy = sz * e1x - sx * e1z, qz = sx * e1y - sy * e1x;
+                double w = (dx * qx + dy * qy + dz * qz) * inv;
+                if (w < 0 || u + w > 1) continue;
+                double t = (e2x * qx + e2y * qy + e2z * qz) * inv;
+                if (t < 0 || t > best || (t == best && prims[i] > bestIndex)) continue;
+                best = t;
+                bestPos = i;
+                bestIndex = prims[i];
+                out[0] = t;
+                out[1] = u;
+                out[2] = w;
+            }
+        }
+        return bestPos;
+    }
+
+    // t de entrada na caixa (0 se a origem está dentro), ou +inf se o raio não a atinge antes de tMax
+    private static double enter(float[] b, int o, double ox, double oy, double oz, double ix, double iy, double iz, double tMax) {
+        double tx0 = (b[o] - ox) * ix, tx1 = (b[o + 3] - ox) * ix;
+        double ty0 = (b[o + 1] - oy) * iy, ty1 = (b[o + 4] - oy) * iy;
+        double tz0 = (b[o + 2] - oz) * iz, tz1 = (b[o + 5] - oz) * iz;
+        double near = Math.max(Math.max(Math.min(tx0, tx1), Math.min(ty0, ty1)), Math.max(Math.min(tz0, tz1), 0));
+        double far = Math.min(Math.min(Math.max(tx0, tx1), Math.max(ty0, ty1)), Math.min(Math.max(tz0, tz1), tMax));
+        return near <= far ? near : Double.POSITIVE_INFINITY;
+    }
+
+    // ----------------------------
+    // Vértices
+
+    private void pack() {
+        int n = triangles.size();
+        if (n > PACK_GRAIN) ForkJoinPool.commonPool().invoke(new Bvh.RangeTask(0, n, PACK_GRAIN, this::pack));
+        else pack(0, n);
+    }
+
+    private void pack(int from, int to) {
+        List<Triangle> tris = triangles;
+        int[] prims = bvh.primitives();
+        float[] v = vertices;
+        for (int i = from; i < to; i++) {
+            Triangle t = tris.get(prims[i]);
+            int o = i * 9;
+            v[o] = (float) t.v1.x; v[o + 1] = (float) t.v1.y; v[o + 2] = (float) t.v1.z;
+            v[o + 3] = (float) t.v2.x; v[o + 4] = (float) t.v2.y; v[o + 5] = (float) t.v2.z;
+            v[o + 6] = (float) t.v3.x; v[o + 7] = (float) t.v3.y; v[o + 8] = (float) t.v3.z;
+        }
+    }
+}
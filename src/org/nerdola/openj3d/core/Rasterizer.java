@@ -0,0 +1,423 @@
+package org.nerdola.openj3d.core;
+
+import org.nerdola.openj3d.io.Texture;
+
+/**
+ * Rasterizador de triângulos por funções de aresta incrementais (half-space).
+ * <p>
+ * As três funções de aresta (já multiplicadas por 1/área, ou seja, os baricentros)
+ * são avaliadas uma vez por linha e depois avançam por deltas constantes a cada pixel.
+ * A caixa envolvente é percorrida em blocos de 8x8: blocos totalmente fora de alguma
+ * aresta são descartados sem visitar pixels, e blocos totalmente dentro pulam o teste
+ * de cobertura por pixel.
+ * <p>
+ * Com o núcleo vetorial de {@link Simd} ligado e z-buffer FLOAT32, cada bloco 8x8 é avaliado
+ * (cobertura + profundidade) de uma vez, e só os pixels da máscara devolvida recebem cor.
+ * <p>
+ * Texturas são amostradas pelo filtro de {@link #configure}; com mipmaps o nível é escolhido
+ * uma vez por triângulo (log2 da razão entre texels e pixels cobertos). Triângulos vindos de
+ * uma projeção em perspectiva interpolam u/w, v/w e 1/w (lineares na tela) de forma
+ * incremental e dividem por pixel; os demais interpolam UV direto.
+ * <p>
+ * Com um {@link HierarchicalDepth} ({@link #setHierarchicalDepth}), o triângulo inteiro e depois
+ * cada bloco 8x8 são descartados quando a profundidade mais próxima deles (vértice mais perto,
+ * ou o plano de z nos cantos do bloco) não passa da mais distante já gravada nos blocos da tela
+ * que tocam. Os contadores de fragmentos gravados e de rejeições alimentam o {@link RenderStats}.
+ * <p>
+ * Para o pré-passe de profundidade ({@link #setDepthMode}) o mesmo laço roda em
+ * {@link #DEPTH_ONLY} (só z-buffer, sem cor nem textura) e depois em {@link #DEPTH_EQUAL}
+ * (cor só onde a profundidade interpolada é igual à gravada, sem gravar z). As duas passadas
+ * fazem exatamente as mesmas contas por pixel, então a igualdade é exata.
+ * <p>
+ * Uma instância guarda o triângulo corrente e não é thread-safe; o modo paralelo usa
+ * uma instância por tarefa.
+ */
+final class Rasterizer {
+
+    static final int BLOCK = 8;
+
+    // Vértices do triângulo corrente em coordenadas de tela
+    private double x1, y1, z1, x2, y2, z2, x3, y3, z3;
+    // UVs por vértice
+    private double u1, v1, u2, v2, u3, v3;
+    // 1/w por vértice (perspective = false: UV afim)
+    private boolean perspective;
+    private double q1, q2, q3;
+
+    private static final int NEAREST = 0, BILINEAR = 1, TRILINEAR = 2;
+    private static final double INV_LN2 = 1.0 / Math.log(2);
+
+    private int filter = NEAREST;
+    private boolean mipmaps;
+    // Níveis de mipmap do triângulo corrente (level1 só no trilinear) e peso de level1 (0..256)
+    private Texture.Level level0, level1;
+    private int mix;
+
+    /** Teste de profundidade: grava z e cor se mais perto (padrão), só z, ou cor se z igual. */
+    static final int DEPTH_TEST = 0, DEPTH_ONLY = 1, DEPTH_EQUAL = 2;
+
+    private int depthMode = DEPTH_TEST;
+    private HierarchicalDepth hiZ;
+    // Contadores desde o último resetCounters()
+    long fragmentsWritten;
+    int blocksOccluded, trianglesOccluded;
+
+    /**
+     * Filtro de textura e uso de mipmaps para os próximos triângulos.
+     */
+    void configure(Renderer3D.TextureFilter textureFilter, boolean mipmaps) {
+        this.filter = switch (textureFilter) {
+            case NEAREST -> NEAREST;
+            case BILINEAR -> BILINEAR;
+            case TRILINEAR -> TRILINEAR;
+        };
+        this.mipmaps = mipmaps || textureFilter == Renderer3D.TextureFilter.TRILINEAR;
+    }
+
+    /**
+     * Profundidade por blocos usada para rejeição antecipada (null = desligada). Deve ser a do
+     * mesmo alvo cujo z-buffer é passado para {@link #draw}.
+     */
+    void setHierarchicalDepth(HierarchicalDepth hiZ) { this.hiZ = hiZ; }
+
+    void setDepthMode(int mode) { this.depthMode = mode; }
+
+    void resetCounters() {
+        fragmentsWritten = 0;
+        blocksOccluded = trianglesOccluded = 0;
+    }
+
+    /**
+     * Carrega o triângulo i de um {@link TriangleBuffer} (posições e UVs).
+     */
+    void setTriangle(TriangleBuffer buf, int i) {
+        double[] p = buf.pos;
+        int o = i * 9;
+        x1 = p[o]; y1 = p[o + 1]; z1 = p[o + 2];
+        x2 = p[o + 3]; y2 = p[o + 4]; z2 = p[o + 5];
+        x3 = p[o + 6]; y3 = p[o + 7]; z3 = p[o + 8];
+        if (buf.texture[i] != null) {
+            double[] t = buf.uv;
+            o = i * 6;
+            u1 = t[o]; v1 = t[o + 1];
+            u2 = t[o + 2]; v2 = t[o + 3];
+            u3 = t[o + 4]; v3 = t[o + 5];
+            perspective = buf.perspective[i];
+            if (perspective) {
+                double[] w = buf.invW;
+                o = i * 3;
+                q1 = w[o]; q2 = w[o + 1]; q3 = w[o + 2];
+            }
+        } else {
+            perspective = false;
+        }
+    }
+
+    /**
+     * Rasteriza o triângulo i do buffer (cor sólida ou textura) dentro do retângulo de clip.
+     */
+    void draw(TriangleBuffer buf, int i, FrameBuffer fb, DepthBuffer depthBuffer,
+              int clipMinX, int clipMinY, int clipMaxX, int clipMaxY) {
+        setTriangle(buf, i);
+        if (depthMode == DEPTH_ONLY) {
+            raster(fb, depthBuffer, 0, false, clipMinX, clipMinY, clipMaxX, clipMaxY);
+        } else if (buf.texture[i] != null) {
+            fillTextured(fb, depthBuffer, buf.texture[i], clipMinX, clipMinY, clipMaxX, clipMaxY);
+        } else {
+            fill(fb, depthBuffer, buf.color[i], clipMinX, clipMinY, clipMaxX, clipMaxY);
+        }
+    }
+
+    /**
+     * Preenche o triângulo corrente com uma cor sólida.
+     */
+    void fill(FrameBuffer fb, DepthBuffer depthBuffer, int argb,
+              int clipMinX, int clipMinY, int clipMaxX, int clipMaxY) {
+        raster(fb, depthBuffer, argb, false, clipMinX, clipMinY, clipMaxX, clipMaxY);
+    }
+
+    /**
+     * Preenche o triângulo corrente amostrando a textura (UV com wrap) com o filtro configurado.
+     */
+    void fillTextured(FrameBuffer fb, DepthBuffer depthBuffer, Texture texture,
+                      int clipMinX, int clipMinY, int clipMaxX, int clipMaxY) {
+        selectLevels(texture);
+        raster(fb, depthBuffer, 0, true, clipMinX, clipMinY, clipMaxX, clipMaxY);
+        level0 = level1 = null;
+    }
+
+    /**
+     * Escolhe os níveis de mipmap do triângulo corrente: lod = 0,5 * log2(área em texels do
+     * nível 0 / área em pixels). Nearest e bilinear arredondam; trilinear guarda a fração.
+     */
+    private void selectLevels(Texture texture) {
+        int level = 0;
+        mix = 0;
+        if (mipmaps) {
+            double screenArea = Math.abs((x2 - x1) * (y3 - y1) - (x3 - x1) * (y2 - y1));
+            double uvArea = Math.abs((u2 - u1) * (v3 - v1) - (u3 - u1) * (v2 - v1));
+            double texArea = uvArea * texture.getWidth() * texture.getHeight();
+            int maxLevel = texture.getMipCount() - 1;
+            if (screenArea > 0 && texArea > screenArea && maxLevel > 0) {
+                double lod = Math.min(maxLevel, 0.5 * Math.log(texArea / screenArea) * INV_LN2);
+                if (filter == TRILINEAR) {
+                    level = (int) lod;
+                    mix = (int) ((lod - level) * 256);
+                } else {
+                    level = (int) (lod + 0.5);
+                }
+            }
+        }
+        level0 = texture.getLevel(level);
+        if (mix > 0) level1 = texture.getLevel(level + 1);
+    }
+
+    private void raster(FrameBuffer fb, DepthBuffer depthBuffer, int argb, boolean textured,
+                        int clipMinX, int clipMinY, int clipMaxX, int clipMaxY) {
+        int minX = (int) Math.max(clipMinX, Math.ceil(Math.min(x1, Math.min(x2, x3))));
+        int maxX = (int) Math.min(clipMaxX, Math.floor(Math.max(x1, Math.max(x2, x3))));
+        int minY = (int) Math.max(clipMinY, Math.ceil(Math.min(y1, Math.min(y2, y3))));
+        int maxY = (int) Math.min(clipMaxY, Math.floor(Math.max(y1, Math.max(y2, y3))));
+        if (minX > maxX || minY > maxY) return;
+
+        double area = (y1 - y3) * (x2 - x3) + (y2 - y3) * (x3 - x1);
+        if (area == 0 || Double.isNaN(area)) return; // degenerado
+        double invArea = 1.0 / area;
+
+        // Profundidade mais próxima possível do triângulo; a folga cobre o arredondamento da interpolação
+        HierarchicalDepth hiZ = this.hiZ;
+        double nearest = Math.max(z1, Math.max(z2, z3));
+        double zEps = 1e-6 * (1 + Math.max(Math.abs(nearest), Math.max(Math.abs(z1), Math.max(Math.abs(z2), Math.abs(z3)))));
+        if (hiZ != null && hiZ.occluded(minX, minY, maxX, maxY, nearest + zEps)) {
+            trianglesOccluded++;
+            return;
+        }
+
+        // Baricentros no canto (minX, minY) e seus deltas por pixel em x e y
+        double e1 = ((minY - y3) * (x2 - x3) + (y2 - y3) * (x3 - minX)) * invArea;
+        double e2 = ((minY - y1) * (x3 - x1) + (y3 - y1) * (x1 - minX)) * invArea;
+        double e3 = ((minY - y2) * (x1 - x2) + (y1 - y2) * (x2 - minX)) * invArea;
+        double e1dx = -(y2 - y3) * invArea, e1dy = (x2 - x3) * invArea;
+        double e2dx = -(y3 - y1) * invArea, e2dy = (x3 - x1) * invArea;
+        double e3dx = -(y1 - y2) * invArea, e3dy = (x1 - x2) * invArea;
+        // Plano de z (linear na tela) no canto e deltas, para o teste por bloco
+        double pz = e1 * z1 + e2 * z2 + e3 * z3;
+        double pzdx = e1dx * z1 + e2dx * z2 + e3dx * z3;
+        double pzdy = e1dy * z1 + e2dy * z2 + e3dy * z3;
+
+        // Com perspectiva: planos de u/w, v/w e 1/w no canto e seus deltas (zerados no caso afim)
+        double pu = 0, pudx = 0, pudy = 0, pv = 0, pvdx = 0, pvdy = 0, pq = 0, pqdx = 0, pqdy = 0;
+        if (textured && perspective) {
+            double a1 = u1 * q1, a2 = u2 * q2, a3 = u3 * q3;
+            double b1 = v1 * q1, b2 = v2 * q2, b3 = v3 * q3;
+            pu = e1 * a1 + e2 * a2 + e3 * a3;
+            pudx = e1dx * a1 + e2dx * a2 + e3dx * a3;
+            pudy = e1dy * a1 + e2dy * a2 + e3dy * a3;
+            pv = e1 * b1 + e2 * b2 + e3 * b3;
+            pvdx = e1dx * b1 + e2dx * b2 + e3dx * b3;
+            pvdy = e1dy * b1 + e2dy * b2 + e3dy * b3;
+            pq = e1 * q1 + e2 * q2 + e3 * q3;
+            pqdx = e1dx * q1 + e2dx * q2 + e3dx * q3;
+            pqdy = e1dy * q1 + e2dy * q2 + e3dy * q3;
+        }
+
+        int mode = depthMode;
+        boolean color = mode != DEPTH_ONLY; // DEPTH_ONLY chega aqui sempre sem textura
+        int width = fb.getWidth();
+        int[] pixels = fb.getPixels();
+        VectorKernels simd = Simd.rasterKernels();
+        float[] simdDepth = simd != null ? depthBuffer.floatArray() : null;
+
+        for (int by = minY; by <= maxY; by += BLOCK) {
+            int byEnd = Math.min(maxY, by + BLOCK - 1);
+            double ry = by - minY, rh = byEnd - by;
+
+            for (int bx = minX; bx <= maxX; bx += BLOCK) {
+                int bxEnd = Math.min(maxX, bx + BLOCK - 1);
+                double rx = bx - minX, rw = bxEnd - bx;
+
+                // Valor de cada aresta no canto superior esquerdo do bloco
+                double c1 = e1 + e1dx * rx + e1dy * ry;
+                double c2 = e2 + e2dx * rx + e2dy * ry;
+                double c3 = e3 + e3dx * rx + e3dy * ry;
+                double cu = pu + pudx * rx + pudy * ry;
+                double cv = pv + pvdx * rx + pvdy * ry;
+                double cq = pq + pqdx * rx + pqdy * ry;
+
+                // Rejeição: o maior valor nos 4 cantos ainda é negativo
+                if (c1 + Math.max(0, e1dx * rw) + Math.max(0, e1dy * rh) < 0) continue;
+                if (c2 + Math.max(0, e2dx * rw) + Math.max(0, e2dy * rh) < 0) continue;
+                if (c3 + Math.max(0, e3dx * rw) + Math.max(0, e3dy * rh) < 0) continue;
+
+                // Aceitação total: o menor valor nos 4 cantos é não-negativo
+                boolean inside = c1 + Math.min(0, e1dx * rw) + Math.min(0, e1dy * rh) >= 0
+                        && c2 + Math.min(0, e2dx * rw) + Math.min(0, e2dy * rh) >= 0
+                        && c3 + Math.min(0, e3dx * rw) + Math.min(0, e3dy * rh) >= 0;
+
+                if (hiZ != null) {
+                    double cz = pz + pzdx * rx + pzdy * ry + Math.max(0, pzdx * rw) + Math.max(0, pzdy * rh);
+                    if (hiZ.occluded(bx, by, bxEnd, byEnd, Math.min(nearest, cz) + zEps)) {
+                        blocksOccluded++;
+                        continue;
+                    }
+                }
+
+                if (simdDepth != null) {
+                    // Cobertura + teste de profundidade do bloco inteiro no backend vetorial
+                    int corner = by * width + bx;
+                    long pass = mode == DEPTH_EQUAL
+                            ? simd.coverDepthEqual(inside, c1, c2, c3, e1dx, e2dx, e3dx, e1dy, e2dy, e3dy,
+                                    z1, z2, z3, simdDepth, corner, width, bxEnd - bx + 1, byEnd - by + 1)
+                            : simd.coverDepth(inside, c1, c2, c3, e1dx, e2dx, e3dx, e1dy, e2dy, e3dy,
+                                    z1, z2, z3, simdDepth, corner, width, bxEnd - bx + 1, byEnd - by + 1);
+                    if (pass == 0) continue;
+                    if (hiZ != null && mode != DEPTH_EQUAL) hiZ.written(bx, by, bxEnd, byEnd);
+                    if (mode == DEPTH_ONLY) continue;
+                    fragmentsWritten += Long.bitCount(pass);
+                    if (!textured) {
+                        // Cor sólida: linhas inteiras aprovadas são gravadas sem percorrer bit a bit
+                        for (int ky = 0, idx = corner; pass != 0; ky++, idx += width, pass >>>= BLOCK) {
+                            int rowMask = (int) pass & 0xFF;
+                            if (rowMask == 0xFF) {
+                                for (int kx = 0; kx < BLOCK; kx++) pixels[idx + kx] = argb;
+                            } else {
+                                for (; rowMask != 0; rowMask &= rowMask - 1) pixels[idx + Integer.numberOfTrailingZeros(rowMask)] = argb;
+                            }
+                        }
+                        continue;
+                    }
+                    for (; pass != 0; pass &= pass - 1) {
+                        int bit = Long.numberOfTrailingZeros(pass);
+                        int kx = bit & (BLOCK - 1), ky = bit >>> 3;
+                        int idx = corner + ky * width + kx;
+                        if (textured && perspective) {
+                            pixels[idx] = sampleProjected(
+                                    cu + pudx * kx + pudy * ky,
+                                    cv + pvdx * kx + pvdy * ky,
+                                    cq + pqdx * kx + pqdy * ky);
+                        } else if (textured) {
+                            double p1 = c1 + e1dx * kx + e1dy * ky;
+                            double p2 = c2 + e2dx * kx + e2dy * ky;
+                            double p3 = c3 + e3dx * kx + e3dy * ky;
+                            pixels[idx] = sample(
+                                    p1 * u1 + p2 * u2 + p3 * u3,
+                                    p1 * v1 + p2 * v2 + p3 * v3);
+                        } else {
+                            pixels[idx] = argb;
+                        }
+                    }
+                    continue;
+                }
+
+                int written = 0;
+                for (int y = by; y <= byEnd; y++) {
+                    double b1 = c1, b2 = c2, b3 = c3;
+                    double su = cu, sv = cv, sq = cq;
+                    int row = y * width;
+                    for (int x = bx; x <= bxEnd; x++) {
+                        if (inside || (b1 >= 0 && b2 >= 0 && b3 >= 0)) {
+                            double depth = b1 * z1 + b2 * z2 + b3 * z3;
+                            int zIndex = row + x;
+                            boolean pass = mode == DEPTH_EQUAL
+                                    ? depthBuffer.testEqual(zIndex, depth)
+                                    : depthBuffer.testAndSet(zIndex, depth);
+                            if (pass) {
+                                written++;
+                                if (textured && perspective) {
+                                    pixels[zIndex] = sampleProjected(su, sv, sq);
+                                } else if (textured) {
+                                    pixels[zIndex] = sample(
+                                            b1 * u1 + b2 * u2 + b3 * u3,
+                                            b1 * v1 + b2 * v2 + b3 * v3);
+                                } else if (color) {
+                                    pixels[zIndex] = argb;
+                                }
+                            }
+                        }
+                        b1 += e1dx; b2 += e2dx; b3 += e3dx;
+                        su += pudx; sv += pvdx; sq += pqdx;
+                    }
+                    c1 += e1dy; c2 += e2dy; c3 += e3dy;
+                    cu += pudy; cv += pvdy; cq += pqdy;
+                }
+                if (written > 0) {
+                    if (mode != DEPTH_ONLY) fragmentsWritten += written;
+                    if (hiZ != null && mode != DEPTH_EQUAL) hiZ.written(bx, by, bxEnd, byEnd);
+                }
+            }
+        }
+    }
+
+    /**
+     * Amostra em (u/w, v/w) / (1/w): a única divisão por pixel da correção de perspectiva.
+     */
+    private int sampleProjected(double uq, double vq, double q) {
+        double w = 1.0 / q;
+        return sample(uq * w, vq * w);
+    }
+
+    /**
+     * Amostra o(s) nível(is) corrente(s) com wrap de UV; V é invertido para coordenadas de imagem.
+     */
+    private int sample(double u, double v) {
+        u = u - Math.floor(u);
+        v = v - Math.floor(v);
+        if (filter == NEAREST) return nearest(level0, u, v);
+        int c = bilinear(level0, u, v);
+        return mix == 0 ? c : lerp(c, bilinear(level1, u, v), mix);
+    }
+
+    // Endereços vêm de Texture.Level: linha a linha, ou pelas tabelas de deslocamento (TILED/MORTON)
+    private static int nearest(Texture.Level lvl, double u, double v) {
+        int tw = lvl.width, th = lvl.height;
+        int px = (int) (u * (tw - 1));
+        int py = (int) ((1.0 - v) * (th - 1));
+        px = Math.max(0, Math.min(tw - 1, px));
+        py = Math.max(0, Math.min(th - 1, py));
+        int[] cols = lvl.columnOffsets;
+        return lvl.pixels[cols == null ? py * tw + px : cols[px] + lvl.rowOffsets[py]];
+    }
+
+    /**
+     * Média ponderada dos 4 texels ao redor (centros em +0,5), com wrap nas bordas.
+     */
+    private static int bilinear(Texture.Level lvl, double u, double v) {
+        int tw = lvl.width, th = lvl.height;
+        double x = u * tw - 0.5, y = (1.0 - v) * th - 0.5;
+        int x0 = (int) Math.floor(x), y0 = (int) Math.floor(y);
+        int fx = (int) ((x - x0) * 256), fy = (int) ((y - y0) * 256);
+        if (x0 < 0) x0 += tw;
+        else if (x0 >= tw) x0 -= tw;
+        if (y0 < 0) y0 += th;
+        else if (y0 >= th) y0 -= th;
+        int x1 = x0 + 1 == tw ? 0 : x0 + 1;
+        int y1 = y0 + 1 == th ? 0 : y0 + 1;
+        int r0, r1;
+        int[] cols = lvl.columnOffsets;
+        if (cols == null) {
+            r0 = y0 * tw;
+            r1 = y1 * tw;
+        } else {
+            int[] rows = lvl.rowOffsets;
+            r0 = rows[y0];
+            r1 = rows[y1];
+            int c0 = cols[x0];
+            x1 = cols[x1];
+            x0 = c0;
+        }
+        int[] texPixels = lvl.pixels;
+        int top = lerp(texPixels[r0 + x0], texPixels[r0 + x1], fx);
+        int bottom = lerp(texPixels[r1 + x0], texPixels[r1 + x1], fx);
+        return lerp(top, bottom, fy);
+    }
+
+    /**
+     * a + (b - a) * w / 256 em cada canal ARGB; pares de canais (A/G e R/B) em paralelo.
+     */
+    private static int lerp(int a, int b, int w) {
+        int iw = 256 - w;
+        int rb = (((a & 0xFF00FF) * iw + (b & 0xFF00FF) * w) >>> 8) & 0xFF00FF;
+        int ag = (((a >>> 8) & 0xFF00FF) * iw + ((b >>> 8) & 0xFF00FF) * w) & 0xFF00FF00;
+        return ag | rb;
+    }
+}
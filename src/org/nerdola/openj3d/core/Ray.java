@@ -0,0 +1,56 @@
+package org.nerdola.openj3d.core;
+
+/**
+ * Raio {@code origem + t * direção}. Os raios de {@link Camera3D#getRay} saem do plano near com
+ * direção unitária, então t é a distância em coordenadas de mundo.
+ */
+public final class Ray {
+
+    public final double ox, oy, oz;
+    public final double dx, dy, dz;
+
+    public Ray(double ox, double oy, double oz, double dx, double dy, double dz) {
+        if (!(Double.isFinite(ox) && Double.isFinite(oy) && Double.isFinite(oz)))
+            throw new IllegalArgumentException("Origem do raio precisa ser finita.");
+        if (!(Double.isFinite(dx) && Double.isFinite(dy) && Double.isFinite(dz)) || (dx == 0 && dy == 0 && dz == 0))
+            throw new IllegalArgumentException("Direção do raio precisa ser finita e não nula.");
+        this.ox = ox; this.oy = oy; this.oz = oz;
+        this.dx = dx; this.dy = dy; this.dz = dz;
+    }
+
+    public Ray(Vector3 origin, Vector3 direction) {
+        this(origin.x, origin.y, origin.z, direction.x, direction.y, direction.z);
+    }
+
+    public Vector3 getOrigin() { return new Vector3(ox, oy, oz); }
+    public Vector3 getDirection() { return new Vector3(dx, dy, dz); }
+
+    /** Ponto {@code origem + t * direção}. */
+    public Vector3 pointAt(double t) {
+        return new Vector3(ox + t * dx, oy + t * dy, oz + t * dz);
+    }
+
+    /**
+     * O mesmo raio em outro espaço: origem como ponto (com divisão por w), direção como vetor. A
+     * direção não é normalizada, então um t continua indicando o mesmo ponto nos dois espaços
+     * (ex.: {@code ray.transformed(model.inverse())} leva um raio de mundo para a mesh).
+     */
+    public Ray transformed(Matrix4 matrix) {
+        double x = matrix.get(0, 0) * ox + matrix.get(0, 1) * oy + matrix.get(0, 2) * oz + matrix.get(0, 3);
+        double y = matrix.get(1, 0) * ox + matrix.get(1, 1) * oy + matrix.get(1, 2) * oz + matrix.get(1, 3);
+        double z = matrix.get(2, 0) * ox + matrix.get(2, 1) * oy + matrix.get(2, 2) * oz + matrix.get(2, 3);
+        double w = matrix.get(3, 0) * ox + matrix.get(3, 1) * oy + matrix.get(3, 2) * oz + matrix.get(3, 3);
+        if (w != 0 && w != 1) {
+            x /= w; y /= w; z /= w;
+        }
+        return new Ray(x, y, z,
+                matrix.get(0, 0) * dx + matrix.get(0, 1) * dy + matrix.get(0, 2) * dz,
+                matrix.get(1, 0) * dx + matrix.get(1, 1) * dy + matrix.get(1, 2) * dz,
+                matrix.get(2, 0) * dx + matrix.get(2, 1) * dy + matrix.get(2, 2) * dz);
+    }
+
+    @Override
+    public String toString() {
+        return "Ray(" + ox + ", " + oy + ", " + oz + " -> " + dx + ", " + dy + ", " + dz + ")";
+    }
+}
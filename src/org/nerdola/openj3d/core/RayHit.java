@@ -0,0 +1,64 @@
+package org.nerdola.openj3d.core;
+
+import org.nerdola.openj3d.io.Material;
+import org.nerdola.openj3d.io.TexturedTriangle;
+import org.nerdola.openj3d.io.UV;
+
+/**
+ * Interseção mais próxima de um raio com uma mesh (ver {@link Picker}).
+ * <p>
+ * O ponto atingido é {@code b1 * v1 + b2 * v2 + b3 * v3}, com os pesos baricêntricos
+ * {@code b1 + b2 + b3 = 1}; as coordenadas UV e o material vêm do {@link TexturedTriangle}, ou são
+ * null para triângulos só com cor.
+ */
+public final class RayHit {
+
+    private final int triangleIndex;
+    private final Triangle triangle;
+    private final double distance, b2, b3;
+    private final double x, y, z;
+
+    RayHit(int triangleIndex, Triangle triangle, double distance, double b2, double b3, Ray ray) {
+        this.triangleIndex = triangleIndex;
+        this.triangle = triangle;
+        this.distance = distance;
+        this.b2 = b2;
+        this.b3 = b3;
+        this.x = ray.ox + distance * ray.dx;
+        this.y = ray.oy + distance * ray.dy;
+        this.z = ray.oz + distance * ray.dz;
+    }
+
+    /** Índice do triângulo em {@link Mesh#getTriangles()}. */
+    public int getTriangleIndex() { return triangleIndex; }
+    public Triangle getTriangle() { return triangle; }
+
+    /** t do raio no ponto atingido (distância, para raios de direção unitária). */
+    public double getDistance() { return distance; }
+
+    /** Ponto atingido, no espaço do raio consultado. */
+    public Vector3 getPoint() { return new Vector3(x, y, z); }
+
+    public double getBarycentric1() { return 1 - b2 - b3; }
+    public double getBarycentric2() { return b2; }
+    public double getBarycentric3() { return b3; }
+
+    /** UV interpolado no ponto atingido, ou null se o triângulo não tem textura. */
+    public UV getUV() {
+        if (!(triangle instanceof TexturedTriangle)) return null;
+        TexturedTriangle t = (TexturedTriangle) triangle;
+        double b1 = 1 - b2 - b3;
+        return new UV(b1 * t.uv1.u + b2 * t.uv2.u + b3 * t.uv3.u, b1 * t.uv1.v + b2 * t.uv2.v + b3 * t.uv3.v);
+    }
+
+    /** Material do triângulo, ou null se ele não tem textura. */
+    public Material getMaterial() {
+        return triangle instanceof TexturedTriangle ? ((TexturedTriangle) triangle).material : null;
+    }
+
+    @Override
+    public String toString() {
+        return "RayHit(triangle=" + triangleIndex + ", distance=" + distance
+                + ", barycentric=(" + getBarycentric1() + ", " + b2 + ", " + b3 + "))";
+    }
+}
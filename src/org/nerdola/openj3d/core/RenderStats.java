@@ -0,0 +1,136 @@
+package org.nerdola.openj3d.core;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Métricas do último frame renderizado por um {@link Renderer3D}.
+ */
+public class RenderStats {
+
+    private static final com.sun.management.ThreadMXBean THREADS = threadBean();
+
+    long frameNanos;
+    long allocatedBytes = -1;
+    int trianglesSubmitted;
+    int trianglesCulled;
+    int trianglesOutside;
+    int trianglesClipped;
+    int trianglesRasterized;
+    long pixels;
+    long fragmentsWritten;
+    int trianglesOccluded;
+    int blocksOccluded;
+    int bvhNodesVisited;
+    int instancesRendered;
+
+    void reset() {
+        frameNanos = 0;
+        allocatedBytes = -1;
+        trianglesSubmitted = 0;
+        trianglesCulled = 0;
+        trianglesOutside = 0;
+        trianglesClipped = 0;
+        trianglesRasterized = 0;
+        pixels = 0;
+        fragmentsWritten = 0;
+        trianglesOccluded = 0;
+        blocksOccluded = 0;
+        bvhNodesVisited = 0;
+        instancesRendered = 0;
+    }
+
+    // Chamado uma vez por rasterizador (no modo paralelo, por tile, de várias threads)
+    synchronized void add(Rasterizer r) {
+        fragmentsWritten += r.fragmentsWritten;
+        trianglesOccluded += r.trianglesOccluded;
+        blocksOccluded += r.blocksOccluded;
+    }
+
+    /** Duração do último frame em nanossegundos. */
+    public long getFrameNanos() { return frameNanos; }
+
+    /**
+     * Bytes alocados na heap durante o último frame (thread de render + workers do modo
+     * paralelo), ou -1 se a medição estiver desligada ou não for suportada pela JVM.
+     */
+    public long getAllocatedBytes() { return allocatedBytes; }
+
+    public int getTrianglesSubmitted() { return trianglesSubmitted; }
+
+    /** Triângulos descartados pelo backface culling (ver {@link Renderer3D#setCullMode}). */
+    public int getTrianglesCulled() { return trianglesCulled; }
+
+    /** Triângulos descartados inteiros por estarem fora do frustum / da tela. */
+    public int getTrianglesOutside() { return trianglesOutside; }
+
+    /** Triângulos que cruzavam a borda do frustum e foram recortados. */
+    public int getTrianglesClipped() { return trianglesClipped; }
+
+    /** Triângulos entregues ao rasterizador (inclui os gerados pelo recorte). */
+    public int getTrianglesRasterized() { return trianglesRasterized; }
+
+    /** Pixels que passaram no teste de profundidade e foram gravados (cor + z). */
+    public long getFragmentsWritten() { return fragmentsWritten; }
+
+    /**
+     * Gravações por pixel do alvo no último frame ({@link #getFragmentsWritten()} / largura *
+     * altura). 1,0 numa cena que cobre a tela toda significa nenhum pixel pintado duas vezes.
+     */
+    public double getOverdraw() { return pixels == 0 ? 0 : (double) fragmentsWritten / pixels; }
+
+    /**
+     * Triângulos descartados inteiros pela profundidade por bloco (ver
+     * {@link Renderer3D#setHierarchicalDepth}), um a um ou em subárvores de uma {@link Bvh}.
+     */
+    public int getTrianglesOccluded() { return trianglesOccluded; }
+
+    /** Blocos 8x8 de triângulos descartados pela profundidade por bloco sem visitar pixels. */
+    public int getBlocksOccluded() { return blocksOccluded; }
+
+    /** Nós visitados no render com {@link Bvh} (0 nos outros renders). */
+    public int getBvhNodesVisited() { return bvhNodesVisited; }
+
+    /** Nós com mesh desenhados no render de um {@link SceneNode} (0 nos outros renders). */
+    public int getInstancesRendered() { return instancesRendered; }
+
+    @Override
+    public String toString() {
+        return "RenderStats(frame=" + (frameNanos / 1_000) + "us, alloc=" + allocatedBytes
+                + "B, tris=" + trianglesSubmitted + ", culled=" + trianglesCulled
+                + ", outside=" + trianglesOutside + ", clipped=" + trianglesClipped
+                + ", rasterized=" + trianglesRasterized + ", fragments=" + fragmentsWritten
+                + ", overdraw=" + String.format(java.util.Locale.ROOT, "%.2f", getOverdraw())
+                + ", occludedTris=" + trianglesOccluded + ", occludedBlocks=" + blocksOccluded
+                + (bvhNodesVisited > 0 ? ", bvhNodes=" + bvhNodesVisited : "")
+                + (instancesRendered > 0 ? ", instances=" + instancesRendered : "") + ")";
+    }
+
+    // ----------------------------
+    // Medição de alocação por thread (HotSpot)
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        try {
+            java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean sun = (com.sun.management.ThreadMXBean) bean;
+                if (sun.isThreadAllocatedMemorySupported()) {
+                    sun.setThreadAllocatedMemoryEnabled(true);
+                    return sun;
+                }
+            }
+        } catch (Throwable ignored) {
+            // módulo jdk.management ausente
+        }
+        return null;
+    }
+
+    static boolean allocationSupported() { return THREADS != null; }
+
+    /**
+     * Total alocado pela thread informada, ou 0 se ela já terminou.
+     */
+    static long threadAllocatedBytes(long threadId) {
+        long b = THREADS.getThreadAllocatedBytes(threadId);
+        return Math.max(0, b);
+    }
+}
@@ -0,0 +1,90 @@
+package org.nerdola.openj3d.core;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Alvo de renderização persistente (cor + profundidade).
+ * Deve ser reutilizado entre frames: {@link #resize(int, int)} só realoca quando
+ * as dimensões mudam e {@link #clear(int)} apenas preenche os arrays existentes.
+ */
+public class RenderTarget {
+
+    private FrameBuffer color;
+    private DepthBuffer depth;
+    private DepthBuffer.Format depthFormat;
+    private HierarchicalDepth hierarchicalDepth; // criado no primeiro uso
+
+    public RenderTarget(int width, int height) {
+        this(width, height, DepthBuffer.Format.FLOAT32);
+    }
+
+    public RenderTarget(int width, int height, DepthBuffer.Format depthFormat) {
+        this.depthFormat = depthFormat;
+        allocate(width, height);
+    }
+
+    private void allocate(int width, int height) {
+        double min = depth != null ? depth.getRangeMin() : -1;
+        double max = depth != null ? depth.getRangeMax() : 1;
+        color = new FrameBuffer(width, height);
+        depth = new DepthBuffer(width * height, depthFormat);
+        depth.setRange(min, max);
+        hierarchicalDepth = null;
+    }
+
+    /**
+     * Ajusta o tamanho do alvo. Retorna true se os buffers foram realocados.
+     */
+    public boolean resize(int width, int height) {
+        if (width == color.getWidth() && height == color.getHeight()) return false;
+        allocate(width, height);
+        return true;
+    }
+
+    /**
+     * Troca o formato do z-buffer (realoca apenas a profundidade).
+     */
+    public void setDepthFormat(DepthBuffer.Format format) {
+        if (format == depthFormat) return;
+        DepthBuffer old = depth;
+        depthFormat = format;
+        depth = new DepthBuffer(old.size(), format);
+        depth.setRange(old.getRangeMin(), old.getRangeMax());
+        hierarchicalDepth = null;
+    }
+
+    /**
+     * Intervalo de profundidade dos formatos de ponto fixo (ver {@link DepthBuffer#setRange}).
+     */
+    public void setDepthRange(double min, double max) { depth.setRange(min, max); }
+
+    /**
+     * Limpa a cor com o valor ARGB informado e a profundidade para "vazio".
+     */
+    public void clear(int argb) {
+        color.clear(argb);
+        depth.clear();
+    }
+
+    public void clear() { clear(0); }
+
+    public int getWidth() { return color.getWidth(); }
+    public int getHeight() { return color.getHeight(); }
+
+    public FrameBuffer getColorBuffer() { return color; }
+    public DepthBuffer getDepthBuffer() { return depth; }
+    public DepthBuffer.Format getDepthFormat() { return depthFormat; }
+
+    /**
+     * Profundidade por bloco 8x8 usada na rejeição antecipada (ver {@link HierarchicalDepth}).
+     */
+    HierarchicalDepth getHierarchicalDepth() {
+        if (hierarchicalDepth == null) hierarchicalDepth = new HierarchicalDepth(depth, getWidth(), getHeight());
+        return hierarchicalDepth;
+    }
+
+    /**
+     * Visão da cor como imagem (sem cópia).
+     */
+    public BufferedImage toImage() { return color.toImage(); }
+}
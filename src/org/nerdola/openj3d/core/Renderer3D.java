@@ -1,145 +1,876 @@
 package org.nerdola.openj3d.core;
 
 import org.nerdola.openj3d.io.TexturedTriangle;
-import org.nerdola.openj3d.io.Texture;
 import org.nerdola.openj3d.io.Material;
+import org.nerdola.openj3d.io.Texture;
 
-import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Renderizador 3D básico com z-buffer e suporte a texturas (UV).
+ * <p>
+ * No modo paralelo os triângulos são distribuídos em tiles da tela e cada tile é
+ * rasterizado em uma thread do {@link ForkJoinPool}. Cada tile é dono da sua fatia
+ * do z-buffer, então não há locks, e a ordem dos triângulos dentro do tile é a mesma
+ * do modo serial (o resultado é idêntico pixel a pixel).
+ * <p>
+ * Antes da rasterização cada triângulo passa por um estágio de geometria: descarte dos que
+ * estão inteiros fora da tela/frustum, backface culling opcional ({@link #setCullMode}) e,
+ * em {@link #render(Mesh, Matrix4, RenderTarget)}, recorte contra o frustum em coordenadas
+ * de clip. Os contadores de cada etapa ficam em {@link #getStats()}.
+ * <p>
+ * Com {@link #setHierarchicalDepth(boolean)} (padrão) o rasterizador consulta a profundidade
+ * por bloco 8x8 do alvo e pula triângulos e blocos já escondidos; o resultado é o mesmo, e
+ * {@link RenderStats#getOverdraw()} mostra quantas vezes cada pixel foi gravado. A ordem de
+ * desenho pode ser a de envio ou da frente para trás ({@link #setFrontToBack}), e um pré-passe
+ * de profundidade ({@link #setDepthPrePass}) faz a textura ser amostrada uma vez por pixel
+ * visível; as duas opções valem a partir do próximo render e podem mudar entre chamadas.
+ * <p>
+ * Meshes grandes podem ser desenhadas com uma {@link Bvh}
+ * ({@link #render(Mesh, Bvh, Matrix4, Camera3D, RenderTarget)}): subárvores fora do frustum ou
+ * escondidas pelo que já foi desenhado no frame são descartadas sem tocar nos triângulos.
+ * <p>
+ * Cenas com meshes repetidas podem ser montadas como um grafo de {@link SceneNode}
+ * ({@link #render(SceneNode, Camera3D, RenderTarget)}): cada instância é transformada na hora a
+ * partir da mesh compartilhada, então a memória cresce com as meshes distintas, não com as cópias.
+ * <p>
+ * Os buffers de trabalho são reaproveitados entre frames; uma instância não deve ser
+ * usada por várias threads ao mesmo tempo.
  */
 public class Renderer3D {
 
+    public static final int DEFAULT_TILE_SIZE = 64;
+
+    /**
+     * Quais faces descartar antes de rasterizar.
+     */
+    public enum CullMode { NONE, BACK, FRONT }
+
+    /**
+     * Sentido dos vértices de uma face frontal, como vista na tela (y para cima).
+     */
+    public enum FrontFace { CCW, CW }
+
+    /**
+     * Filtro de amostragem das texturas. NEAREST e BILINEAR usam o nível de mipmap mais
+     * próximo quando {@link #setMipmaps(boolean)} está ligado; TRILINEAR sempre usa mipmaps,
+     * misturando os dois níveis vizinhos.
+     */
+    public enum TextureFilter { NEAREST, BILINEAR, TRILINEAR }
+
+    private boolean parallel = false;
+    private int threadCount = Runtime.getRuntime().availableProcessors();
+    private int tileSize = DEFAULT_TILE_SIZE;
+    private CullMode cullMode = CullMode.NONE;
+    private FrontFace frontFace = FrontFace.CCW;
+    private TextureFilter textureFilter = TextureFilter.NEAREST;
+    private boolean mipmaps = false;
+    private boolean perspectiveCorrect = true;
+    private boolean hierarchicalDepth = true;
+    private boolean frontToBack = false;
+    private boolean depthPrePass = false;
+    private ForkJoinPool pool;
+    private Thread[] workers = new Thread[0];
+
+    private boolean measureAllocations = false;
+    private final RenderStats stats = new RenderStats();
+    private final Rasterizer rasterizer = new Rasterizer();
+    // Um por thread do modo paralelo, reaproveitado entre tiles e frames
+    private final ThreadLocal<Rasterizer> tileRasterizer = ThreadLocal.withInitial(Rasterizer::new);
+    private final Clipper clipper = new Clipper();
+
+    // Buffers de trabalho reaproveitados entre frames
+    private final TriangleBuffer triangles = new TriangleBuffer();
+    private final double[] clipTri = new double[3 * Clipper.STRIDE];
+    private final double[] clipMatrix = new double[16];
+    private final double[] viewMatrix = new double[16]; // modelo -> câmera, para o sombreamento
+    private final BvhSubmit bvhSubmit = new BvhSubmit();
+    private final double[] bvhPlanes = new double[24];
+    private int[] bvhStack = new int[0];
+    private final int[] bvhCounters = new int[3];
+    private double[] clipVerts = new double[0];
+    private int[] tileRect = new int[0];
+    private int[] binCount = new int[0], binStart = new int[0], bins = new int[0];
+
+    // ====================== CONFIGURAÇÃO ======================
+    public Renderer3D setParallel(boolean parallel) { this.parallel = parallel; return this; }
+
+    public Renderer3D setThreadCount(int threads) {
+        if (threads < 1) throw new IllegalArgumentException("threadCount precisa ser >= 1.");
+        if (threads != threadCount) {
+            shutdown();
+            threadCount = threads;
+        }
+        return this;
+    }
+
+    public Renderer3D setTileSize(int size) {
+        if (size < 1) throw new IllegalArgumentException("tileSize precisa ser >= 1.");
+        this.tileSize = size;
+        return this;
+    }
+
+    public Renderer3D setCullMode(CullMode mode) {
+        if (mode == null) throw new IllegalArgumentException("cullMode não pode ser null.");
+        this.cullMode = mode;
+        return this;
+    }
+
+    public Renderer3D setFrontFace(FrontFace face) {
+        if (face == null) throw new IllegalArgumentException("frontFace não pode ser null.");
+        this.frontFace = face;
+        return this;
+    }
+
+    public Renderer3D setTextureFilter(TextureFilter filter) {
+        if (filter == null) throw new IllegalArgumentException("textureFilter não pode ser null.");
+        this.textureFilter = filter;
+        return this;
+    }
+
+    /**
+     * Escolhe, por triângulo, o nível de mipmap da textura pela razão entre a área em texels e
+     * a área na tela: superfícies distantes leem uma imagem menor (menos serrilhado e menos
+     * faltas de cache).
+     */
+    public Renderer3D setMipmaps(boolean mipmaps) { this.mipmaps = mipmaps; return this; }
+
+    /**
+     * Nos renders com matriz de projeção, interpola UV com correção de perspectiva (u/w, v/w e
+     * 1/w por pixel) em vez de linearmente na tela (padrão: ligado). Sem efeito nos renders em
+     * coordenadas de tela e em projeções ortográficas (w constante).
+     */
+    public Renderer3D setPerspectiveCorrect(boolean correct) { this.perspectiveCorrect = correct; return this; }
+
+    /**
+     * Rejeição antecipada pela profundidade por bloco 8x8 do alvo (padrão: ligada): triângulos
+     * e blocos cuja profundidade mais próxima está atrás da mais distante já gravada no bloco
+     * não visitam pixels. Ganha em cenas com muita sobreposição desenhadas da frente para trás;
+     * de trás para frente não há o que descartar e sobra só o custo de manter os blocos.
+     */
+    public Renderer3D setHierarchicalDepth(boolean enabled) { this.hierarchicalDepth = enabled; return this; }
+
+    /**
+     * Desenha os triângulos do frame da frente para trás (pelo vértice mais próximo, em 16
+     * bits, com radix sort) em vez da ordem da mesh. Os de trás perdem o teste de profundidade
+     * ou são descartados em blocos, sem amostrar textura. A imagem só muda onde dois triângulos
+     * têm exatamente a mesma profundidade (vence o primeiro desenhado). Padrão: desligado.
+     */
+    public Renderer3D setFrontToBack(boolean frontToBack) { this.frontToBack = frontToBack; return this; }
+
+    /**
+     * Rasteriza o frame em duas passadas: primeiro só a profundidade de todos os triângulos,
+     * depois a cor apenas onde a profundidade do triângulo é igual à gravada. Cada pixel
+     * visível é sombreado uma vez, ao custo de percorrer a geometria duas vezes; compensa com
+     * texturas caras e muito overdraw. A imagem é a mesma do render normal. Padrão: desligado.
+     */
+    public Renderer3D setDepthPrePass(boolean prePass) { this.depthPrePass = prePass; return this; }
+
+    /**
+     * Liga a medição de bytes alocados por frame (ver {@link RenderStats#getAllocatedBytes()}).
+     */
+    public Renderer3D setMeasureAllocations(boolean measure) { this.measureAllocations = measure; return this; }
+
+    public boolean isParallel() { return parallel; }
+    public int getThreadCount() { return threadCount; }
+    public int getTileSize() { return tileSize; }
+    public CullMode getCullMode() { return cullMode; }
+    public FrontFace getFrontFace() { return frontFace; }
+    public TextureFilter getTextureFilter() { return textureFilter; }
+    public boolean isMipmaps() { return mipmaps; }
+    public boolean isPerspectiveCorrect() { return perspectiveCorrect; }
+    public boolean isHierarchicalDepth() { return hierarchicalDepth; }
+    public boolean isFrontToBack() { return frontToBack; }
+    public boolean isDepthPrePass() { return depthPrePass; }
+
+    /**
+     * Métricas do último frame. O objeto é reaproveitado a cada render.
+     */
+    public RenderStats getStats() { return stats; }
+
+    /**
+     * Sem efeito: os pixels agora ficam na própria {@link Texture}.
+     *
+     * @deprecated use {@link Texture#invalidate()} na textura cuja imagem foi alterada.
+     */
+    @Deprecated
+    public void clearTextureCache() { }
+
+    /**
+     * Encerra o pool de threads do modo paralelo (é recriado sob demanda).
+     */
+    public synchronized void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+    }
+
+    private synchronized ForkJoinPool pool() {
+        if (pool == null) {
+            pool = new ForkJoinPool(threadCount, p -> {
+                ForkJoinWorkerThread w = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+                registerWorker(w);
+                return w;
+            }, null, false);
+        }
+        return pool;
+    }
+
+    private synchronized void registerWorker(Thread w) {
+        Thread[] ws = workers;
+        for (int i = 0; i < ws.length; i++) {
+            if (ws[i] == null || !ws[i].isAlive()) {
+                ws[i] = w;
+                return;
+            }
+        }
+        Thread[] grown = Arrays.copyOf(ws, ws.length + 1);
+        grown[ws.length] = w;
+        workers = grown;
+    }
+
+    // ====================== RENDER ======================
     public BufferedImage render(Mesh mesh, int width, int height) {
-        BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
-        double[] zBuffer = new double[width * height];
+        RenderTarget target = new RenderTarget(width, height);
+        render(mesh, target);
+        return target.toImage();
+    }
+
+    /**
+     * Renderiza a mesh no alvo informado, sem limpá-lo antes (use {@link RenderTarget#clear(int)}).
+     * Em regime estável (mesmo alvo, mesma quantidade de triângulos) não aloca memória no modo serial.
+     */
+    public void render(Mesh mesh, RenderTarget target) {
+        long start = System.nanoTime();
+        long allocBefore = measureAllocations ? allocatedSoFar() : -1;
+        stats.reset();
 
-        for (int i = 0; i < zBuffer.length; i++) {
-            zBuffer[i] = Double.NEGATIVE_INFINITY;
+        triangles.clear();
+        List<Triangle> tris = mesh.getTriangles();
+        int width = target.getWidth(), height = target.getHeight();
+        for (int i = 0, n = tris.size(); i < n; i++) {
+            Triangle t = tris.get(i);
+            if (rejectScreen(t.v1.x, t.v1.y, t.v2.x, t.v2.y, t.v3.x, t.v3.y, width, height)) continue;
+            emit(t);
         }
+        rasterize(target);
+
+        finishStats(start, allocBefore, tris.size());
+    }
+
+    /**
+     * Renderiza uma {@link IndexedMesh} (coordenadas de tela) lendo direto dos arrays empacotados.
+     */
+    public void render(IndexedMesh mesh, RenderTarget target) {
+        long start = System.nanoTime();
+        long allocBefore = measureAllocations ? allocatedSoFar() : -1;
+        stats.reset();
 
-        for (Triangle t : mesh.getTriangles()) {
-            Vertex norm = t.normal();
-            double shade = Math.abs(norm.z);
+        triangles.clear();
+        int width = target.getWidth(), height = target.getHeight();
+        float[] p = mesh.getPositions();
+        float[] uv = mesh.getUVs();
+        int[] idx = mesh.getIndices();
+        for (IndexedMesh.Submesh s : mesh.getSubmeshes()) {
+            Material mat = s.material;
+            boolean textured = mat != null && mat.hasTexture();
+            Texture tex = textured ? mat.texture : null;
 
-            if (t instanceof TexturedTriangle) {
-                TexturedTriangle tt = (TexturedTriangle) t;
-                Material mat = tt.material;
-                if (mat != null && mat.hasTexture()) {
-                    drawTexturedTriangle(img, zBuffer, tt);
+            for (int i = s.firstIndex, end = s.firstIndex + s.indexCount; i < end; i += 3) {
+                int a = idx[i] * 3, b = idx[i + 1] * 3, c = idx[i + 2] * 3;
+                double x1 = p[a], y1 = p[a + 1], z1 = p[a + 2];
+                double x2 = p[b], y2 = p[b + 1], z2 = p[b + 2];
+                double x3 = p[c], y3 = p[c + 1], z3 = p[c + 2];
+                if (rejectScreen(x1, y1, x2, y2, x3, y3, width, height)) continue;
+                if (!textured) {
+                    double shade = Math.abs(Triangle.normalZ(x1, y1, z1, x2, y2, z2, x3, y3, z3));
+                    triangles.add(x1, y1, z1, x2, y2, z2, x3, y3, z3, ColorUtils.shadeRGB(s.color, shade));
                     continue;
                 }
+                int t = triangles.add(x1, y1, z1, x2, y2, z2, x3, y3, z3, 0);
+                a = idx[i] * 2; b = idx[i + 1] * 2; c = idx[i + 2] * 2;
+                if (uv != null) {
+                    triangles.setTexture(t, tex,
+                            uv[a], uv[a + 1], uv[b], uv[b + 1], uv[c], uv[c + 1]);
+                } else {
+                    triangles.setTexture(t, tex, 0, 0, 0, 0, 0, 0);
+                }
             }
-
-            Color shaded = ColorUtils.shade(t.color, shade);
-            drawTriangle(img, zBuffer, t, shaded);
         }
+        rasterize(target);
 
-        return img;
+        finishStats(start, allocBefore, mesh.getTriangleCount());
     }
 
-    private void drawTriangle(BufferedImage img, double[] zBuffer, Triangle t, Color color) {
-        int width = img.getWidth(), height = img.getHeight();
+    /**
+     * Renderiza a mesh (coordenadas de modelo/mundo) projetando com {@code viewProjection}
+     * (por exemplo projeção * {@link Camera3D#getViewMatrix()}) para coordenadas de clip.
+     * Triângulos fora do frustum -w &lt;= x, y, z &lt;= w são descartados, os que cruzam a borda
+     * (inclusive o plano near) são recortados, e o resultado é mapeado para a tela com y para
+     * baixo e profundidade -z/w (maior = mais perto, dentro de [-1, 1]). As UVs são interpoladas
+     * com correção de perspectiva ({@link #setPerspectiveCorrect}).
+     * O sombreamento usa a normal nas coordenadas da mesh, como em {@link #render(Mesh, RenderTarget)}.
+     */
+    public void render(Mesh mesh, Matrix4 viewProjection, RenderTarget target) {
+        renderClip(mesh, viewProjection, null, target);
+    }
+
+    /**
+     * Renderiza a mesh com matriz de modelo e câmera: transformação, recorte, divisão por w e
+     * viewport numa única passada, sem gerar uma mesh transformada. A projeção vem da câmera
+     * ({@link Camera3D#getViewProjectionMatrix()}, em cache); ajuste a proporção com
+     * {@link Camera3D#setAspect} ao redimensionar o alvo. O sombreamento usa a normal no espaço
+     * da câmera, então acompanha a rotação do modelo.
+     */
+    public void render(Mesh mesh, Matrix4 model, Camera3D camera, RenderTarget target) {
+        renderClip(mesh, camera.getViewProjectionMatrix().multiply(model), camera.getViewMatrix().multiply(model), target);
+    }
+
+    /**
+     * Versão de {@link #render(Mesh, Matrix4, Camera3D, RenderTarget)} para {@link IndexedMesh}.
+     */
+    public void render(IndexedMesh mesh, Matrix4 model, Camera3D camera, RenderTarget target) {
+        renderClip(mesh, camera.getViewProjectionMatrix().multiply(model), camera.getViewMatrix().multiply(model), target);
+    }
+
+    /**
+     * Como {@link #render(Mesh, Matrix4, Camera3D, RenderTarget)}, percorrendo a {@link Bvh} da
+     * mesh (construída com {@link Bvh#build}, ou com {@link Bvh#refit} depois de mover os
+     * vértices): subárvores fora do frustum da câmera são descartadas sem transformar vértices,
+     * e os triângulos saem aproximadamente da frente para trás. Com
+     * {@link #setHierarchicalDepth} ligado, subárvores cuja caixa projetada fica atrás do que já
+     * está no alvo (renders anteriores no mesmo frame, ex.: oclusores grandes desenhados antes)
+     * também são descartadas. Os triângulos descartados entram em
+     * {@link RenderStats#getTrianglesOutside()} e {@link RenderStats#getTrianglesOccluded()}.
+     */
+    public void render(Mesh mesh, Bvh bvh, Matrix4 model, Camera3D camera, RenderTarget target) {
+        List<Triangle> tris = mesh.getTriangles();
+        if (bvh.getTriangleCount() != tris.size())
+            throw new IllegalArgumentException("A BVH tem " + bvh.getTriangleCount() + " triângulos; a mesh tem " + tris.size() + ".");
+        Matrix4 viewProjection = camera.getViewProjectionMatrix().multiply(model), modelView = camera.getViewMatrix().multiply(model);
+        long start = System.nanoTime();
+        long allocBefore = measureAllocations ? allocatedSoFar() : -1;
+        stats.reset();
+
+        triangles.clear();
+        loadClipMatrix(viewProjection);
+        loadViewMatrix(modelView);
+        submitBvh(tris, bvh, occlusionDepth(target), target);
+        rasterize(target);
 
-        int minX = (int) Math.max(0, Math.ceil(Math.min(t.v1.x, Math.min(t.v2.x, t.v3.x))));
-        int maxX = (int) Math.min(width - 1, Math.floor(Math.max(t.v1.x, Math.max(t.v2.x, t.v3.x))));
-        int minY = (int) Math.max(0, Math.ceil(Math.min(t.v1.y, Math.min(t.v2.y, t.v3.y))));
-        int maxY = (int) Math.min(height - 1, Math.floor(Math.max(t.v1.y, Math.max(t.v2.y, t.v3.y))));
+        finishStats(start, allocBefore, tris.size());
+    }
+
+    /**
+     * Renderiza num único frame todos os nós visíveis com mesh do grafo a partir de {@code root},
+     * cada um como em {@link #render(Mesh, Matrix4, Camera3D, RenderTarget)} com a sua
+     * {@link SceneNode#getWorldMatrix()}: os vértices da mesh compartilhada são transformados na
+     * hora, sem cópias por instância. Nós com {@link Bvh} passam pela árvore como em
+     * {@link #render(Mesh, Bvh, Matrix4, Camera3D, RenderTarget)}, então uma instância fora do
+     * frustum custa um teste de caixa. Em regime estável (nenhuma transformação alterada desde o
+     * frame anterior) não aloca memória no modo serial.
+     */
+    public void render(SceneNode root, Camera3D camera, RenderTarget target) {
+        Matrix4 viewProjection = camera.getViewProjectionMatrix(), view = camera.getViewMatrix();
+        long start = System.nanoTime();
+        long allocBefore = measureAllocations ? allocatedSoFar() : -1;
+        stats.reset();
 
-        double area = (t.v1.y - t.v3.y) * (t.v2.x - t.v3.x) + (t.v2.y - t.v3.y) * (t.v3.x - t.v1.x);
+        triangles.clear();
+        int submitted = submitNode(root, viewProjection, view, occlusionDepth(target), target);
+        rasterize(target);
 
-        for (int y = minY; y <= maxY; y++) {
-            for (int x = minX; x <= maxX; x++) {
-                double b1 = ((y - t.v3.y) * (t.v2.x - t.v3.x) + (t.v2.y - t.v3.y) * (t.v3.x - x)) / area;
-                double b2 = ((y - t.v1.y) * (t.v3.x - t.v1.x) + (t.v3.y - t.v1.y) * (t.v1.x - x)) / area;
-                double b3 = ((y - t.v2.y) * (t.v1.x - t.v2.x) + (t.v1.y - t.v2.y) * (t.v2.x - x)) / area;
+        finishStats(start, allocBefore, submitted);
+    }
 
-                if (b1 >= 0 && b2 >= 0 && b3 >= 0 && b1 <= 1 && b2 <= 1 && b3 <= 1) {
-                    double depth = b1 * t.v1.z + b2 * t.v2.z + b3 * t.v3.z;
-                    int zIndex = y * width + x;
-                    if (zBuffer[zIndex] < depth) {
-                        img.setRGB(x, y, color.getRGB());
-                        zBuffer[zIndex] = depth;
-                    }
+    private int submitNode(SceneNode node, Matrix4 viewProjection, Matrix4 view, HierarchicalDepth hiZ, RenderTarget target) {
+        if (!node.isVisible()) return 0;
+        int submitted = 0;
+        if (node.hasMesh()) {
+            Matrix4 world = node.getWorldMatrix();
+            Matrix4.multiply(viewProjection, world, clipMatrix);
+            Matrix4.multiply(view, world, viewMatrix);
+            stats.instancesRendered++;
+            if (node.indexedMesh != null) {
+                submitIndexed(node.indexedMesh, true, target);
+                submitted += node.indexedMesh.getTriangleCount();
+            } else {
+                List<Triangle> tris = node.mesh.getTriangles();
+                if (node.bvh != null) {
+                    if (node.bvh.getTriangleCount() != tris.size())
+                        throw new IllegalArgumentException("A BVH tem " + node.bvh.getTriangleCount() + " triângulos; a mesh tem " + tris.size() + ".");
+                    submitBvh(tris, node.bvh, hiZ, target);
+                } else {
+                    for (int i = 0, n = tris.size(); i < n; i++) submitTriangle(tris.get(i), true, target);
                 }
+                submitted += tris.size();
             }
         }
+        List<SceneNode> children = node.children;
+        for (int i = 0, n = children.size(); i < n; i++) submitted += submitNode(children.get(i), viewProjection, view, hiZ, target);
+        return submitted;
+    }
+
+    // modelView != null: sombreamento pela normal no espaço da câmera
+    private void renderClip(Mesh mesh, Matrix4 viewProjection, Matrix4 modelView, RenderTarget target) {
+        long start = System.nanoTime();
+        long allocBefore = measureAllocations ? allocatedSoFar() : -1;
+        stats.reset();
+
+        triangles.clear();
+        loadClipMatrix(viewProjection);
+        boolean viewShading = modelView != null;
+        if (viewShading) loadViewMatrix(modelView);
+        List<Triangle> tris = mesh.getTriangles();
+        for (int i = 0, n = tris.size(); i < n; i++) submitTriangle(tris.get(i), viewShading, target);
+        rasterize(target);
+
+        finishStats(start, allocBefore, tris.size());
+    }
+
+    /**
+     * Profundidade por bloco do alvo para descartar subárvores da {@link Bvh}, ou null se a
+     * oclusão está desligada ou se nada foi desenhado ainda no frame (testar só custaria).
+     */
+    private HierarchicalDepth occlusionDepth(RenderTarget target) {
+        HierarchicalDepth hiZ = hierarchicalDepth ? target.getHierarchicalDepth() : null;
+        if (hiZ != null) {
+            hiZ.sync();
+            if (hiZ.isEmpty()) hiZ = null;
+        }
+        return hiZ;
+    }
+
+    /**
+     * Percorre a {@link Bvh} com {@link #clipMatrix} e envia os triângulos que sobram, com
+     * sombreamento por {@link #viewMatrix}.
+     */
+    private void submitBvh(List<Triangle> tris, Bvh bvh, HierarchicalDepth hiZ, RenderTarget target) {
+        if (bvhStack.length < bvh.stackSize()) bvhStack = new int[bvh.stackSize()];
+        int[] counters = bvhCounters;
+        Arrays.fill(counters, 0);
+        BvhSubmit submit = bvhSubmit;
+        submit.triangles = tris;
+        submit.target = target;
+        try {
+            bvh.traverse(clipMatrix, hiZ, target.getWidth(), target.getHeight(), submit, bvhPlanes, bvhStack, counters);
+        } finally {
+            submit.triangles = null;
+            submit.target = null;
+        }
+        stats.bvhNodesVisited += counters[0];
+        stats.trianglesOutside += counters[1];
+        stats.trianglesOccluded += counters[2];
+    }
+
+    // Visitante reaproveitado do render com BVH (uma lambda capturando a mesh alocaria por frame)
+    private final class BvhSubmit implements Bvh.Visitor {
+        List<Triangle> triangles;
+        RenderTarget target;
+
+        @Override
+        public void visit(int[] primitives, int first, int count) {
+            for (int i = first, end = first + count; i < end; i++) submitTriangle(triangles.get(primitives[i]), true, target);
+        }
+    }
+
+    private void loadClipMatrix(Matrix4 viewProjection) {
+        for (int i = 0; i < 16; i++) clipMatrix[i] = viewProjection.get(i >> 2, i & 3);
+    }
+
+    private void loadViewMatrix(Matrix4 modelView) {
+        for (int i = 0; i < 16; i++) viewMatrix[i] = modelView.get(i >> 2, i & 3);
+    }
+
+    /**
+     * Leva o triângulo para clip com {@link #clipMatrix} e o envia para descarte/recorte. Com
+     * {@code viewShading} a cor é sombreada pela normal em {@link #viewMatrix}.
+     */
+    private void submitTriangle(Triangle t, boolean viewShading, RenderTarget target) {
+        double[] m = clipMatrix, c = clipTri;
+        int S = Clipper.STRIDE;
+        for (int k = 0; k < 3; k++) {
+            Vertex v = k == 0 ? t.v1 : k == 1 ? t.v2 : t.v3;
+            int o = k * S;
+            c[o] = v.x*m[0] + v.y*m[1] + v.z*m[2] + m[3];
+            c[o + 1] = v.x*m[4] + v.y*m[5] + v.z*m[6] + m[7];
+            c[o + 2] = v.x*m[8] + v.y*m[9] + v.z*m[10] + m[11];
+            c[o + 3] = v.x*m[12] + v.y*m[13] + v.z*m[14] + m[15];
+        }
+        if (isTextured(t)) {
+            TexturedTriangle tt = (TexturedTriangle) t;
+            c[4] = tt.uv1.u; c[5] = tt.uv1.v;
+            c[S + 4] = tt.uv2.u; c[S + 5] = tt.uv2.v;
+            c[2 * S + 4] = tt.uv3.u; c[2 * S + 5] = tt.uv3.v;
+            submitClipped(target, 0, tt.material.texture);
+        } else {
+            submitClipped(target, !viewShading ? shadeOf(t) : ColorUtils.shadeRGB(t.color, Math.abs(
+                    viewNormalZ(viewMatrix, t.v1.x, t.v1.y, t.v1.z, t.v2.x, t.v2.y, t.v2.z, t.v3.x, t.v3.y, t.v3.z))), null);
+        }
+    }
+
+    /**
+     * Versão de {@link #render(Mesh, Matrix4, RenderTarget)} para {@link IndexedMesh}: cada vértice
+     * compartilhado é projetado uma única vez.
+     */
+    public void render(IndexedMesh mesh, Matrix4 viewProjection, RenderTarget target) {
+        renderClip(mesh, viewProjection, null, target);
+    }
+
+    private void renderClip(IndexedMesh mesh, Matrix4 viewProjection, Matrix4 modelView, RenderTarget target) {
+        long start = System.nanoTime();
+        long allocBefore = measureAllocations ? allocatedSoFar() : -1;
+        stats.reset();
+
+        triangles.clear();
+        loadClipMatrix(viewProjection);
+        boolean viewShading = modelView != null;
+        if (viewShading) loadViewMatrix(modelView);
+        submitIndexed(mesh, viewShading, target);
+        rasterize(target);
+
+        finishStats(start, allocBefore, mesh.getTriangleCount());
     }
 
     /**
-     * Renderiza um TexturedTriangle (interpolando UVs por baricentro e amostrando a textura).
+     * Projeta os vértices da {@link IndexedMesh} com {@link #clipMatrix} (uma vez cada) e envia os
+     * triângulos para descarte/recorte; {@code viewShading} como em {@link #submitTriangle}.
      */
-    private void drawTexturedTriangle(BufferedImage img, double[] zBuffer, TexturedTriangle t) {
-        int width = img.getWidth(), height = img.getHeight();
+    private void submitIndexed(IndexedMesh mesh, boolean viewShading, RenderTarget target) {
+        float[] p = mesh.getPositions();
+        float[] uv = mesh.getUVs();
+        int[] idx = mesh.getIndices();
+        int vc = mesh.getVertexCount();
+        if (clipVerts.length < vc * 4) clipVerts = new double[vc * 4];
+        double[] cv = clipVerts;
+        double[] m = clipMatrix;
+        double m0 = m[0], m1 = m[1], m2 = m[2], m3 = m[3];
+        double m4 = m[4], m5 = m[5], m6 = m[6], m7 = m[7];
+        double m8 = m[8], m9 = m[9], m10 = m[10], m11 = m[11];
+        double m12 = m[12], m13 = m[13], m14 = m[14], m15 = m[15];
+        for (int v = 0; v < vc; v++) {
+            double x = p[v * 3], y = p[v * 3 + 1], z = p[v * 3 + 2];
+            cv[v * 4] = x*m0 + y*m1 + z*m2 + m3;
+            cv[v * 4 + 1] = x*m4 + y*m5 + z*m6 + m7;
+            cv[v * 4 + 2] = x*m8 + y*m9 + z*m10 + m11;
+            cv[v * 4 + 3] = x*m12 + y*m13 + z*m14 + m15;
+        }
 
-        int minX = (int) Math.max(0, Math.ceil(Math.min(t.v1.x, Math.min(t.v2.x, t.v3.x))));
-        int maxX = (int) Math.min(width - 1, Math.floor(Math.max(t.v1.x, Math.max(t.v2.x, t.v3.x))));
-        int minY = (int) Math.max(0, Math.ceil(Math.min(t.v1.y, Math.min(t.v2.y, t.v3.y))));
-        int maxY = (int) Math.min(height - 1, Math.floor(Math.max(t.v1.y, Math.max(t.v2.y, t.v3.y))));
+        double[] c = clipTri;
+        int S = Clipper.STRIDE;
+        List<IndexedMesh.Submesh> submeshes = mesh.getSubmeshes();
+        for (int si = 0, sn = submeshes.size(); si < sn; si++) { // sem iterador: chamado por instância
+            IndexedMesh.Submesh s = submeshes.get(si);
+            Material mat = s.material;
+            boolean textured = mat != null && mat.hasTexture();
+            Texture tex = textured ? mat.texture : null;
 
-        double area = (t.v1.y - t.v3.y) * (t.v2.x - t.v3.x) + (t.v2.y - t.v3.y) * (t.v3.x - t.v1.x);
+            for (int i = s.firstIndex, end = s.firstIndex + s.indexCount; i < end; i += 3) {
+                for (int k = 0; k < 3; k++) {
+                    int v = idx[i + k];
+                    System.arraycopy(cv, v * 4, c, k * S, 4);
+                    c[k * S + 4] = uv != null ? uv[v * 2] : 0;
+                    c[k * S + 5] = uv != null ? uv[v * 2 + 1] : 0;
+                }
+                if (textured) {
+                    submitClipped(target, 0, tex);
+                } else {
+                    int a = idx[i] * 3, b = idx[i + 1] * 3, d = idx[i + 2] * 3;
+                    double shade = Math.abs(!viewShading
+                            ? Triangle.normalZ(p[a], p[a + 1], p[a + 2], p[b], p[b + 1], p[b + 2], p[d], p[d + 1], p[d + 2])
+                            : viewNormalZ(viewMatrix, p[a], p[a + 1], p[a + 2], p[b], p[b + 1], p[b + 2], p[d], p[d + 1], p[d + 2]));
+                    submitClipped(target, ColorUtils.shadeRGB(s.color, shade), null);
+                }
+            }
+        }
+    }
 
-        Texture texture = t.material != null ? t.material.texture : null;
-        if (texture == null) {
-            drawTriangle(img, zBuffer, t, t.color);
+    // ====================== ESTÁGIO DE GEOMETRIA ======================
+
+    /**
+     * Descarte em coordenadas de tela: triângulo inteiro fora do alvo ou face descartada
+     * pelo {@link CullMode}. Atualiza os contadores.
+     */
+    private boolean rejectScreen(double x1, double y1, double x2, double y2, double x3, double y3,
+                                 int width, int height) {
+        if (Math.max(x1, Math.max(x2, x3)) < 0 || Math.min(x1, Math.min(x2, x3)) > width - 1
+                || Math.max(y1, Math.max(y2, y3)) < 0 || Math.min(y1, Math.min(y2, y3)) > height - 1) {
+            stats.trianglesOutside++;
+            return true;
+        }
+        // Com y para baixo, um triângulo anti-horário na tela tem área com sinal negativo
+        if (cullMode != CullMode.NONE && culled(-((x2 - x1) * (y3 - y1) - (x3 - x1) * (y2 - y1)))) {
+            stats.trianglesCulled++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * true se uma face com essa área (positiva = anti-horária com y para cima) deve ser descartada.
+     * Faces degeneradas (área 0) não são frontais.
+     */
+    private boolean culled(double ccwArea) {
+        if (cullMode == CullMode.NONE) return false;
+        boolean front = frontFace == FrontFace.CCW ? ccwArea > 0 : ccwArea < 0;
+        return cullMode == CullMode.BACK ? !front : front;
+    }
+
+    /**
+     * Descarta, faz culling e recorta o triângulo em {@link #clipTri} (coordenadas de clip + UV),
+     * e envia o resultado projetado para o buffer de triângulos.
+     */
+    private void submitClipped(RenderTarget target, int argb, Texture tex) {
+        double[] c = clipTri;
+        int S = Clipper.STRIDE;
+        int o1 = Clipper.outcode(c[0], c[1], c[2], c[3]);
+        int o2 = Clipper.outcode(c[S], c[S + 1], c[S + 2], c[S + 3]);
+        int o3 = Clipper.outcode(c[2 * S], c[2 * S + 1], c[2 * S + 2], c[2 * S + 3]);
+        if ((o1 & o2 & o3) != 0) {
+            stats.trianglesOutside++;
             return;
         }
+        if (cullMode != CullMode.NONE) {
+            // Orientação da projeção direto das coordenadas homogêneas (x, y, w): o sinal do
+            // determinante vale para a parte visível mesmo quando algum vértice tem w <= 0
+            double x1 = c[0], y1 = c[1], w1 = c[3];
+            double x2 = c[S], y2 = c[S + 1], w2 = c[S + 3];
+            double x3 = c[2 * S], y3 = c[2 * S + 1], w3 = c[2 * S + 3];
+            double det = x1 * (y2 * w3 - y3 * w2) - y1 * (x2 * w3 - x3 * w2) + w1 * (x2 * y3 - x3 * y2);
+            if (culled(det)) {
+                stats.trianglesCulled++;
+                return;
+            }
+        }
+        int width = target.getWidth(), height = target.getHeight();
+        if ((o1 | o2 | o3) == 0) {
+            emitProjected(c, 0, S, 2 * S, width, height, argb, tex);
+            return;
+        }
+
+        stats.trianglesClipped++;
+        int n = clipper.clip(c, o1 | o2 | o3);
+        double[] poly = clipper.result();
+        for (int k = 1; k + 1 < n; k++) {
+            emitProjected(poly, 0, k * S, (k + 1) * S, width, height, argb, tex);
+        }
+    }
+
+    /**
+     * Divisão por w e viewport de três vértices de {@code v} (offsets a, b, c).
+     */
+    private void emitProjected(double[] v, int a, int b, int c, int width, int height,
+                               int argb, Texture tex) {
+        double ia = 1.0 / v[a + 3], ib = 1.0 / v[b + 3], ic = 1.0 / v[c + 3];
+        double hw = width * 0.5, hh = height * 0.5;
+        int i = triangles.add(
+                (v[a] * ia + 1) * hw, (1 - v[a + 1] * ia) * hh, -v[a + 2] * ia,
+                (v[b] * ib + 1) * hw, (1 - v[b + 1] * ib) * hh, -v[b + 2] * ib,
+                (v[c] * ic + 1) * hw, (1 - v[c + 1] * ic) * hh, -v[c + 2] * ic,
+                argb);
+        if (tex != null) {
+            triangles.setTexture(i, tex,
+                    v[a + 4], v[a + 5], v[b + 4], v[b + 5], v[c + 4], v[c + 5]);
+            // Com w igual nos três vértices a interpolação afim já é a correta
+            if (perspectiveCorrect && (ia != ib || ia != ic)) triangles.setPerspective(i, ia, ib, ic);
+        }
+    }
 
-        BufferedImage texImg = texture.getLayer(0);
-        int tw = texImg.getWidth();
-        int th = texImg.getHeight();
-        int[] texPixels = texImg.getRGB(0, 0, tw, th, null, 0, tw);
-
-        for (int y = minY; y <= maxY; y++) {
-            for (int x = minX; x <= maxX; x++) {
-                double b1 = ((y - t.v3.y) * (t.v2.x - t.v3.x) + (t.v2.y - t.v3.y) * (t.v3.x - x)) / area;
-                double b2 = ((y - t.v1.y) * (t.v3.x - t.v1.x) + (t.v3.y - t.v1.y) * (t.v1.x - x)) / area;
-                double b3 = ((y - t.v2.y) * (t.v1.x - t.v2.x) + (t.v1.y - t.v2.y) * (t.v2.x - x)) / area;
-
-                if (b1 >= 0 && b2 >= 0 && b3 >= 0 && b1 <= 1 && b2 <= 1 && b3 <= 1) {
-                    double depth = b1 * t.v1.z + b2 * t.v2.z + b3 * t.v3.z;
-                    int zIndex = y * width + x;
-                    if (zBuffer[zIndex] < depth) {
-                        // UV interpolado
-                        double u = b1 * t.uv1.u + b2 * t.uv2.u + b3 * t.uv3.u;
-                        double v = b1 * t.uv1.v + b2 * t.uv2.v + b3 * t.uv3.v;
-
-                        // Wrap/clamp UV
-                        u = u - Math.floor(u);
-                        v = v - Math.floor(v);
-                        int px = (int)(u * (tw - 1));
-                        int py = (int)((1.0 - v) * (th - 1));
-                        px = Math.max(0, Math.min(tw - 1, px));
-                        py = Math.max(0, Math.min(th - 1, py));
-
-                        int rgb = texPixels[py * tw + px];
-                        img.setRGB(x, y, rgb);
-                        zBuffer[zIndex] = depth;
-                    }
+    private void emit(Triangle t) {
+        if (isTextured(t)) {
+            TexturedTriangle tt = (TexturedTriangle) t;
+            int i = triangles.add(t.v1.x, t.v1.y, t.v1.z, t.v2.x, t.v2.y, t.v2.z, t.v3.x, t.v3.y, t.v3.z, 0);
+            triangles.setTexture(i, tt.material.texture,
+                    tt.uv1.u, tt.uv1.v, tt.uv2.u, tt.uv2.v, tt.uv3.u, tt.uv3.v);
+        } else {
+            triangles.add(t.v1.x, t.v1.y, t.v1.z, t.v2.x, t.v2.y, t.v2.z, t.v3.x, t.v3.y, t.v3.z, shadeOf(t));
+        }
+    }
+
+    private void rasterize(RenderTarget target) {
+        stats.trianglesRasterized = triangles.count;
+        stats.pixels = (long) target.getWidth() * target.getHeight();
+        HierarchicalDepth hiZ = hierarchicalDepth ? target.getHierarchicalDepth() : null;
+        if (hiZ != null) hiZ.sync();
+        int[] order = frontToBack && triangles.count > 1 ? triangles.frontToBack() : null;
+        if (parallel && threadCount > 1) {
+            renderTiled(target, hiZ, order);
+        } else {
+            rasterizer.configure(textureFilter, mipmaps);
+            rasterizer.setHierarchicalDepth(hiZ);
+            rasterizer.resetCounters();
+            FrameBuffer fb = target.getColorBuffer();
+            DepthBuffer depth = target.getDepthBuffer();
+            int maxX = target.getWidth() - 1, maxY = target.getHeight() - 1;
+            int n = triangles.count;
+            if (depthPrePass) {
+                rasterizer.setDepthMode(Rasterizer.DEPTH_ONLY);
+                for (int k = 0; k < n; k++) {
+                    rasterizer.draw(triangles, order != null ? order[k] : k, fb, depth, 0, 0, maxX, maxY);
+                }
+                // Ao contrário: num empate de profundidade a cor final é a do primeiro triângulo, como no render normal
+                rasterizer.setDepthMode(Rasterizer.DEPTH_EQUAL);
+                for (int k = n - 1; k >= 0; k--) {
+                    rasterizer.draw(triangles, order != null ? order[k] : k, fb, depth, 0, 0, maxX, maxY);
+                }
+                rasterizer.setDepthMode(Rasterizer.DEPTH_TEST);
+            } else {
+                for (int k = 0; k < n; k++) {
+                    rasterizer.draw(triangles, order != null ? order[k] : k, fb, depth, 0, 0, maxX, maxY);
                 }
             }
+            stats.add(rasterizer);
+            rasterizer.setHierarchicalDepth(null);
+        }
+        triangles.clear();
+    }
+
+    private void finishStats(long start, long allocBefore, int submitted) {
+        stats.trianglesSubmitted = submitted;
+        stats.frameNanos = System.nanoTime() - start;
+        if (allocBefore >= 0) stats.allocatedBytes = allocatedSoFar() - allocBefore;
+    }
+
+    private long allocatedSoFar() {
+        if (!RenderStats.allocationSupported()) return -1;
+        long total = RenderStats.threadAllocatedBytes(Thread.currentThread().threadId());
+        for (Thread w : workers) {
+            if (w != null) total += RenderStats.threadAllocatedBytes(w.threadId());
         }
+        return total;
     }
 
+    private static boolean isTextured(Triangle t) {
+        if (!(t instanceof TexturedTriangle)) return false;
+        Material mat = ((TexturedTriangle) t).material;
+        return mat != null && mat.hasTexture();
+    }
 
     /**
-     * Amostragem por vizinho mais próximo. Converte UV (0..1) para pixel da textura.
-     * Inverte V (1 - v) para coordenadas de imagem (top->down).
+     * Componente z da normal unitária do triângulo depois da parte linear de {@code m} (16 valores,
+     * linha a linha); as arestas são transformadas e a normal sai do produto vetorial delas.
      */
-    private int sampleTextureNearest(BufferedImage tex, double u, double v) {
-        if (tex == null) return 0xFFFFFFFF; // branco se ausente
-        int tw = tex.getWidth();
-        int th = tex.getHeight();
-        // Wrap/clamp UV
-        u = u - Math.floor(u);
-        v = v - Math.floor(v);
-        if (Double.isNaN(u) || Double.isNaN(v)) return 0xFFFFFFFF;
-        int px = (int) (u * (tw - 1));
-        int py = (int) ((1.0 - v) * (th - 1)); // inverte v
-        px = Math.max(0, Math.min(tw - 1, px));
-        py = Math.max(0, Math.min(th - 1, py));
-        return tex.getRGB(px, py);
+    private static double viewNormalZ(double[] m, double x1, double y1, double z1, double x2, double y2, double z2,
+                                      double x3, double y3, double z3) {
+        double abx = x2 - x1, aby = y2 - y1, abz = z2 - z1;
+        double acx = x3 - x1, acy = y3 - y1, acz = z3 - z1;
+        double m0 = m[0], m1 = m[1], m2 = m[2];
+        double m4 = m[4], m5 = m[5], m6 = m[6];
+        double m8 = m[8], m9 = m[9], m10 = m[10];
+        return Triangle.normalZ(0, 0, 0,
+                abx*m0 + aby*m1 + abz*m2, abx*m4 + aby*m5 + abz*m6, abx*m8 + aby*m9 + abz*m10,
+                acx*m0 + acy*m1 + acz*m2, acx*m4 + acy*m5 + acz*m6, acx*m8 + acy*m9 + acz*m10);
+    }
+
+    private static int shadeOf(Triangle t) {
+        double shade = Math.abs(t.normalZ());
+        return ColorUtils.shadeRGB(t.color, shade);
+    }
+
+    // ====================== MODO PARALELO (TILES) ======================
+    private void renderTiled(RenderTarget target, HierarchicalDepth hiZ, int[] order) {
+        int width = target.getWidth(), height = target.getHeight();
+        int tilesX = (width + tileSize - 1) / tileSize;
+        int tilesY = (height + tileSize - 1) / tileSize;
+        int tileCount = tilesX * tilesY;
+        int n = triangles.count;
+        double[] p = triangles.pos;
+
+        if (tileRect.length < n * 4) tileRect = new int[Math.max(n * 4, tileRect.length * 3 / 2)];
+        if (binCount.length < tileCount + 1) {
+            binCount = new int[tileCount + 1];
+            binStart = new int[tileCount + 1];
+        }
+        Arrays.fill(binCount, 0, tileCount + 1, 0);
+
+        // Retângulo de tiles coberto por cada triângulo
+        for (int i = 0; i < n; i++) {
+            int o = i * 9;
+            int minX = (int) Math.max(0, Math.ceil(Math.min(p[o], Math.min(p[o + 3], p[o + 6]))));
+            int maxX = (int) Math.min(width - 1, Math.floor(Math.max(p[o], Math.max(p[o + 3], p[o + 6]))));
+            int minY = (int) Math.max(0, Math.ceil(Math.min(p[o + 1], Math.min(p[o + 4], p[o + 7]))));
+            int maxY = (int) Math.min(height - 1, Math.floor(Math.max(p[o + 1], Math.max(p[o + 4], p[o + 7]))));
+            if (minX > maxX || minY > maxY) {
+                tileRect[i * 4] = -1;
+                continue;
+            }
+
+            int tx0 = minX / tileSize, tx1 = maxX / tileSize;
+            int ty0 = minY / tileSize, ty1 = maxY / tileSize;
+            tileRect[i * 4] = tx0; tileRect[i * 4 + 1] = ty0;
+            tileRect[i * 4 + 2] = tx1; tileRect[i * 4 + 3] = ty1;
+            for (int ty = ty0; ty <= ty1; ty++)
+                for (int tx = tx0; tx <= tx1; tx++)
+                    binCount[ty * tilesX + tx + 1]++;
+        }
+
+        // Bins compactos (counting sort) preservando a ordem de desenho dos triângulos
+        for (int i = 0; i < tileCount; i++) binCount[i + 1] += binCount[i];
+        System.arraycopy(binCount, 0, binStart, 0, tileCount + 1);
+        if (bins.length < binCount[tileCount]) bins = new int[Math.max(binCount[tileCount], bins.length * 3 / 2)];
+        for (int k = 0; k < n; k++) {
+            int i = order != null ? order[k] : k;
+            if (tileRect[i * 4] < 0) continue;
+            for (int ty = tileRect[i * 4 + 1]; ty <= tileRect[i * 4 + 3]; ty++)
+                for (int tx = tileRect[i * 4]; tx <= tileRect[i * 4 + 2]; tx++)
+                    bins[binStart[ty * tilesX + tx]++] = i;
+        }
+
+        pool().invoke(new TileTask(target, hiZ, tilesX, 0, tileCount));
+    }
+
+    private final class TileTask extends RecursiveAction {
+        private final RenderTarget target;
+        private final HierarchicalDepth hiZ;
+        private final int tilesX, from, to;
+
+        TileTask(RenderTarget target, HierarchicalDepth hiZ, int tilesX, int from, int to) {
+            this.target = target; this.hiZ = hiZ; this.tilesX = tilesX; this.from = from; this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new TileTask(target, hiZ, tilesX, from, mid), new TileTask(target, hiZ, tilesX, mid, to));
+                return;
+            }
+            int tile = from;
+            int clipMinX = (tile % tilesX) * tileSize;
+            int clipMinY = (tile / tilesX) * tileSize;
+            int clipMaxX = Math.min(target.getWidth() - 1, clipMinX + tileSize - 1);
+            int clipMaxY = Math.min(target.getHeight() - 1, clipMinY + tileSize - 1);
+            FrameBuffer fb = target.getColorBuffer();
+            DepthBuffer depth = target.getDepthBuffer();
+            Rasterizer raster = tileRasterizer.get();
+            raster.configure(textureFilter, mipmaps);
+            raster.setHierarchicalDepth(hiZ);
+            raster.resetCounters();
+
+            int first = binCount[tile], end = binCount[tile + 1];
+            if (depthPrePass) {
+                raster.setDepthMode(Rasterizer.DEPTH_ONLY);
+                for (int b = first; b < end; b++) {
+                    raster.draw(triangles, bins[b], fb, depth, clipMinX, clipMinY, clipMaxX, clipMaxY);
+                }
+                raster.setDepthMode(Rasterizer.DEPTH_EQUAL);
+                for (int b = end - 1; b >= first; b--) {
+                    raster.draw(triangles, bins[b], fb, depth, clipMinX, clipMinY, clipMaxX, clipMaxY);
+                }
+                raster.setDepthMode(Rasterizer.DEPTH_TEST);
+            } else {
+                for (int b = first; b < end; b++) {
+                    raster.draw(triangles, bins[b], fb, depth, clipMinX, clipMinY, clipMaxX, clipMaxY);
+                }
+            }
+            stats.add(raster);
+            raster.setHierarchicalDepth(null);
+        }
     }
 }
@@ -0,0 +1,163 @@
+package org.nerdola.openj3d.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Nó de um grafo de cena: transformação local, filhos e, opcionalmente, uma mesh.
+ * <p>
+ * A mesh é só referenciada: vários nós podem apontar para a mesma {@link Mesh} (e a mesma
+ * {@link Bvh}) ou {@link IndexedMesh}, e {@link Renderer3D#render(SceneNode, Camera3D, RenderTarget)}
+ * transforma os vértices de cada instância na hora. Mil cópias de um parafuso custam mil nós, não
+ * mil cópias dos triângulos (compare com {@link Mesh#transformed(Matrix4)}).
+ * <p>
+ * A matriz de mundo (pai * local) fica em cache e só é recalculada quando a transformação do nó
+ * ou de um ancestral muda, ou quando o nó troca de pai; num frame sem movimento
+ * {@link #getWorldMatrix()} devolve a mesma instância. Não é thread-safe: altere o grafo na
+ * mesma thread que renderiza.
+ */
+public class SceneNode {
+
+    private final String name;
+    private SceneNode parent;
+    final List<SceneNode> children = new ArrayList<>();
+    private final List<SceneNode> childrenView = Collections.unmodifiableList(children);
+
+    private Matrix4 transform = Matrix4.identity();
+    private boolean visible = true;
+
+    // No máximo uma das duas (bvh só com mesh)
+    Mesh mesh;
+    Bvh bvh;
+    IndexedMesh indexedMesh;
+
+    // Cache (null = recalcular); se um nó está sujo, todos os descendentes também estão
+    private Matrix4 world;
+
+    public SceneNode() {
+        this(null);
+    }
+
+    public SceneNode(String name) {
+        this.name = name;
+    }
+
+    public String getName() { return name; }
+    public SceneNode getParent() { return parent; }
+
+    /** Filhos, na ordem de desenho (somente leitura; use {@link #addChild}/{@link #removeChild}). */
+    public List<SceneNode> getChildren() { return childrenView; }
+
+    // ----------------------------
+    // Hierarquia
+
+    /**
+     * Adiciona {@code child} como último filho, tirando-o do pai anterior. Lança
+     * IllegalArgumentException se {@code child} for este nó ou um ancestral dele.
+     */
+    public SceneNode addChild(SceneNode child) {
+        for (SceneNode n = this; n != null; n = n.parent) {
+            if (n == child) throw new IllegalArgumentException("Um nó não pode ser filho de si mesmo nem de um descendente.");
+        }
+        if (child.parent != null) child.parent.children.remove(child);
+        child.parent = this;
+        children.add(child);
+        child.invalidate();
+        return this;
+    }
+
+    /** Remove o filho (que vira raiz da própria subárvore); false se ele não é filho deste nó. */
+    public boolean removeChild(SceneNode child) {
+        if (child.parent != this) return false;
+        children.remove(child);
+        child.parent = null;
+        child.invalidate();
+        return true;
+    }
+
+    // ----------------------------
+    // Transformação
+
+    public Matrix4 getTransform() { return transform; }
+
+    /** Transformação local (relativa ao pai). */
+    public SceneNode setTransform(Matrix4 transform) {
+        if (transform == null) throw new IllegalArgumentException("Transformação não pode ser null.");
+        this.transform = transform;
+        invalidate();
+        return this;
+    }
+
+    /** Pai * local, até a raiz; em cache enquanto nada acima mudar. */
+    public Matrix4 getWorldMatrix() {
+        if (world == null) world = parent == null ? transform : parent.getWorldMatrix().multiply(transform);
+        return world;
+    }
+
+    private void invalidate() {
+        if (world == null) return; // descendentes já estão sujos
+        world = null;
+        for (int i = 0, n = children.size(); i < n; i++) children.get(i).invalidate();
+    }
+
+    // ----------------------------
+    // Conteúdo
+
+    public boolean isVisible() { return visible; }
+
+    /** Nó invisível não é desenhado, nem os seus descendentes. */
+    public SceneNode setVisible(boolean visible) {
+        this.visible = visible;
+        return this;
+    }
+
+    public Mesh getMesh() { return mesh; }
+    public Bvh getBvh() { return bvh; }
+    public IndexedMesh getIndexedMesh() { return indexedMesh; }
+    public boolean hasMesh() { return mesh != null || indexedMesh != null; }
+
+    /** Referencia {@code mesh} (null para nenhuma), desenhada triângulo a triângulo. */
+    public SceneNode setMesh(Mesh mesh) {
+        this.mesh = mesh;
+        this.bvh = null;
+        this.indexedMesh = null;
+        return this;
+    }
+
+    /**
+     * Referencia {@code mesh} com a sua {@link Bvh}: a instância inteira é descartada pela raiz da
+     * árvore quando fica fora do frustum, e as partes escondidas pelo que já está no alvo também.
+     * A mesma árvore serve para todas as instâncias da mesh.
+     */
+    public SceneNode setMesh(Mesh mesh, Bvh bvh) {
+        if (bvh.getTriangleCount() != mesh.getTriangles().size())
+            throw new IllegalArgumentException("A BVH tem " + bvh.getTriangleCount() + " triângulos; a mesh tem " + mesh.getTriangles().size() + ".");
+        this.mesh = mesh;
+        this.bvh = bvh;
+        this.indexedMesh = null;
+        return this;
+    }
+
+    /** Referencia {@code mesh} (null para nenhuma). */
+    public SceneNode setMesh(IndexedMesh mesh) {
+        this.mesh = null;
+        this.bvh = null;
+        this.indexedMesh = mesh;
+        return this;
+    }
+
+    /** Soma dos triângulos das instâncias desta subárvore (quantos haveria sem o compartilhamento). */
+    public long getInstancedTriangleCount() {
+        long count = indexedMesh != null ? indexedMesh.getTriangleCount() : mesh != null ? mesh.getTriangles().size() : 0;
+        for (int i = 0, n = children.size(); i < n; i++) count += children.get(i).getInstancedTriangleCount();
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return "SceneNode(" + (name != null ? name + ", " : "") + "children=" + children.size()
+                + (hasMesh() ? ", tris=" + (indexedMesh != null ? indexedMesh.getTriangleCount() : mesh.getTriangles().size()) : "")
+                + (bvh != null ? ", bvh" : "") + ")";
+    }
+}
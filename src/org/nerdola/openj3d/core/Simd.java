@@ -0,0 +1,71 @@
+package org.nerdola.openj3d.core;
+
+/**
+ * Seleção em tempo de execução do backend SIMD (Vector API).
+ * <p>
+ * O backend vetorial só fica disponível quando a JVM é iniciada com
+ * {@code --add-modules jdk.incubator.vector}; caso contrário tudo roda no caminho escalar.
+ * Quando disponível ele é ligado por padrão (desligue com {@code -Dopenj3d.simd=false}
+ * ou {@link #setEnabled(boolean)}).
+ * <p>
+ * Usado em {@link Matrix4#transform(float[], int, int, float[], int, int, int)} (vértices compactos,
+ * calculados em float). Os blocos de pixels do rasterizador com z-buffer FLOAT32 também têm um
+ * núcleo vetorial, mas ele fica desligado por padrão: com muitos blocos parciais e texturas o
+ * custo de montar as máscaras supera o ganho (ligue com {@code -Dopenj3d.simd.raster=true}
+ * ou {@link #setRasterEnabled(boolean)}).
+ */
+public final class Simd {
+
+    private static final VectorKernels KERNELS = load();
+    private static volatile boolean enabled = KERNELS != null
+            && !"false".equalsIgnoreCase(System.getProperty("openj3d.simd"));
+    private static volatile boolean raster = Boolean.getBoolean("openj3d.simd.raster");
+
+    private Simd() {}
+
+    private static VectorKernels load() {
+        try {
+            if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) return null;
+            Class<?> impl = Class.forName("org.nerdola.openj3d.core.VectorApiKernels");
+            return (VectorKernels) impl.getDeclaredConstructor().newInstance();
+        } catch (Throwable e) {
+            // módulo ausente ou CPU/JVM sem suporte: fica no caminho escalar
+            return null;
+        }
+    }
+
+    public static boolean isAvailable() { return KERNELS != null; }
+
+    public static boolean isEnabled() { return enabled; }
+
+    /**
+     * Liga/desliga o backend vetorial. Retorna o estado efetivo (false se indisponível).
+     */
+    public static boolean setEnabled(boolean on) {
+        enabled = on && KERNELS != null;
+        return enabled;
+    }
+
+    public static boolean isRasterEnabled() { return raster; }
+
+    /**
+     * Liga/desliga o núcleo vetorial do rasterizador (só tem efeito com o backend ativo).
+     */
+    public static void setRasterEnabled(boolean on) { raster = on; }
+
+    /**
+     * Lanes double usadas nos blocos de pixels e vértices por vetor float (0 se indisponível).
+     */
+    public static int getSpanLanes() { return KERNELS != null ? KERNELS.spanLanes() : 0; }
+    public static int getVertexLanes() { return KERNELS != null ? KERNELS.vertexLanes() : 0; }
+
+    /**
+     * Núcleos ativos, ou null para usar o caminho escalar.
+     */
+    static VectorKernels kernels() { return enabled ? KERNELS : null; }
+
+    /**
+     * Núcleos para o rasterizador, ou null se o backend ou o núcleo de pixels estiver desligado.
+     */
+    static VectorKernels rasterKernels() { return enabled && raster ? KERNELS : null; }
+}
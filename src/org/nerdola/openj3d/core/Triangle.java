@@ -18,4 +18,25 @@ public class Triangle {
         Vertex ac = v3.subtract(v1);
         return ab.cross(ac).normalize();
     }
+
+    /**
+     * Componente z da normal unitária, sem alocar vértices intermediários.
+     */
+    public double normalZ() {
+        return normalZ(v1.x, v1.y, v1.z, v2.x, v2.y, v2.z, v3.x, v3.y, v3.z);
+    }
+
+    /**
+     * Componente z da normal unitária do triângulo (x1,y1,z1), (x2,y2,z2), (x3,y3,z3).
+     */
+    public static double normalZ(double x1, double y1, double z1, double x2, double y2, double z2,
+                                 double x3, double y3, double z3) {
+        double abx = x2 - x1, aby = y2 - y1, abz = z2 - z1;
+        double acx = x3 - x1, acy = y3 - y1, acz = z3 - z1;
+        double nx = aby * acz - abz * acy;
+        double ny = abz * acx - abx * acz;
+        double nz = abx * acy - aby * acx;
+        double len = Math.sqrt(nx * nx + ny * ny + nz * nz);
+        return len == 0 ? 0 : nz / len;
+    }
 }
\ No newline at end of file
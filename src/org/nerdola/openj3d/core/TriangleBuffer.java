@@ -0,0 +1,127 @@
+package org.nerdola.openj3d.core;
+
+import java.util.Arrays;
+
+import org.nerdola.openj3d.io.Texture;
+
+/**
+ * Triângulos já prontos para rasterizar (coordenadas de tela, UV, cor sombreada e
+ * textura), em arrays paralelos reaproveitados entre frames.
+ */
+final class TriangleBuffer {
+
+    int count;
+    double[] pos = new double[0];  // 9 por triângulo: x,y,z dos três vértices
+    double[] uv = new double[0];   // 6 por triângulo
+    int[] color = new int[0];      // ARGB sombreado (triângulos sem textura)
+    Texture[] texture = new Texture[0]; // null se sem textura
+    double[] invW = new double[0]; // 3 por triângulo: 1/w de clip (UV com correção de perspectiva)
+    boolean[] perspective = new boolean[0];
+
+    // Ordenação da frente para trás (reaproveitados entre frames)
+    private int[] order = new int[0], sortTmp = new int[0], sortKeys = new int[0];
+    private final int[] histogram = new int[256];
+
+    void clear() {
+        Arrays.fill(texture, 0, count, null); // não segura texturas entre frames
+        count = 0;
+    }
+
+    void ensureCapacity(int n) {
+        if (color.length >= n) return;
+        int cap = Math.max(n, color.length * 3 / 2);
+        pos = Arrays.copyOf(pos, cap * 9);
+        uv = Arrays.copyOf(uv, cap * 6);
+        color = Arrays.copyOf(color, cap);
+        texture = Arrays.copyOf(texture, cap);
+        invW = Arrays.copyOf(invW, cap * 3);
+        perspective = Arrays.copyOf(perspective, cap);
+    }
+
+    /**
+     * Índices dos triângulos da frente para trás pelo vértice mais próximo (maior z). A
+     * profundidade é quantizada em 16 bits entre o triângulo mais perto e o mais longe do
+     * frame e ordenada por radix sort (duas passadas de 8 bits); a ordenação é estável, então
+     * empates mantêm a ordem de envio. O array é reaproveitado: vale até o próximo add/clear.
+     */
+    int[] frontToBack() {
+        int n = count;
+        if (order.length < n) {
+            int cap = Math.max(n, order.length * 3 / 2);
+            order = new int[cap];
+            sortTmp = new int[cap];
+            sortKeys = new int[cap];
+        }
+        double[] p = pos;
+        double near = Double.NEGATIVE_INFINITY, far = Double.POSITIVE_INFINITY;
+        for (int i = 0, o = 2; i < n; i++, o += 9) {
+            double z = Math.max(p[o], Math.max(p[o + 3], p[o + 6]));
+            if (z > near) near = z;
+            if (z < far) far = z;
+        }
+        double scale = near > far ? 0xFFFF / (near - far) : 0;
+        int[] keys = sortKeys;
+        for (int i = 0, o = 2; i < n; i++, o += 9) {
+            double k = (near - Math.max(p[o], Math.max(p[o + 3], p[o + 6]))) * scale;
+            keys[i] = k >= 0 ? (int) Math.min(0xFFFF, k) : 0xFFFF; // NaN vai para o fim
+            order[i] = i;
+        }
+        radixPass(order, sortTmp, n, 0);
+        radixPass(sortTmp, order, n, 8);
+        return order;
+    }
+
+    private void radixPass(int[] src, int[] dst, int n, int shift) {
+        int[] h = histogram, keys = sortKeys;
+        Arrays.fill(h, 0);
+        for (int k = 0; k < n; k++) h[(keys[src[k]] >>> shift) & 0xFF]++;
+        for (int b = 0, start = 0; b < 256; b++) {
+            int c = h[b];
+            h[b] = start;
+            start += c;
+        }
+        for (int k = 0; k < n; k++) {
+            int t = src[k];
+            dst[h[(keys[t] >>> shift) & 0xFF]++] = t;
+        }
+    }
+
+    /**
+     * Adiciona um triângulo sem textura e retorna seu índice.
+     */
+    int add(double x1, double y1, double z1, double x2, double y2, double z2,
+            double x3, double y3, double z3, int argb) {
+        ensureCapacity(count + 1);
+        int i = count++;
+        double[] p = pos;
+        int o = i * 9;
+        p[o] = x1; p[o + 1] = y1; p[o + 2] = z1;
+        p[o + 3] = x2; p[o + 4] = y2; p[o + 5] = z2;
+        p[o + 6] = x3; p[o + 7] = y3; p[o + 8] = z3;
+        color[i] = argb;
+        texture[i] = null;
+        perspective[i] = false;
+        return i;
+    }
+
+    /**
+     * Associa textura e UVs ao triângulo i.
+     */
+    void setTexture(int i, Texture tex,
+                    double u1, double v1, double u2, double v2, double u3, double v3) {
+        texture[i] = tex;
+        int o = i * 6;
+        uv[o] = u1; uv[o + 1] = v1;
+        uv[o + 2] = u2; uv[o + 3] = v2;
+        uv[o + 4] = u3; uv[o + 5] = v3;
+    }
+
+    /**
+     * Marca o triângulo i para interpolar UV com correção de perspectiva, dado 1/w de cada vértice.
+     */
+    void setPerspective(int i, double iw1, double iw2, double iw3) {
+        perspective[i] = true;
+        int o = i * 3;
+        invW[o] = iw1; invW[o + 1] = iw2; invW[o + 2] = iw3;
+    }
+}
@@ -0,0 +1,133 @@
+package org.nerdola.openj3d.core;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorShuffle;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link VectorKernels} com a Vector API ({@code jdk.incubator.vector}).
+ * Só pode ser carregada com {@code --add-modules jdk.incubator.vector}; use {@link Simd}.
+ */
+final class VectorApiKernels implements VectorKernels {
+
+    // Spans: baricentros em double, profundidade convertida para float com o mesmo número de lanes
+    private static final VectorSpecies<Double> D = DoubleVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Float> DF =
+            VectorSpecies.of(float.class, VectorShape.forBitSize(D.length() * Float.SIZE));
+    private static final DoubleVector IOTA = DoubleVector.fromArray(D, iota(D.length()), 0);
+
+    // Vértices: vetor float com o maior número de lanes sobre os dados intercalados x,y,z;
+    // cada vetor cobre VERTS vértices inteiros (as lanes que sobram não são gravadas)
+    private static final VectorSpecies<Float> F = FloatVector.SPECIES_PREFERRED;
+    private static final int VERTS = F.length() / 3;
+    private static final VectorMask<Float> XYZ = F.indexInRange(0, VERTS * 3);
+    // Lane j recebe a componente x, y ou z do vértice ao qual a lane j pertence
+    private static final VectorShuffle<Float> TO_X = component(0);
+    private static final VectorShuffle<Float> TO_Y = component(1);
+    private static final VectorShuffle<Float> TO_Z = component(2);
+
+    private static double[] iota(int n) {
+        double[] a = new double[n];
+        for (int i = 0; i < n; i++) a[i] = i;
+        return a;
+    }
+
+    private static VectorShuffle<Float> component(int c) {
+        int[] map = new int[F.length()];
+        for (int j = 0; j < map.length; j++) map[j] = j < VERTS * 3 ? j - j % 3 + c : j;
+        return VectorShuffle.fromArray(F, map, 0);
+    }
+
+    // Coluna col da matriz espalhada pelas lanes: lane j recebe m[(j % 3) * 4 + col]
+    private static FloatVector rows(double[] m, int col) {
+        float[] a = new float[F.length()];
+        for (int j = 0; j < VERTS * 3; j++) a[j] = (float) m[(j % 3) * 4 + col];
+        return FloatVector.fromArray(F, a, 0);
+    }
+
+    @Override
+    public int spanLanes() { return D.length(); }
+
+    @Override
+    public int vertexLanes() { return VERTS; }
+
+    @Override
+    public int transform(double[] m, boolean affine, float[] src, int srcOffset, float[] dst, int dstOffset, int count) {
+        if (VERTS < 2) return 0;
+        FloatVector cx = rows(m, 0), cy = rows(m, 1), cz = rows(m, 2), ct = rows(m, 3);
+        float m12 = (float) m[12], m13 = (float) m[13], m14 = (float) m[14], m15 = (float) m[15];
+        int lanes = F.length();
+        int i = 0;
+        for (int s = srcOffset, d = dstOffset; i + VERTS <= count && s + lanes <= src.length && d + lanes <= dst.length;
+             i += VERTS, s += VERTS * 3, d += VERTS * 3) {
+            FloatVector v = FloatVector.fromArray(F, src, s);
+            FloatVector x = v.rearrange(TO_X), y = v.rearrange(TO_Y), z = v.rearrange(TO_Z);
+            FloatVector out = x.mul(cx).add(y.mul(cy)).add(z.mul(cz)).add(ct);
+            if (!affine) {
+                FloatVector w = x.mul(m12).add(y.mul(m13)).add(z.mul(m14)).add(m15);
+                VectorMask<Float> divide = w.compare(VectorOperators.NE, 0f).and(w.compare(VectorOperators.NE, 1f));
+                out = out.blend(out.div(w), divide);
+            }
+            out.intoArray(dst, d, XYZ);
+        }
+        return i;
+    }
+
+    @Override
+    public long coverDepth(boolean inside, double c1, double c2, double c3,
+                           double dx1, double dx2, double dx3, double dy1, double dy2, double dy3,
+                           double z1, double z2, double z3, float[] depth, int index, int stride, int w, int h) {
+        return cover(false, inside, c1, c2, c3, dx1, dx2, dx3, dy1, dy2, dy3, z1, z2, z3, depth, index, stride, w, h);
+    }
+
+    @Override
+    public long coverDepthEqual(boolean inside, double c1, double c2, double c3,
+                                double dx1, double dx2, double dx3, double dy1, double dy2, double dy3,
+                                double z1, double z2, double z3, float[] depth, int index, int stride, int w, int h) {
+        return cover(true, inside, c1, c2, c3, dx1, dx2, dx3, dy1, dy2, dy3, z1, z2, z3, depth, index, stride, w, h);
+    }
+
+    private static long cover(boolean equal, boolean inside, double c1, double c2, double c3,
+                              double dx1, double dx2, double dx3, double dy1, double dy2, double dy3,
+                              double z1, double z2, double z3, float[] depth, int index, int stride, int w, int h) {
+        int lanes = D.length();
+        long passed = 0;
+        for (int r = 0; r < h; r++, c1 += dy1, c2 += dy2, c3 += dy3, index += stride) {
+            for (int k = 0; k < w; k += lanes) {
+                VectorMask<Double> m = D.indexInRange(k, w);
+                DoubleVector off = IOTA.add(k);
+                DoubleVector v1 = off.mul(dx1).add(c1);
+                DoubleVector v2 = off.mul(dx2).add(c2);
+                DoubleVector v3 = off.mul(dx3).add(c3);
+                if (!inside) {
+                    m = m.and(v1.compare(VectorOperators.GE, 0))
+                         .and(v2.compare(VectorOperators.GE, 0))
+                         .and(v3.compare(VectorOperators.GE, 0));
+                    if (!m.anyTrue()) continue;
+                }
+
+                DoubleVector dz = v1.mul(z1).add(v2.mul(z2)).add(v3.mul(z3));
+                FloatVector fz = (FloatVector) dz.convertShape(VectorOperators.D2F, DF, 0);
+                VectorMask<Float> fm = m.cast(DF);
+                int at = index + k;
+                // Carga sem máscara quando cabe no array (bem mais barata que a mascarada)
+                FloatVector stored = at + lanes <= depth.length
+                        ? FloatVector.fromArray(DF, depth, at)
+                        : FloatVector.fromArray(DF, depth, at, fm);
+                VectorMask<Float> pass;
+                if (equal) {
+                    pass = stored.compare(VectorOperators.EQ, fz).and(fm);
+                } else {
+                    pass = stored.compare(VectorOperators.LT, fz).and(fm);
+                    fz.intoArray(depth, at, pass);
+                }
+                passed |= pass.toLong() << (r * 8 + k);
+            }
+        }
+        return passed;
+    }
+}
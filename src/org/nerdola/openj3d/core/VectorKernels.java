@@ -0,0 +1,44 @@
+package org.nerdola.openj3d.core;
+
+/**
+ * Núcleos vetoriais opcionais (SIMD). A única implementação usa o módulo incubador
+ * {@code jdk.incubator.vector} e só é carregada por {@link Simd} quando o módulo existe.
+ */
+interface VectorKernels {
+
+    /**
+     * Número de pixels (lanes double) avaliados por instrução nos spans de rasterização.
+     */
+    int spanLanes();
+
+    /**
+     * Número de vértices (lanes float) transformados por instrução.
+     */
+    int vertexLanes();
+
+    /**
+     * Transforma vértices compactos (x,y,z) pela matriz 4x4 row-major {@code m}, em blocos de
+     * {@link #vertexLanes()} vértices. Retorna quantos vértices foram processados; o restante
+     * (menos de um bloco) fica para o laço escalar.
+     */
+    int transform(double[] m, boolean affine, float[] src, int srcOffset, float[] dst, int dstOffset, int count);
+
+    /**
+     * Avalia cobertura (baricentros &gt;= 0) e teste de profundidade FLOAT32 de um bloco de até
+     * 8x8 pixels ({@code w} x {@code h}) cujo canto superior esquerdo está em {@code index}.
+     * Os baricentros do canto são c1..c3 e avançam por dx1..dx3 a cada pixel e dy1..dy3 a cada
+     * linha. Grava a profundidade dos pixels aprovados e retorna a máscara de bits deles
+     * (bit {@code linha * 8 + coluna}).
+     */
+    long coverDepth(boolean inside, double c1, double c2, double c3,
+                    double dx1, double dx2, double dx3, double dy1, double dy2, double dy3,
+                    double z1, double z2, double z3, float[] depth, int index, int stride, int w, int h);
+
+    /**
+     * Como {@link #coverDepth}, mas aprova só os pixels cuja profundidade é igual à armazenada e
+     * não grava nada (passada de cor depois do pré-passe de profundidade).
+     */
+    long coverDepthEqual(boolean inside, double c1, double c2, double c3,
+                         double dx1, double dx2, double dx3, double dy1, double dy2, double dy3,
+                         double z1, double z2, double z3, float[] depth, int index, int stride, int w, int h);
+}
@@ -1,5 +1,8 @@
 package org.nerdola.openj3d.frame;
 
+import org.nerdola.openj3d.core.Camera3D;
+import org.nerdola.openj3d.core.Ray;
+
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
@@ -119,6 +122,14 @@ public class Window extends Canvas {
     public int getMouseY() { return mouseY; }
     public int getScrollDelta() { int d = scrollDelta; scrollDelta=0; return d; }
 
+    /**
+     * Raio de picking sob o mouse, para uma cena renderizada com {@code camera} num alvo do
+     * tamanho da janela e desenhado em (0, 0). Use com {@link org.nerdola.openj3d.core.Picker}.
+     */
+    public Ray getMouseRay(Camera3D camera) {
+        return camera.getRay(mouseX, mouseY, Math.max(1, getWidth()), Math.max(1, getHeight()));
+    }
+
     // ====================== SPRITES / COMPONENTES ======================
     public Window addSprite(Sprite s) { sprites.add(s); return this; }
     public Window addComponent(UIComponent c) { components.add(c); return this; }
@@ -0,0 +1,308 @@
+package org.nerdola.openj3d.io;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+
+import org.nerdola.openj3d.core.IndexedMesh;
+import org.nerdola.openj3d.core.Mesh;
+
+/**
+ * Cache de meshes e texturas carregadas, compartilhado entre loaders e threads.
+ * <p>
+ * A chave é o caminho absoluto + data de modificação + tamanho do arquivo (para texturas
+ * dentro de um .oj3d, o arquivo do zip + nome da entrada): editar o arquivo gera chave nova e a
+ * versão antiga sai pelo LRU. O limite é em bytes (arrays da mesh, 4 bytes por pixel de
+ * textura); ao passar dele as entradas usadas há mais tempo são descartadas. Cargas simultâneas
+ * da mesma chave fazem uma única leitura.
+ * <p>
+ * Meshes e texturas devolvidas são compartilhadas: não altere os arrays nem os materiais.
+ * <p>
+ * Com {@link #setDiskCache(File)} cada mesh lida do formato original também é gravada como
+ * .oj3d v2 no diretório; depois de reiniciar o processo ela vem de lá, sem parse.
+ */
+public class AssetCache implements ModelLoader {
+
+    public static final long DEFAULT_MAX_BYTES = 512L << 20;
+
+    /** Identidade de um arquivo (ou entrada de zip) numa versão específica. */
+    record Key(String path, long modified, long size) {
+
+        static Key of(File file) {
+            return new Key(file.toPath().toAbsolutePath().normalize().toString(), file.lastModified(), file.length());
+        }
+
+        static Key entry(File zip, String entry) {
+            Key k = of(zip);
+            return new Key(k.path + "!" + entry, k.modified, k.size);
+        }
+
+        /** A mesma imagem em outro layout é outra entrada. */
+        Key layout(Texture.Layout layout) {
+            return layout == Texture.Layout.ROW_MAJOR ? this : new Key(path + "#" + layout, modified, size);
+        }
+    }
+
+    private record Entry(Object value, long bytes) {}
+
+    private final long maxBytes;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Key, CompletableFuture<Object>> loading = new HashMap<>();
+    private long bytes;
+    private long hits, misses, evictions, diskHits;
+    private volatile File diskDir;
+    private volatile Texture.Layout textureLayout = Texture.Layout.ROW_MAJOR;
+
+    public AssetCache() {
+        this(DEFAULT_MAX_BYTES);
+    }
+
+    public AssetCache(long maxBytes) {
+        if (maxBytes <= 0) throw new IllegalArgumentException("maxBytes deve ser positivo.");
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Diretório para guardar as meshes pré-processadas (.oj3d v2) entre execuções (null desliga).
+     */
+    public void setDiskCache(File dir) {
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs())
+            throw new IllegalArgumentException("Diretório de cache inválido: " + dir);
+        this.diskDir = dir;
+    }
+
+    /** Layout das texturas dos modelos carregados pelo cache (padrão: ROW_MAJOR). */
+    @Override
+    public void setTextureLayout(Texture.Layout layout) {
+        if (layout == null) throw new IllegalArgumentException("textureLayout não pode ser null.");
+        this.textureLayout = layout;
+    }
+
+    // ----------------------------
+    // Meshes
+
+    @Override
+    public IndexedMesh loadIndexed(File file) throws IOException {
+        return loadIndexed(file, null);
+    }
+
+    /**
+     * Como {@link #loadIndexed(File)}; na falta, as texturas do modelo são decodificadas em
+     * {@code textureExecutor} (null = na thread chamadora).
+     */
+    public IndexedMesh loadIndexed(File file, Executor textureExecutor) throws IOException {
+        if (!file.exists()) throw new IOException("Arquivo não encontrado: " + file.getAbsolutePath());
+        Key key = Key.of(file);
+        return get(key, () -> readMesh(file, key, textureExecutor), AssetCache::meshBytes);
+    }
+
+    /**
+     * A mesh em cache convertida para {@link Mesh} (a conversão é refeita a cada chamada).
+     */
+    @Override
+    public Mesh load(File file) throws IOException {
+        return loadIndexed(file).toMesh();
+    }
+
+    private IndexedMesh readMesh(File file, Key key, Executor textureExecutor) throws IOException {
+        File dir = diskDir;
+        File cached = dir != null ? new File(dir, diskName(key)) : null;
+        if (cached != null && cached.isFile()) {
+            try {
+                IndexedMesh mesh = configure(new OpenJ3DModelLoader(), textureExecutor).loadIndexed(cached);
+                synchronized (this) { diskHits++; }
+                return mesh;
+            } catch (IOException e) {
+                System.err.println("Cache em disco inválido, relendo " + file.getName() + ": " + e.getMessage());
+            }
+        }
+
+        IndexedMesh mesh = configure(ModelLoader.forFile(file), textureExecutor).loadIndexed(file);
+        if (cached != null) {
+            // Grava num temporário e renomeia: outro processo nunca vê o arquivo pela metade
+            try {
+                File tmp = File.createTempFile("asset", ".tmp", dir);
+                try {
+                    new OpenJ3DModelWriter().write(mesh, tmp);
+                    Files.move(tmp.toPath(), cached.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } finally {
+                    Files.deleteIfExists(tmp.toPath());
+                }
+            } catch (IOException e) {
+                System.err.println("Falha ao gravar cache em disco de " + file.getName() + ": " + e.getMessage());
+            }
+        }
+        return mesh;
+    }
+
+    private ModelLoader configure(ModelLoader loader, Executor textureExecutor) {
+        loader.setTextureExecutor(textureExecutor);
+        loader.setAssetCache(this);
+        loader.setTextureLayout(textureLayout);
+        return loader;
+    }
+
+    private static String diskName(Key key) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            byte[] d = sha.digest((key.path + "|" + key.modified + "|" + key.size).getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < 16; i++) sb.append(String.format("%02x", d[i]));
+            return sb.append(".oj3d").toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static long meshBytes(IndexedMesh mesh) {
+        long b = mesh.getPositions().length * 4L + mesh.getIndices().length * 4L;
+        if (mesh.hasUVs()) b += mesh.getUVs().length * 4L;
+        if (mesh.hasNormals()) b += mesh.getNormals().length * 4L;
+        return b;
+    }
+
+    // ----------------------------
+    // Texturas
+
+    /**
+     * Textura da chave no layout pedido, lendo com {@code source} na falta. Null se a imagem
+     * não for reconhecida (não fica em cache).
+     */
+    Texture texture(Key key, Texture.Layout layout, TextureLoads.Source source) throws IOException {
+        return get(key.layout(layout), () -> {
+            BufferedImage img = source.read();
+            return img != null ? prepare(new Texture(img, layout)) : null;
+        }, AssetCache::textureBytes);
+    }
+
+    /** Decodifica (e converte para o layout) já na carga, fora da thread de render. */
+    static Texture prepare(Texture texture) {
+        texture.getPixels();
+        return texture;
+    }
+
+    private static long textureBytes(Texture texture) {
+        long b = texture.getPixels().length * 4L; // camada 0 já no layout (com preenchimento)
+        for (int i = 1; i < texture.getLayerCount(); i++) {
+            b += (long) texture.getLayer(i).getWidth() * texture.getLayer(i).getHeight() * 4;
+        }
+        return b;
+    }
+
+    // ----------------------------
+    // LRU
+
+    private interface Load<T> {
+        T load() throws IOException;
+    }
+
+    private interface Size<T> {
+        long of(T value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T get(Key key, Load<T> load, Size<T> size) throws IOException {
+        CompletableFuture<Object> pending;
+        boolean owner = false;
+        synchronized (this) {
+            Entry e = entries.get(key);
+            if (e != null) {
+                hits++;
+                return (T) e.value;
+            }
+            pending = loading.get(key);
+            if (pending == null) {
+                misses++;
+                pending = new CompletableFuture<>();
+                loading.put(key, pending);
+                owner = true;
+            } else {
+                hits++; // outra thread já está lendo
+            }
+        }
+
+        if (!owner) {
+            try {
+                return (T) pending.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Espera pelo cache interrompida");
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException) throw (IOException) cause;
+                throw new IOException(cause.getMessage(), cause);
+            }
+        }
+
+        T value;
+        try {
+            value = load.load();
+        } catch (Throwable t) {
+            synchronized (this) { loading.remove(key); }
+            pending.completeExceptionally(t);
+            throw t;
+        }
+        synchronized (this) {
+            loading.remove(key);
+            if (value != null) put(key, value, size.of(value));
+        }
+        pending.complete(value);
+        return value;
+    }
+
+    private void put(Key key, Object value, long size) {
+        if (size > maxBytes) return; // maior que o cache inteiro
+        Entry old = entries.put(key, new Entry(value, size));
+        if (old != null) bytes -= old.bytes;
+        bytes += size;
+        Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+        while (bytes > maxBytes && it.hasNext()) {
+            Map.Entry<Key, Entry> eldest = it.next();
+            if (eldest.getKey().equals(key)) continue;
+            bytes -= eldest.getValue().bytes;
+            it.remove();
+            evictions++;
+        }
+    }
+
+    /** Esvazia o cache em memória (o cache em disco é mantido). */
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    // ----------------------------
+    // Métricas
+
+    public synchronized long getHits() { return hits; }
+    public synchronized long getMisses() { return misses; }
+    public synchronized long getEvictions() { return evictions; }
+
+    /** Faltas atendidas pelo cache em disco (contadas também em {@link #getMisses()}). */
+    public synchronized long getDiskHits() { return diskHits; }
+
+    /** Bytes ocupados pelas entradas em memória. */
+    public synchronized long getBytes() { return bytes; }
+    public long getMaxBytes() { return maxBytes; }
+    public synchronized int getEntryCount() { return entries.size(); }
+
+    @Override
+    public synchronized String toString() {
+        return "AssetCache(entries=" + entries.size() + ", bytes=" + bytes + "/" + maxBytes
+                + ", hits=" + hits + ", misses=" + misses + ", evictions=" + evictions
+                + ", diskHits=" + diskHits + ")";
+    }
+}
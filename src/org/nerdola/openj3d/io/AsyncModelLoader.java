@@ -0,0 +1,136 @@
+package org.nerdola.openj3d.io;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.nerdola.openj3d.core.IndexedMesh;
+import org.nerdola.openj3d.core.Mesh;
+
+/**
+ * Carregamento assíncrono de modelos: cada arquivo é lido em uma tarefa do executor, com o
+ * loader do seu formato ({@link ModelLoader#forFile}), e as texturas referenciadas pelo modelo
+ * são decodificadas em paralelo, no mesmo executor, enquanto a geometria é lida.
+ * <p>
+ * Por padrão usa uma virtual thread por tarefa; para limitar o uso de CPU passe um pool fixo.
+ * Cancelar o {@link CompletableFuture} devolvido interrompe a carga (leitura de arquivo e
+ * espera pelas texturas), que termina com {@link java.util.concurrent.CancellationException}.
+ * <pre>
+ * try (AsyncModelLoader loader = new AsyncModelLoader()) {
+ *     CompletableFuture&lt;Mesh&gt; car = loader.load(new File("car.obj"));
+ *     CompletableFuture&lt;Mesh&gt; tree = loader.load(new File("tree.oj3d"));
+ *     Mesh carMesh = car.join();
+ * }
+ * </pre>
+ */
+public class AsyncModelLoader implements AutoCloseable {
+
+    private final ExecutorService executor;
+    private final boolean ownsExecutor;
+    private volatile AssetCache cache;
+    private volatile Texture.Layout textureLayout = Texture.Layout.ROW_MAJOR;
+
+    /** Uma virtual thread por modelo e por textura. */
+    public AsyncModelLoader() {
+        this(Executors.newVirtualThreadPerTaskExecutor(), true);
+    }
+
+    /**
+     * Usa {@code executor} para modelos e texturas; ele não é encerrado por {@link #close()}.
+     * Pode ser um pool de qualquer tamanho: texturas que o pool não começou a tempo são
+     * decodificadas pela própria tarefa do modelo.
+     */
+    public AsyncModelLoader(ExecutorService executor) {
+        this(executor, false);
+    }
+
+    private AsyncModelLoader(ExecutorService executor, boolean ownsExecutor) {
+        if (executor == null) throw new IllegalArgumentException("executor não pode ser null.");
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
+    }
+
+    /**
+     * Com cache, arquivos já carregados (mesma versão) voltam sem nova leitura e texturas são
+     * compartilhadas entre modelos (null = sem cache, padrão).
+     */
+    public void setAssetCache(AssetCache cache) { this.cache = cache; }
+
+    /**
+     * Layout das texturas carregadas sem cache (com cache vale o {@link AssetCache#setTextureLayout}).
+     */
+    public void setTextureLayout(Texture.Layout layout) {
+        if (layout == null) throw new IllegalArgumentException("textureLayout não pode ser null.");
+        this.textureLayout = layout;
+    }
+
+    public CompletableFuture<Mesh> load(File file) {
+        return submit(() -> {
+            AssetCache c = cache;
+            return c != null ? c.loadIndexed(file, executor).toMesh() : loader(file).load(file);
+        });
+    }
+
+    public CompletableFuture<IndexedMesh> loadIndexed(File file) {
+        return submit(() -> {
+            AssetCache c = cache;
+            return c != null ? c.loadIndexed(file, executor) : loader(file).loadIndexed(file);
+        });
+    }
+
+    /**
+     * Carrega todos os arquivos em paralelo; a lista de resultados segue a ordem de {@code files}.
+     * Se algum falhar o futuro combinado falha, e cancelá-lo cancela todas as cargas.
+     */
+    public CompletableFuture<List<Mesh>> loadAll(List<File> files) {
+        List<CompletableFuture<Mesh>> loads = new ArrayList<>(files.size());
+        for (File f : files) loads.add(load(f));
+        CompletableFuture<List<Mesh>> all = CompletableFuture.allOf(loads.toArray(new CompletableFuture<?>[0]))
+                .thenApply(v -> {
+                    List<Mesh> meshes = new ArrayList<>(loads.size());
+                    for (CompletableFuture<Mesh> l : loads) meshes.add(l.join());
+                    return meshes;
+                });
+        all.whenComplete((r, e) -> {
+            if (all.isCancelled()) for (CompletableFuture<Mesh> l : loads) l.cancel(true);
+        });
+        return all;
+    }
+
+    private ModelLoader loader(File file) {
+        ModelLoader loader = ModelLoader.forFile(file);
+        loader.setTextureExecutor(executor);
+        loader.setTextureLayout(textureLayout);
+        return loader;
+    }
+
+    private <T> CompletableFuture<T> submit(Callable<T> load) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> task = executor.submit(() -> {
+            try {
+                result.complete(load.call());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        // CompletableFuture.cancel não interrompe quem está executando; repassa para a tarefa
+        result.whenComplete((r, e) -> {
+            if (result.isCancelled()) task.cancel(true);
+        });
+        return result;
+    }
+
+    /**
+     * Encerra o executor padrão (cargas em andamento terminam). Um executor recebido no
+     * construtor continua sob responsabilidade de quem o criou.
+     */
+    @Override
+    public void close() {
+        if (ownsExecutor) executor.shutdown();
+    }
+}
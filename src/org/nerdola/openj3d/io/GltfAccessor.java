@@ -0,0 +1,186 @@
+package org.nerdola.openj3d.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
+import java.util.Arrays;
+
+/**
+ * Visão de um accessor glTF sobre o buffer já carregado (sem cópia): começa no byteOffset
+ * do bufferView + accessor e anda {@code stride} bytes por elemento. Os componentes são
+ * decodificados conforme {@code componentType} e {@code normalized}.
+ */
+final class GltfAccessor {
+
+    static final int BYTE = 5120;
+    static final int UNSIGNED_BYTE = 5121;
+    static final int SHORT = 5122;
+    static final int UNSIGNED_SHORT = 5123;
+    static final int UNSIGNED_INT = 5125;
+    static final int FLOAT = 5126;
+
+    // Tamanho dos blocos temporários usados para converter short/byte em int sem laço por byte
+    private static final int BLOCK = 4096;
+
+    final ByteBuffer data; // null = accessor sem bufferView (tudo zero)
+    final int count, componentType, components, stride;
+    final boolean normalized;
+
+    GltfAccessor(ByteBuffer data, int count, int componentType, boolean normalized, int components, int stride) {
+        this.data = data;
+        this.count = count;
+        this.componentType = componentType;
+        this.normalized = normalized;
+        this.components = components;
+        this.stride = stride;
+    }
+
+    boolean isPacked() { return stride == componentSize(componentType) * components; }
+
+    /**
+     * Os dados como {@link FloatBuffer} (visão, sem cópia). Só para FLOAT sem intercalação.
+     */
+    FloatBuffer asFloatBuffer() {
+        if (componentType != FLOAT || !isPacked() || data == null)
+            throw new IllegalStateException("Accessor não é FLOAT compacto");
+        return data.asFloatBuffer().limit(count * components);
+    }
+
+    /**
+     * Copia os {@code count * components} valores para {@code dst} a partir de {@code dstOffset},
+     * respeitando o stride. FLOAT compacto é copiado em bloco; tipos inteiros viram float
+     * (divididos pelo máximo do tipo se {@code normalized}).
+     */
+    void readFloats(float[] dst, int dstOffset) throws IOException {
+        readFloats(dst, dstOffset, count);
+    }
+
+    /**
+     * Como {@link #readFloats(float[], int)}, mas só os primeiros {@code elements} elementos.
+     */
+    void readFloats(float[] dst, int dstOffset, int elements) throws IOException {
+        int count = Math.min(elements, this.count);
+        int n = count * components;
+        if (data == null) {
+            Arrays.fill(dst, dstOffset, dstOffset + n, 0f);
+        } else if (componentType == FLOAT && isPacked()) {
+            data.asFloatBuffer().get(0, dst, dstOffset, n);
+        } else {
+            int size = componentSize(componentType);
+            for (int i = 0, o = dstOffset; i < count; i++) {
+                int base = i * stride;
+                for (int c = 0; c < components; c++) dst[o++] = component(base + c * size);
+            }
+        }
+    }
+
+    private float component(int at) throws IOException {
+        switch (componentType) {
+            case FLOAT: return data.getFloat(at);
+            case BYTE: {
+                byte v = data.get(at);
+                return normalized ? Math.max(v / 127f, -1f) : v;
+            }
+            case UNSIGNED_BYTE: {
+                int v = data.get(at) & 0xFF;
+                return normalized ? v / 255f : v;
+            }
+            case SHORT: {
+                short v = data.getShort(at);
+                return normalized ? Math.max(v / 32767f, -1f) : v;
+            }
+            case UNSIGNED_SHORT: {
+                int v = data.getShort(at) & 0xFFFF;
+                return normalized ? v / 65535f : v;
+            }
+            case UNSIGNED_INT: return Integer.toUnsignedLong(data.getInt(at));
+            default: throw new IOException("componentType " + componentType + " não suportado");
+        }
+    }
+
+    /**
+     * Lê um accessor de índices (SCALAR UNSIGNED_BYTE/SHORT/INT) para {@code dst} a partir de
+     * {@code dstOffset}, somando {@code baseVertex} a cada índice. Lança IOException se um índice
+     * não estiver em [0, vertexCount) (vértices da própria primitiva) ou se a quantidade não for
+     * múltipla de 3. Retorna quantos índices leu.
+     */
+    int readIndices(int[] dst, int dstOffset, int baseVertex, int vertexCount) throws IOException {
+        if (components != 1) throw new IOException("Accessor de índices deve ser SCALAR");
+        if (count % 3 != 0) throw new IOException("Quantidade de índices não é múltipla de 3: " + count);
+        if (data == null) {
+            if (count > 0 && vertexCount == 0) throw new IOException("Índice fora da faixa no glTF: 0 (primitiva sem vértices)");
+            Arrays.fill(dst, dstOffset, dstOffset + count, baseVertex);
+            return count;
+        }
+        if (!isPacked()) {
+            for (int i = 0; i < count; i++) dst[dstOffset + i] = checkIndex(index(i * stride), vertexCount) + baseVertex;
+            return count;
+        }
+        switch (componentType) {
+            case UNSIGNED_INT: {
+                data.asIntBuffer().get(0, dst, dstOffset, count);
+                // Valores >= 2^31 chegam negativos e também são rejeitados
+                for (int i = dstOffset, end = dstOffset + count; i < end; i++) dst[i] = checkIndex(dst[i], vertexCount) + baseVertex;
+                break;
+            }
+            case UNSIGNED_SHORT: {
+                ShortBuffer src = data.asShortBuffer();
+                short[] block = new short[Math.min(BLOCK, count)];
+                for (int start = 0; start < count; start += block.length) {
+                    int n = Math.min(block.length, count - start);
+                    src.get(start, block, 0, n);
+                    for (int i = 0, o = dstOffset + start; i < n; i++) dst[o + i] = checkIndex(block[i] & 0xFFFF, vertexCount) + baseVertex;
+                }
+                break;
+            }
+            case UNSIGNED_BYTE: {
+                byte[] block = new byte[Math.min(BLOCK, count)];
+                for (int start = 0; start < count; start += block.length) {
+                    int n = Math.min(block.length, count - start);
+                    data.get(start, block, 0, n);
+                    for (int i = 0, o = dstOffset + start; i < n; i++) dst[o + i] = checkIndex(block[i] & 0xFF, vertexCount) + baseVertex;
+                }
+                break;
+            }
+            default:
+                throw new IOException("componentType " + componentType + " inválido para índices");
+        }
+        return count;
+    }
+
+    private static int checkIndex(int index, int vertexCount) throws IOException {
+        if (index < 0 || index >= vertexCount) throw new IOException("Índice fora da faixa no glTF: " + Integer.toUnsignedLong(index));
+        return index;
+    }
+
+    private int index(int at) throws IOException {
+        switch (componentType) {
+            case UNSIGNED_BYTE: return data.get(at) & 0xFF;
+            case UNSIGNED_SHORT: return data.getShort(at) & 0xFFFF;
+            case UNSIGNED_INT: return data.getInt(at);
+            default: throw new IOException("componentType " + componentType + " inválido para índices");
+        }
+    }
+
+    static int componentCount(String type) {
+        switch (type) {
+            case "SCALAR": return 1;
+            case "VEC2": return 2;
+            case "VEC3": return 3;
+            case "VEC4": return 4;
+            case "MAT2": return 4;
+            case "MAT3": return 9;
+            case "MAT4": return 16;
+            default: return 1;
+        }
+    }
+
+    static int componentSize(int componentType) {
+        switch (componentType) {
+            case BYTE: case UNSIGNED_BYTE: return 1;
+            case SHORT: case UNSIGNED_SHORT: return 2;
+            default: return 4; // UNSIGNED_INT, FLOAT
+        }
+    }
+}
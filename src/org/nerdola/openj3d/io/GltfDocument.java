@@ -0,0 +1,145 @@
+package org.nerdola.openj3d.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Base64;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+/**
+ * Documento glTF 2.0 aberto (.gltf JSON ou .glb binário) com os buffers carregados sob
+ * demanda e guardados: cada buffer é lido/decodificado uma única vez, não importa quantos
+ * accessors apontem para ele.
+ * <p>
+ * Buffers em arquivo (.bin externo ou o chunk BIN do .glb) são mapeados em memória e
+ * expostos como {@link ByteBuffer} little-endian sem cópia; só URIs {@code data:} base64
+ * viram arrays na heap.
+ */
+final class GltfDocument {
+
+    private static final int GLB_MAGIC = 0x46546C67;      // "glTF"
+    private static final int CHUNK_JSON = 0x4E4F534A;     // "JSON"
+    private static final int CHUNK_BIN = 0x004E4942;      // "BIN\0"
+
+    private final File file;
+    private final JsonObject json;
+    private final ByteBuffer glbBin; // null em .gltf
+    private final ByteBuffer[] buffers;
+
+    private GltfDocument(File file, JsonObject json, ByteBuffer glbBin) {
+        this.file = file;
+        this.json = json;
+        this.glbBin = glbBin;
+        JsonArray list = json.getAsJsonArray("buffers");
+        this.buffers = new ByteBuffer[list != null ? list.size() : 0];
+    }
+
+    /**
+     * Abre o arquivo; o formato (.glb ou .gltf) é detectado pelo cabeçalho, não pela extensão.
+     */
+    static GltfDocument open(File file, Gson gson) throws IOException {
+        try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            map.order(ByteOrder.LITTLE_ENDIAN);
+            if (map.limit() >= 12 && map.getInt(0) == GLB_MAGIC) return openGlb(file, map, gson);
+            String text = StandardCharsets.UTF_8.decode(map).toString();
+            return new GltfDocument(file, gson.fromJson(text, JsonObject.class), null);
+        }
+    }
+
+    // Cabeçalho de 12 bytes + chunks (tamanho, tipo, dados alinhados em 4 bytes)
+    private static GltfDocument openGlb(File file, ByteBuffer map, Gson gson) throws IOException {
+        int version = map.getInt(4);
+        long length = Integer.toUnsignedLong(map.getInt(8));
+        if (version != 2) throw new IOException("GLB versão " + version + " não suportada");
+        if (length > map.limit()) throw new IOException("GLB truncado: " + map.limit() + " de " + length + " bytes");
+
+        JsonObject json = null;
+        ByteBuffer bin = null;
+        int pos = 12;
+        while (pos + 8 <= length) {
+            int chunkLength = map.getInt(pos);
+            int chunkType = map.getInt(pos + 4);
+            int data = pos + 8;
+            if (chunkLength < 0 || data + (long) chunkLength > length) throw new IOException("Chunk GLB inválido em " + pos);
+            if (chunkType == CHUNK_JSON && json == null) {
+                String text = StandardCharsets.UTF_8.decode(map.slice(data, chunkLength)).toString();
+                json = gson.fromJson(text, JsonObject.class);
+            } else if (chunkType == CHUNK_BIN && bin == null) {
+                bin = map.slice(data, chunkLength).order(ByteOrder.LITTLE_ENDIAN);
+            }
+            pos = data + ((chunkLength + 3) & ~3);
+        }
+        if (json == null) throw new IOException("GLB sem chunk JSON");
+        return new GltfDocument(file, json, bin);
+    }
+
+    JsonObject json() { return json; }
+
+    /**
+     * Conteúdo do buffer {@code index} (lido na primeira chamada, reaproveitado depois).
+     */
+    ByteBuffer buffer(int index) throws IOException {
+        ByteBuffer b = buffers[index];
+        if (b == null) {
+            b = loadBuffer(json.getAsJsonArray("buffers").get(index).getAsJsonObject());
+            buffers[index] = b;
+        }
+        return b;
+    }
+
+    private ByteBuffer loadBuffer(JsonObject buffer) throws IOException {
+        if (!buffer.has("uri")) {
+            // Em .glb o buffer sem URI é o chunk BIN
+            if (glbBin == null) throw new IOException("Buffer sem URI fora de um .glb");
+            return glbBin;
+        }
+        String uri = buffer.get("uri").getAsString();
+        if (uri.startsWith("data:")) {
+            String base64 = uri.substring(uri.indexOf(',') + 1);
+            return ByteBuffer.wrap(Base64.getDecoder().decode(base64)).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        File bufferFile = new File(file.getParentFile(), uri);
+        try (FileChannel ch = FileChannel.open(bufferFile.toPath(), StandardOpenOption.READ)) {
+            return ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()).order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    /**
+     * Visão tipada do accessor {@code index}.
+     */
+    GltfAccessor accessor(int index) throws IOException {
+        JsonObject accessor = json.getAsJsonArray("accessors").get(index).getAsJsonObject();
+        int count = accessor.get("count").getAsInt();
+        int componentType = accessor.get("componentType").getAsInt();
+        boolean normalized = accessor.has("normalized") && accessor.get("normalized").getAsBoolean();
+        int components = GltfAccessor.componentCount(accessor.get("type").getAsString());
+        int elementSize = GltfAccessor.componentSize(componentType) * components;
+        if (!accessor.has("bufferView")) {
+            // Sem bufferView o glTF define todos os valores como zero
+            return new GltfAccessor(null, count, componentType, normalized, components, elementSize);
+        }
+
+        JsonObject view = json.getAsJsonArray("bufferViews").get(accessor.get("bufferView").getAsInt()).getAsJsonObject();
+        ByteBuffer buffer = buffer(view.get("buffer").getAsInt());
+        int viewOffset = view.has("byteOffset") ? view.get("byteOffset").getAsInt() : 0;
+        int viewLength = view.get("byteLength").getAsInt();
+        int offset = accessor.has("byteOffset") ? accessor.get("byteOffset").getAsInt() : 0;
+        int stride = view.has("byteStride") ? view.get("byteStride").getAsInt() : elementSize;
+
+        long needed = count == 0 ? 0 : offset + (long) stride * (count - 1) + elementSize;
+        if (viewOffset + (long) viewLength > buffer.limit() || needed > viewLength)
+            throw new IOException("Accessor " + index + " excede o bufferView/buffer");
+
+        ByteBuffer data = buffer.slice(viewOffset + offset, viewLength - offset).order(ByteOrder.LITTLE_ENDIAN);
+        return new GltfAccessor(data, count, componentType, normalized, components, stride);
+    }
+}
@@ -2,7 +2,10 @@ package org.nerdola.openj3d.io;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.Executor;
 
+import org.nerdola.openj3d.core.IndexedMesh;
 import org.nerdola.openj3d.core.Mesh;
 
 /**
@@ -10,4 +13,41 @@ import org.nerdola.openj3d.core.Mesh;
  */
 public interface ModelLoader {
     Mesh load(File file) throws IOException;
-}
\ No newline at end of file
+
+    /**
+     * Carrega o modelo como {@link IndexedMesh} (arrays empacotados, vértices compartilhados).
+     * A implementação padrão converte o resultado de {@link #load(File)}.
+     */
+    default IndexedMesh loadIndexed(File file) throws IOException {
+        return IndexedMesh.fromMesh(load(file));
+    }
+
+    /**
+     * Executor para decodificar as texturas referenciadas pelo modelo em paralelo (null = na
+     * thread do loader). Loaders que não carregam texturas ignoram.
+     */
+    default void setTextureExecutor(Executor executor) {}
+
+    /**
+     * Cache para compartilhar texturas já decodificadas (entre materiais e entre modelos).
+     * Loaders que não carregam texturas ignoram.
+     */
+    default void setAssetCache(AssetCache cache) {}
+
+    /**
+     * Layout de memória das texturas criadas pelo loader ({@link Texture.Layout}); a conversão é
+     * feita uma vez, durante a carga. Loaders que não carregam texturas ignoram.
+     */
+    default void setTextureLayout(Texture.Layout layout) {}
+
+    /**
+     * Loader novo para o formato do arquivo, pela extensão (.obj, .gltf/.glb, .oj3d).
+     */
+    static ModelLoader forFile(File file) {
+        String name = file.getName().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".obj")) return new ObjLoader();
+        if (name.endsWith(".gltf") || name.endsWith(".glb")) return new GLTFLoader();
+        if (name.endsWith(".oj3d")) return new OpenJ3DModelLoader();
+        throw new IllegalArgumentException("Formato de modelo não suportado: " + file.getName());
+    }
+}
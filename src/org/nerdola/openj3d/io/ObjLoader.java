@@ -1,109 +1,459 @@
 package org.nerdola.openj3d.io;
 
 import java.awt.Color;
-import java.awt.image.BufferedImage;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import javax.imageio.ImageIO;
 
+import org.nerdola.openj3d.core.IndexedMesh;
 import org.nerdola.openj3d.core.Mesh;
-import org.nerdola.openj3d.core.Triangle;
-import org.nerdola.openj3d.core.Vertex;
 
 /**
  * Carrega modelos 3D no formato OBJ com suporte a materiais e texturas.
- * Agora com:
- * - Triangulação automática de faces com mais de 3 vértices
- * - Fallback de UV
- * - Logs de avisos sobre faces sem textura
+ * <p>
+ * O arquivo é mapeado em memória e dividido em trechos (em quebras de linha) que são
+ * lidos em paralelo por {@link ObjParser}, direto dos bytes; os trechos são então juntados
+ * em uma {@link IndexedMesh} (cada combinação v/vt/vn distinta vira um vértice).
+ * <ul>
+ * <li>Triangulação automática de faces com mais de 3 vértices</li>
+ * <li>Índices negativos (relativos) e normais {@code vn}</li>
+ * <li>Faces sem UV recebem (0,0); avisos são somados e exibidos uma vez por arquivo</li>
+ * </ul>
  */
 public class ObjLoader implements ModelLoader {
 
+    // Trechos menores que isso não compensam uma tarefa separada
+    private static final long MIN_CHUNK = 4L << 20;
+    // Cada trecho é um único MappedByteBuffer (limite de 2 GB)
+    private static final long MAX_CHUNK = 1L << 30;
+
 	private double SCALE = 400.0;
-	
+    private boolean parallel = true;
+    private Executor textureExecutor;
+    private AssetCache assetCache;
+    private Texture.Layout textureLayout = Texture.Layout.ROW_MAJOR;
+
+    // Métricas da última carga
+    private long lastBytes, lastNanos, lastTotalNanos;
+    private long mtlNanos; // tempo em loadMtl na carga atual (descontado de lastNanos)
+    private int lastWarnings;
+
     @Override
     public Mesh load(File objFile) throws IOException {
-        List<Vertex> vertices = new ArrayList<>();
-        List<UV> uvs = new ArrayList<>();
-        List<Triangle> triangles = new ArrayList<>();
-
-        Map<String, Material> materials = new HashMap<>();
-        Material currentMaterial = new Material("default");
+        return loadIndexed(objFile).toMesh();
+    }
 
-        BufferedReader reader = new BufferedReader(new FileReader(objFile));
+    @Override
+    public IndexedMesh loadIndexed(File objFile) throws IOException {
+        long start = System.nanoTime();
+        mtlNanos = 0;
         File baseDir = objFile.getParentFile();
+        TextureLoads textures = new TextureLoads(textureExecutor, assetCache, textureLayout);
+        IndexedMesh mesh;
+        List<ObjParser.Chunk> chunks;
+        long size, parsed;
+        try (textures) {
+            Map<String, Material> materials = new HashMap<>();
+            Set<String> libs = new HashSet<>();
+            try (FileChannel ch = FileChannel.open(objFile.toPath(), StandardOpenOption.READ)) {
+                size = ch.size();
+                // "mtllib" costuma vir no topo: os materiais (e a decodificação das texturas, com
+                // executor) começam antes da geometria
+                for (String lib : headMtllibs(ch, size)) {
+                    if (libs.add(lib)) materials.putAll(timedMtl(new File(baseDir, lib), baseDir, textures));
+                }
+                chunks = parseChunks(ch, size);
+            }
+            for (ObjParser.Chunk c : chunks) {
+                for (String lib : c.mtllibs) {
+                    if (libs.add(lib)) materials.putAll(timedMtl(new File(baseDir, lib), baseDir, textures));
+                }
+            }
+
+            lastWarnings = 0;
+            mesh = merge(chunks, materials);
+            parsed = System.nanoTime();
+            textures.await();
+        }
+
+        lastBytes = size;
+        lastNanos = parsed - start - mtlNanos;
+        lastTotalNanos = System.nanoTime() - start;
+        int withoutUV = 0, invalid = 0;
+        for (ObjParser.Chunk c : chunks) {
+            withoutUV += c.facesWithoutUV;
+            invalid += c.invalidLines;
+        }
+        lastWarnings += withoutUV + invalid;
+        if (withoutUV > 0) System.out.println("⚠ " + withoutUV + " faces sem UV, usando (0,0).");
+        if (invalid > 0) System.out.println("⚠ " + invalid + " linhas/faces inválidas ignoradas.");
+        System.out.println("✅ OBJ carregado: " + mesh.getVertexCount() + " vértices, "
+                + mesh.getTriangleCount() + " triângulos, " + String.format("%.1f MB/s", getLastThroughputMBps()) + ".");
+        return mesh;
+    }
+
+    /**
+     * Liga/desliga a leitura em paralelo dos trechos do arquivo (padrão: ligada).
+     */
+    public void setParallel(boolean parallel) { this.parallel = parallel; }
+
+    /**
+     * Decodifica as texturas do MTL neste executor, em paralelo com a leitura da geometria
+     * (null = na thread do loader, padrão).
+     */
+    @Override
+    public void setTextureExecutor(Executor executor) { this.textureExecutor = executor; }
+
+    /** Texturas já decodificadas são reaproveitadas do cache (null = sem cache, padrão). */
+    @Override
+    public void setAssetCache(AssetCache cache) { this.assetCache = cache; }
+
+    /** Layout das texturas carregadas (padrão: {@link Texture.Layout#ROW_MAJOR}). */
+    @Override
+    public void setTextureLayout(Texture.Layout layout) {
+        if (layout == null) throw new IllegalArgumentException("textureLayout não pode ser null.");
+        this.textureLayout = layout;
+    }
+
+    /** Bytes lidos na última carga. */
+    public long getLastBytes() { return lastBytes; }
+
+    /**
+     * Duração da última carga em nanossegundos: leitura + montagem da mesh, sem o MTL (nem a
+     * decodificação das texturas que ele dispara na thread do loader) e sem a espera pelas
+     * texturas do executor.
+     */
+    public long getLastLoadNanos() { return lastNanos; }
+
+    /** Duração total da última carga em nanossegundos, incluindo MTL e texturas. */
+    public long getLastTotalNanos() { return lastTotalNanos; }
+
+    /** Vazão da leitura do .obj na última carga em MB/s (10^6 bytes por segundo, sobre {@link #getLastLoadNanos()}). */
+    public double getLastThroughputMBps() {
+        return lastNanos > 0 ? lastBytes / 1e6 / (lastNanos / 1e9) : 0;
+    }
+
+    /** Avisos da última carga (faces sem UV + linhas inválidas). */
+    public int getLastWarningCount() { return lastWarnings; }
+
+    // ----------------------------
+    // Leitura em trechos
+
+    private List<ObjParser.Chunk> parseChunks(FileChannel ch, long size) throws IOException {
+        int workers = parallel ? ForkJoinPool.getCommonPoolParallelism() : 1;
+        long target = Math.min(MAX_CHUNK, Math.max(MIN_CHUNK, size / Math.max(1, workers * 4L)));
+
+        // Limites dos trechos sempre logo após um '\n'
+        List<long[]> ranges = new ArrayList<>();
+        long from = 0;
+        while (from < size) {
+            long to = from + target >= size ? size : nextLineStart(ch, from + target, size);
+            ranges.add(new long[]{from, to});
+            from = to;
+        }
+
+        List<Callable<ObjParser.Chunk>> tasks = new ArrayList<>(ranges.size());
+        for (long[] r : ranges) {
+            tasks.add(() -> {
+                MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, r[0], r[1] - r[0]);
+                return ObjParser.parse(buf, 0, buf.limit());
+            });
+        }
+
+        List<ObjParser.Chunk> chunks = new ArrayList<>(tasks.size());
+        if (!parallel || tasks.size() == 1) {
+            for (Callable<ObjParser.Chunk> t : tasks) {
+                try {
+                    chunks.add(t.call());
+                } catch (IOException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new IOException("Falha ao ler OBJ: " + e.getMessage(), e);
+                }
+            }
+            return chunks;
+        }
+        for (Future<ObjParser.Chunk> f : ForkJoinPool.commonPool().invokeAll(tasks)) {
+            try {
+                chunks.add(f.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Leitura do OBJ interrompida", e);
+            } catch (ExecutionException e) {
+                throw new IOException("Falha ao ler OBJ: " + e.getCause().getMessage(), e.getCause());
+            }
+        }
+        return chunks;
+    }
+
+    // Bytes do início do arquivo varridos atrás de "mtllib" antes da leitura completa
+    private static final int HEAD_SCAN = 64 << 10;
+
+    private static List<String> headMtllibs(FileChannel ch, long size) throws IOException {
+        if (size == 0) return List.of();
+        MappedByteBuffer head = ch.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, HEAD_SCAN));
+        int end = head.limit();
+        if (end < size) {
+            // Só linhas completas
+            while (end > 0 && head.get(end - 1) != '\n') end--;
+        }
+        return ObjParser.parse(head, 0, end).mtllibs;
+    }
+
+    private static long nextLineStart(FileChannel ch, long pos, long size) throws IOException {
+        ByteBuffer probe = ByteBuffer.allocate(8192);
+        while (pos < size) {
+            probe.clear();
+            int n = ch.read(probe, pos);
+            if (n <= 0) break;
+            for (int i = 0; i < n; i++) {
+                if (probe.get(i) == '\n') return pos + i + 1;
+            }
+            pos += n;
+        }
+        return size;
+    }
+
+    // ----------------------------
+    // Junção dos trechos
+
+    private IndexedMesh merge(List<ObjParser.Chunk> chunks, Map<String, Material> materials) {
+        int n = chunks.size();
+        int[] posBase = new int[n], uvBase = new int[n], nrmBase = new int[n];
+        int posTotal = 0, uvTotal = 0, nrmTotal = 0;
+        boolean anyT = false, anyN = false;
+        for (int c = 0; c < n; c++) {
+            ObjParser.Chunk ch = chunks.get(c);
+            posBase[c] = posTotal;
+            uvBase[c] = uvTotal;
+            nrmBase[c] = nrmTotal;
+            posTotal += ch.positions.size() / 3;
+            uvTotal += ch.uvs.size() / 2;
+            nrmTotal += ch.normals.size() / 3;
+            anyT |= ch.hasT;
+            anyN |= ch.hasN;
+        }
+        boolean useUV = anyT && uvTotal > 0;
+        boolean useNormals = anyN && nrmTotal > 0;
+
+        // Sem vt/vn nas faces cada posição já é um vértice; senão cada trio v/vt/vn distinto vira um
+        boolean direct = !useUV && !useNormals;
+        CornerTable table = direct ? null : new CornerTable(posTotal);
+        FloatListOut pos = new FloatListOut(direct ? posTotal * 3 : posTotal * 3 / 2 + 16);
+        FloatListOut uv = useUV ? new FloatListOut(posTotal * 2) : null;
+        FloatListOut nrm = useNormals ? new FloatListOut(posTotal * 3) : null;
+        if (direct) {
+            for (ObjParser.Chunk ch : chunks) {
+                for (int i = 0; i < ch.positions.size(); i += 3) addPosition(pos, ch, i);
+            }
+        }
+
+        int triTotal = 0;
+        for (ObjParser.Chunk ch : chunks) triTotal += ch.triangleCount();
+        int[] indices = new int[triTotal * 3];
+        int written = 0;
+
+        List<IndexedMesh.Submesh> submeshes = new ArrayList<>();
+        Material current = material(materials, "default");
+        int runFirst = 0;
+        int invalid = 0;
+        int[] tri = new int[3];
+
+        for (int c = 0; c < n; c++) {
+            ObjParser.Chunk ch = chunks.get(c);
+            int run = 0;
+            for (int t = 0, tc = ch.triangleCount(); t < tc; t++) {
+                while (run < ch.runStart.size() && ch.runStart.get(run) <= t) {
+                    Material next = material(materials, ch.runMaterial.get(run++));
+                    if (next != current) {
+                        if (written > runFirst) submeshes.add(new IndexedMesh.Submesh(current, runFirst, written - runFirst));
+                        current = next;
+                        runFirst = written;
+                    }
+                }
 
-        String line;
-        while ((line = reader.readLine()) != null) {
-            line = line.trim();
-            if (line.startsWith("v ")) {
-                String[] parts = line.split("\\s+");
-                vertices.add(new Vertex(
-                        Double.parseDouble(parts[1]) * SCALE,
-                        -Double.parseDouble(parts[2]) * SCALE,
-                        Double.parseDouble(parts[3]) * SCALE
-                ));
-            } else if (line.startsWith("vt ")) {
-                String[] parts = line.split("\\s+");
-                uvs.add(new UV(
-                        Double.parseDouble(parts[1]),
-                        Double.parseDouble(parts[2])
-                ));
-            } else if (line.startsWith("usemtl ")) {
-                String name = line.substring(7).trim();
-                currentMaterial = materials.getOrDefault(name, new Material(name));
-            } else if (line.startsWith("mtllib ")) {
-                String mtlName = line.substring(7).trim();
-                File mtlFile = new File(baseDir, mtlName);
-                materials.putAll(loadMtl(mtlFile, baseDir));
-            } else if (line.startsWith("f ")) {
-                String[] parts = line.split("\\s+");
-                if (parts.length < 4) continue; // ignora linhas inválidas
-
-                int[] vIndices = new int[parts.length - 1];
-                int[] tIndices = new int[parts.length - 1];
-
-                for (int i = 1; i < parts.length; i++) {
-                    String[] vt = parts[i].split("/");
-                    vIndices[i - 1] = Integer.parseInt(vt[0]) - 1;
-                    if (vt.length > 1 && !vt[1].isEmpty())
-                        tIndices[i - 1] = Integer.parseInt(vt[1]) - 1;
-                    else {
-                        tIndices[i - 1] = 0; // fallback UV
-                        System.out.println("⚠ Face sem UV detectada, usando (0,0).");
+                boolean ok = true;
+                for (int k = 0; k < 3 && ok; k++) {
+                    int corner = t * 3 + k;
+                    int v = ObjParser.resolve(ch.cornerV.get(corner), posBase[c]);
+                    int vt = useUV && ch.hasT ? ObjParser.resolve(ch.cornerT.get(corner), uvBase[c]) : ObjParser.ABSENT;
+                    int vn = useNormals && ch.hasN ? ObjParser.resolve(ch.cornerN.get(corner), nrmBase[c]) : ObjParser.ABSENT;
+                    if (v < 0 || v >= posTotal || vt >= uvTotal || vn >= nrmTotal || vt < ObjParser.ABSENT || vn < ObjParser.ABSENT) {
+                        ok = false;
+                        break;
                     }
+                    tri[k] = direct ? v : table.vertex(v, vt, vn, chunks, posBase, uvBase, nrmBase, pos, uv, nrm);
+                }
+                if (!ok) {
+                    invalid++;
+                    continue;
+                }
+                indices[written++] = tri[0];
+                indices[written++] = tri[1];
+                indices[written++] = tri[2];
+            }
+            // Materiais trocados depois do último triângulo do trecho valem para o próximo
+            while (run < ch.runStart.size()) {
+                Material next = material(materials, ch.runMaterial.get(run++));
+                if (next != current) {
+                    if (written > runFirst) submeshes.add(new IndexedMesh.Submesh(current, runFirst, written - runFirst));
+                    current = next;
+                    runFirst = written;
                 }
+            }
+        }
+        if (written > runFirst) submeshes.add(new IndexedMesh.Submesh(current, runFirst, written - runFirst));
+        if (invalid > 0) {
+            System.out.println("⚠ " + invalid + " triângulos com índices fora do intervalo ignorados.");
+            lastWarnings += invalid;
+        }
+
+        return new IndexedMesh(pos.toArray(), uv != null ? uv.toArray() : null, nrm != null ? nrm.toArray() : null,
+                written == indices.length ? indices : Arrays.copyOf(indices, written), submeshes);
+    }
+
+    private void addPosition(FloatListOut pos, ObjParser.Chunk ch, int i) {
+        // Mesma convenção do carregador original: escala e y invertido
+        pos.add((float) (ch.positions.get(i) * SCALE));
+        pos.add((float) (-ch.positions.get(i + 1) * SCALE));
+        pos.add((float) (ch.positions.get(i + 2) * SCALE));
+    }
+
+    private static Material material(Map<String, Material> materials, String name) {
+        return materials.computeIfAbsent(name, Material::new);
+    }
+
+    /**
+     * Tabela hash (endereçamento aberto) de trios v/vt/vn absolutos para índice de vértice.
+     */
+    private final class CornerTable {
+        private int[] keyV, keyT, keyN, value;
+        private int mask, size;
+
+        CornerTable(int expected) {
+            int cap = Integer.highestOneBit(Math.max(16, expected * 2 - 1)) << 1;
+            allocate(cap);
+        }
 
-                // Triangula faces com mais de 3 vértices
-                for (int i = 1; i < vIndices.length - 1; i++) {
-                    Vertex v1 = vertices.get(vIndices[0]);
-                    Vertex v2 = vertices.get(vIndices[i]);
-                    Vertex v3 = vertices.get(vIndices[i + 1]);
+        private void allocate(int cap) {
+            keyV = new int[cap];
+            keyT = new int[cap];
+            keyN = new int[cap];
+            value = new int[cap];
+            Arrays.fill(value, -1);
+            mask = cap - 1;
+        }
 
-                    UV uv1 = tIndices[0] < uvs.size() ? uvs.get(tIndices[0]) : new UV(0, 0);
-                    UV uv2 = tIndices[i] < uvs.size() ? uvs.get(tIndices[i]) : new UV(0, 0);
-                    UV uv3 = tIndices[i + 1] < uvs.size() ? uvs.get(tIndices[i + 1]) : new UV(0, 0);
+        int vertex(int v, int vt, int vn, List<ObjParser.Chunk> chunks, int[] posBase, int[] uvBase, int[] nrmBase,
+                   FloatListOut pos, FloatListOut uv, FloatListOut nrm) {
+            int h = hash(v, vt, vn) & mask;
+            while (value[h] >= 0) {
+                if (keyV[h] == v && keyT[h] == vt && keyN[h] == vn) return value[h];
+                h = (h + 1) & mask;
+            }
+            int idx = size++;
+            keyV[h] = v; keyT[h] = vt; keyN[h] = vn; value[h] = idx;
 
-                    triangles.add(new TexturedTriangle(v1, v2, v3, uv1, uv2, uv3, currentMaterial));
+            int pc = chunkOf(posBase, v);
+            addPosition(pos, chunks.get(pc), (v - posBase[pc]) * 3);
+            if (uv != null) {
+                if (vt >= 0) {
+                    int c = chunkOf(uvBase, vt);
+                    int o = (vt - uvBase[c]) * 2;
+                    uv.add(chunks.get(c).uvs.get(o));
+                    uv.add(chunks.get(c).uvs.get(o + 1));
+                } else {
+                    uv.add(0f);
+                    uv.add(0f);
                 }
             }
+            if (nrm != null) {
+                if (vn >= 0) {
+                    int c = chunkOf(nrmBase, vn);
+                    int o = (vn - nrmBase[c]) * 3;
+                    ObjParser.Chunk nc = chunks.get(c);
+                    nrm.add(nc.normals.get(o));
+                    nrm.add(-nc.normals.get(o + 1));
+                    nrm.add(nc.normals.get(o + 2));
+                } else {
+                    nrm.add(0f);
+                    nrm.add(0f);
+                    nrm.add(0f);
+                }
+            }
+
+            if (size * 2 > mask) rehash();
+            return idx;
+        }
+
+        private void rehash() {
+            int[] kv = keyV, kt = keyT, kn = keyN, val = value;
+            allocate(kv.length * 2);
+            for (int i = 0; i < kv.length; i++) {
+                if (val[i] < 0) continue;
+                int h = hash(kv[i], kt[i], kn[i]) & mask;
+                while (value[h] >= 0) h = (h + 1) & mask;
+                keyV[h] = kv[i]; keyT[h] = kt[i]; keyN[h] = kn[i]; value[h] = val[i];
+            }
         }
-        reader.close();
 
-        System.out.println("✅ OBJ carregado: " + vertices.size() + " vértices, " +
-                triangles.size() + " triângulos, " + uvs.size() + " UVs.");
+        private int hash(int v, int vt, int vn) {
+            int h = v * 0x9E3779B1 + vt * 0x85EBCA6B + vn * 0xC2B2AE35;
+            return h ^ (h >>> 15);
+        }
+    }
+
+    // Trecho que contém o elemento global i (bases em ordem crescente)
+    private static int chunkOf(int[] base, int i) {
+        int lo = 0, hi = base.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (base[mid] <= i) lo = mid; else hi = mid - 1;
+        }
+        return lo;
+    }
+
+    private static final class FloatListOut {
+        private float[] data;
+        private int size;
 
-        return new Mesh(triangles);
+        FloatListOut(int capacity) { data = new float[Math.max(16, capacity)]; }
+
+        void add(float f) {
+            if (size == data.length) data = Arrays.copyOf(data, data.length * 2);
+            data[size++] = f;
+        }
+
+        float[] toArray() { return size == data.length ? data : Arrays.copyOf(data, size); }
+    }
+
+    private Map<String, Material> timedMtl(File mtlFile, File baseDir, TextureLoads textures) {
+        long t = System.nanoTime();
+        Map<String, Material> mats = loadMtl(mtlFile, baseDir, textures);
+        mtlNanos += System.nanoTime() - t;
+        return mats;
     }
 
-    private Map<String, Material> loadMtl(File mtlFile, File baseDir) {
+    private Map<String, Material> loadMtl(File mtlFile, File baseDir, TextureLoads textures) {
         Map<String, Material> mats = new HashMap<>();
         try (BufferedReader br = new BufferedReader(new FileReader(mtlFile))) {
             String line;
@@ -125,9 +475,8 @@ public class ObjLoader implements ModelLoader {
                     String texName = line.substring(7).trim();
                     File texFile = new File(baseDir, texName);
                     if (texFile.exists()) {
-                        BufferedImage texImg = ImageIO.read(texFile);
                         if (current != null)
-                            current.setTexture(new Texture(texImg));
+                            textures.submit(current, AssetCache.Key.of(texFile), texName, () -> ImageIO.read(texFile));
                     } else {
                         System.out.println("⚠ Textura não encontrada: " + texName);
                     }
@@ -141,6 +490,6 @@ public class ObjLoader implements ModelLoader {
     
     public void setScale(double scale)
     {
-    	
+    	this.SCALE = scale;
     }
 }
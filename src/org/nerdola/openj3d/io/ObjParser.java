@@ -0,0 +1,378 @@
+package org.nerdola.openj3d.io;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Núcleo do parser OBJ: varre um trecho de bytes (linhas completas, normalmente um
+ * {@link java.nio.MappedByteBuffer}) sem criar Strings por linha, com parser próprio de
+ * float/int. Cada trecho é independente e pode ser lido em paralelo; o resultado
+ * ({@link Chunk}) guarda os índices das faces ainda sem resolver os relativos, que dependem
+ * de quantos v/vt/vn vieram antes no arquivo.
+ */
+final class ObjParser {
+
+    /** Componente ausente no canto da face (ex.: "f 1//3" não tem vt). */
+    static final int ABSENT = -1;
+
+    // Índices negativos (relativos) viram uma posição local ao trecho, codificada abaixo de -1
+    private static final int REL_BASE = Integer.MIN_VALUE + (1 << 30);
+
+    private static final double[] POW10 = new double[23];
+    static {
+        POW10[0] = 1;
+        for (int i = 1; i < POW10.length; i++) POW10[i] = POW10[i - 1] * 10;
+    }
+
+    /**
+     * Resultado de um trecho. Os cantos das faces já estão triangulados em leque (3 por triângulo).
+     */
+    static final class Chunk {
+        final FloatList positions = new FloatList();
+        final FloatList uvs = new FloatList();
+        final FloatList normals = new FloatList();
+        final IntList cornerV = new IntList();
+        final IntList cornerT = new IntList(); // vazio se nenhuma face do trecho usa vt
+        final IntList cornerN = new IntList(); // vazio se nenhuma face do trecho usa vn
+        boolean hasT, hasN;
+
+        // usemtl: triângulo (local) onde começa cada faixa e o nome do material
+        final IntList runStart = new IntList();
+        final List<String> runMaterial = new ArrayList<>();
+        final List<String> mtllibs = new ArrayList<>();
+
+        int facesWithoutUV, invalidLines;
+
+        int triangleCount() { return cornerV.size() / 3; }
+    }
+
+    /**
+     * Converte um índice guardado no {@link Chunk} para índice absoluto (base 0), dado quantos
+     * elementos daquele tipo vieram antes do trecho. Retorna {@link #ABSENT} se ausente.
+     */
+    static int resolve(int stored, int base) {
+        if (stored >= 0) return stored;
+        if (stored == ABSENT) return ABSENT;
+        return base + (stored - REL_BASE);
+    }
+
+    private final ByteBuffer buf;
+    private final int end;
+    private int p;
+    private final Chunk out = new Chunk();
+
+    // Cantos da face corrente
+    private int[] faceV = new int[8], faceT = new int[8], faceN = new int[8];
+
+    private ObjParser(ByteBuffer buf, int start, int end) {
+        this.buf = buf;
+        this.p = start;
+        this.end = end;
+    }
+
+    /**
+     * Lê as linhas de {@code buf} no intervalo [start, end).
+     */
+    static Chunk parse(ByteBuffer buf, int start, int end) {
+        ObjParser parser = new ObjParser(buf, start, end);
+        parser.run();
+        return parser.out;
+    }
+
+    private void run() {
+        while (p < end) {
+            skipBlanks();
+            if (p >= end) break;
+            byte c = buf.get(p);
+            byte c1 = p + 1 < end ? buf.get(p + 1) : 0;
+            if (c == 'v' && isBlank(c1)) {
+                p += 1;
+                vec(out.positions, 3, false);
+            } else if (c == 'v' && c1 == 't' && p + 2 < end && isBlank(buf.get(p + 2))) {
+                p += 2;
+                vec(out.uvs, 2, true);
+            } else if (c == 'v' && c1 == 'n' && p + 2 < end && isBlank(buf.get(p + 2))) {
+                p += 2;
+                vec(out.normals, 3, false);
+            } else if (c == 'f' && isBlank(c1)) {
+                p += 1;
+                face();
+            } else if (keyword("usemtl")) {
+                out.runStart.add(out.triangleCount());
+                out.runMaterial.add(restOfLine());
+            } else if (keyword("mtllib")) {
+                out.mtllibs.add(restOfLine());
+            }
+            skipLine();
+        }
+    }
+
+    // ----------------------------
+    // Linhas
+
+    private void vec(FloatList dst, int n, boolean lastOptional) {
+        float a = 0, b = 0, c = 0;
+        int read = 0;
+        for (int i = 0; i < n; i++) {
+            skipBlanks();
+            if (p >= end || isEol(buf.get(p))) break;
+            double v = parseNumber();
+            if (Double.isNaN(v)) {
+                out.invalidLines++;
+                return;
+            }
+            if (i == 0) a = (float) v; else if (i == 1) b = (float) v; else c = (float) v;
+            read++;
+        }
+        if (read < n && !(lastOptional && read == n - 1)) {
+            out.invalidLines++;
+            return;
+        }
+        dst.add(a);
+        dst.add(b);
+        if (n == 3) dst.add(c);
+    }
+
+    private void face() {
+        int n = 0;
+        boolean missingUV = false;
+        while (true) {
+            skipBlanks();
+            if (p >= end || isEol(buf.get(p))) break;
+            if (n == faceV.length) {
+                faceV = Arrays.copyOf(faceV, n * 2);
+                faceT = Arrays.copyOf(faceT, n * 2);
+                faceN = Arrays.copyOf(faceN, n * 2);
+            }
+            int v = index(out.positions.size() / 3);
+            int t = ABSENT, nn = ABSENT;
+            if (p < end && buf.get(p) == '/') {
+                p++;
+                if (p < end && buf.get(p) != '/') t = index(out.uvs.size() / 2);
+                if (p < end && buf.get(p) == '/') {
+                    p++;
+                    nn = index(out.normals.size() / 3);
+                }
+            }
+            if (v == ABSENT || (p < end && !isBlank(buf.get(p)) && !isEol(buf.get(p)))) {
+                out.invalidLines++;
+                return;
+            }
+            if (t == ABSENT) missingUV = true;
+            faceV[n] = v; faceT[n] = t; faceN[n] = nn;
+            n++;
+        }
+        if (n < 3) {
+            out.invalidLines++;
+            return;
+        }
+        if (missingUV) out.facesWithoutUV++;
+
+        // Triangulação em leque (faces convexas com mais de 3 vértices)
+        for (int i = 1; i < n - 1; i++) {
+            corner(0);
+            corner(i);
+            corner(i + 1);
+        }
+    }
+
+    private void corner(int i) {
+        Chunk c = out;
+        c.cornerV.add(faceV[i]);
+        if (faceT[i] != ABSENT && !c.hasT) {
+            c.cornerT.fill(ABSENT, c.cornerV.size() - 1);
+            c.hasT = true;
+        }
+        if (c.hasT) c.cornerT.add(faceT[i]);
+        if (faceN[i] != ABSENT && !c.hasN) {
+            c.cornerN.fill(ABSENT, c.cornerV.size() - 1);
+            c.hasN = true;
+        }
+        if (c.hasN) c.cornerN.add(faceN[i]);
+    }
+
+    /**
+     * Índice de face (base 1 ou negativo) já convertido para a forma guardada no {@link Chunk}.
+     * {@code localCount} é quantos elementos do tipo este trecho já leu.
+     */
+    private int index(int localCount) {
+        boolean neg = false;
+        if (p < end && buf.get(p) == '-') {
+            neg = true;
+            p++;
+        }
+        long r = 0;
+        int digits = 0;
+        byte c;
+        while (p < end && (c = buf.get(p)) >= '0' && c <= '9') {
+            if (r < Integer.MAX_VALUE) r = r * 10 + (c - '0');
+            digits++;
+            p++;
+        }
+        if (digits == 0 || r == 0 || r > Integer.MAX_VALUE) return ABSENT;
+        if (!neg) return (int) r - 1;
+        long local = localCount - r;
+        if (local < -(1 << 30)) return ABSENT;
+        return REL_BASE + (int) local;
+    }
+
+    // ----------------------------
+    // Números
+
+    /**
+     * Decimal no formato [sinal] dígitos [. dígitos] [e [sinal] dígitos]. Até 18 dígitos
+     * significativos o valor sai de uma única divisão/multiplicação exata por potência de 10;
+     * casos raros (expoentes grandes, nan/inf) caem em {@link Double#parseDouble}.
+     * Retorna NaN se não houver número válido.
+     */
+    private double parseNumber() {
+        int start = p;
+        boolean neg = false;
+        byte c = buf.get(p);
+        if (c == '-' || c == '+') {
+            neg = c == '-';
+            p++;
+        }
+        long mant = 0;
+        int digits = 0, exp10 = 0;
+        boolean any = false;
+        while (p < end && (c = buf.get(p)) >= '0' && c <= '9') {
+            any = true;
+            if (digits < 18) {
+                mant = mant * 10 + (c - '0');
+                if (mant != 0) digits++;
+            } else {
+                exp10++;
+            }
+            p++;
+        }
+        if (p < end && buf.get(p) == '.') {
+            p++;
+            while (p < end && (c = buf.get(p)) >= '0' && c <= '9') {
+                any = true;
+                if (digits < 18) {
+                    mant = mant * 10 + (c - '0');
+                    if (mant != 0) digits++;
+                    exp10--;
+                }
+                p++;
+            }
+        }
+        if (!any) return slowNumber(start);
+        if (p < end && ((c = buf.get(p)) == 'e' || c == 'E')) {
+            p++;
+            boolean eneg = false;
+            if (p < end && ((c = buf.get(p)) == '-' || c == '+')) {
+                eneg = c == '-';
+                p++;
+            }
+            int e = 0;
+            boolean anyExp = false;
+            while (p < end && (c = buf.get(p)) >= '0' && c <= '9') {
+                anyExp = true;
+                if (e < 100_000) e = e * 10 + (c - '0');
+                p++;
+            }
+            if (!anyExp) return slowNumber(start);
+            exp10 += eneg ? -e : e;
+        }
+        if (p < end && !isBlank(buf.get(p)) && !isEol(buf.get(p))) return slowNumber(start);
+
+        double v;
+        if (exp10 == 0) v = mant;
+        else if (exp10 < 0 && exp10 >= -22) v = mant / POW10[-exp10];
+        else if (exp10 > 0 && exp10 <= 22) v = mant * POW10[exp10];
+        else return slowNumber(start);
+        return neg ? -v : v;
+    }
+
+    private double slowNumber(int start) {
+        p = start;
+        while (p < end && !isBlank(buf.get(p)) && !isEol(buf.get(p))) p++;
+        try {
+            return Double.parseDouble(ascii(start, p));
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    // ----------------------------
+    // Bytes
+
+    private boolean keyword(String k) {
+        int n = k.length();
+        if (p + n >= end) return false;
+        for (int i = 0; i < n; i++) {
+            if (buf.get(p + i) != k.charAt(i)) return false;
+        }
+        if (!isBlank(buf.get(p + n))) return false;
+        p += n;
+        return true;
+    }
+
+    private String restOfLine() {
+        skipBlanks();
+        int start = p;
+        while (p < end && !isEol(buf.get(p))) p++;
+        int stop = p;
+        while (stop > start && isBlank(buf.get(stop - 1))) stop--;
+        byte[] bytes = new byte[stop - start];
+        for (int i = 0; i < bytes.length; i++) bytes[i] = buf.get(start + i);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private String ascii(int from, int to) {
+        byte[] bytes = new byte[to - from];
+        for (int i = 0; i < bytes.length; i++) bytes[i] = buf.get(from + i);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    private void skipBlanks() {
+        while (p < end && isBlank(buf.get(p))) p++;
+    }
+
+    private void skipLine() {
+        while (p < end && buf.get(p) != '\n') p++;
+        p++;
+    }
+
+    private static boolean isBlank(byte c) { return c == ' ' || c == '\t'; }
+    private static boolean isEol(byte c) { return c == '\n' || c == '\r' || c == '#'; }
+
+    // ----------------------------
+    // Listas primitivas
+
+    static final class FloatList {
+        private float[] data = new float[1024];
+        private int size;
+
+        void add(float f) {
+            if (size == data.length) data = Arrays.copyOf(data, data.length * 2);
+            data[size++] = f;
+        }
+
+        int size() { return size; }
+        float get(int i) { return data[i]; }
+    }
+
+    static final class IntList {
+        private int[] data = new int[1024];
+        private int size;
+
+        void add(int v) {
+            if (size == data.length) data = Arrays.copyOf(data, data.length * 2);
+            data[size++] = v;
+        }
+
+        /** Acrescenta {@code value} até a lista ter {@code count} elementos. */
+        void fill(int value, int count) {
+            while (size < count) add(value);
+        }
+
+        int size() { return size; }
+        int get(int i) { return data[i]; }
+    }
+}
@@ -1,6 +1,6 @@
 package org.nerdola.openj3d.io;
 
-import java.awt.image.BufferedImage;
+import java.awt.Color;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
@@ -11,97 +11,252 @@ import javax.imageio.ImageIO;
 
 import com.google.gson.Gson;
 
+import org.nerdola.openj3d.core.IndexedMesh;
 import org.nerdola.openj3d.core.Mesh;
-import org.nerdola.openj3d.core.Triangle;
-import org.nerdola.openj3d.core.Vertex;
 
 import java.util.zip.ZipEntry;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executor;
 
 
+/**
+ * Carrega arquivos .oj3d (zip com Model.json).
+ * <ul>
+ * <li>v1: vértices, UVs e triângulos como objetos JSON; posições multiplicadas por {@code SCALE}.</li>
+ * <li>v2 ({@code "version": 2}, gravado por {@link OpenJ3DModelWriter}): geometria em entradas
+ * binárias sem compressão, mapeadas direto do arquivo; o Model.json só tem metadados.</li>
+ * </ul>
+ */
 public class OpenJ3DModelLoader implements ModelLoader {
 
-    private static final double SCALE = 400.0; // escala padrão
+    static final String MODEL_ENTRY = "Model.json";
+
+    private static final double SCALE = 400.0; // escala padrão (só v1)
+
+    // Cabeçalho local de entrada zip: assinatura "PK\3\4" e tamanho fixo antes do nome
+    private static final int LOCAL_HEADER_SIG = 0x04034b50;
+    private static final int LOCAL_HEADER_SIZE = 30;
+
+    private Executor textureExecutor;
+    private AssetCache assetCache;
+    private Texture.Layout textureLayout = Texture.Layout.ROW_MAJOR;
 
     @Override
     public Mesh load(File oj3dFile) throws IOException {
+        return loadIndexed(oj3dFile).toMesh();
+    }
+
+    @Override
+    public IndexedMesh loadIndexed(File oj3dFile) throws IOException {
         if (!oj3dFile.exists()) throw new IOException(".oj3d não encontrado: " + oj3dFile.getAbsolutePath());
 
-        try (ZipFile zip = new ZipFile(oj3dFile)) {
-            ZipEntry modelEntry = zip.getEntry("Model.json");
+        try (ZipFile zip = new ZipFile(oj3dFile);
+             TextureLoads textures = new TextureLoads(textureExecutor, assetCache, textureLayout)) {
+            ZipEntry modelEntry = zip.getEntry(MODEL_ENTRY);
             if (modelEntry == null) throw new IOException("Model.json não encontrado dentro do .oj3d");
 
             InputStream modelStream = zip.getInputStream(modelEntry);
             Gson gson = new Gson();
-            ModelData modelData = gson.fromJson(new InputStreamReader(modelStream), ModelData.class);
+            ModelData modelData = gson.fromJson(new InputStreamReader(modelStream, StandardCharsets.UTF_8), ModelData.class);
+            if (modelData.version >= 2) return loadV2(oj3dFile, zip, modelData, textures);
+            if (modelData.meshes == null) throw new IOException("Model.json sem meshes");
 
-            List<Triangle> triangles = new ArrayList<>();
+            // Texturas primeiro: com executor elas decodificam enquanto a geometria é montada
+            List<Material> materials = new ArrayList<>();
+            for (ModelData.MeshData mesh : modelData.meshes) materials.add(material(oj3dFile, zip, mesh, textures));
 
-            // Carrega meshes
+            int vertexTotal = 0, indexTotal = 0;
             for (ModelData.MeshData mesh : modelData.meshes) {
-                List<Vertex> vertices = new ArrayList<>();
-                List<UV> uvs = new ArrayList<>();
+                if (mesh.vertices != null) vertexTotal += mesh.vertices.size();
+                if (mesh.triangles != null) indexTotal += mesh.triangles.size() * 3;
+            }
+
+            float[] positions = new float[vertexTotal * 3];
+            float[] uvs = new float[vertexTotal * 2];
+            int[] indices = new int[indexTotal];
+            List<IndexedMesh.Submesh> submeshes = new ArrayList<>();
+            int baseVertex = 0, baseIndex = 0;
+
+            // Carrega meshes
+            for (int m = 0; m < modelData.meshes.size(); m++) {
+                ModelData.MeshData mesh = modelData.meshes.get(m);
+                int vertexCount = mesh.vertices != null ? mesh.vertices.size() : 0;
+                int uvCount = mesh.uvs != null ? mesh.uvs.size() : 0;
 
                 // vertices com escala aplicada
-                if (mesh.vertices != null) {
-                    for (ModelData.VertexData v : mesh.vertices) {
-                        vertices.add(new Vertex(
-                            v.x * SCALE,
-                            v.y * SCALE,
-                            v.z * SCALE
-                        ));
-                    }
+                for (int i = 0; i < vertexCount; i++) {
+                    ModelData.VertexData v = mesh.vertices.get(i);
+                    int o = (baseVertex + i) * 3;
+                    positions[o] = (float) (v.x * SCALE);
+                    positions[o + 1] = (float) (v.y * SCALE);
+                    positions[o + 2] = (float) (v.z * SCALE);
                 }
 
-                // UVs
-                if (mesh.uvs != null) {
-                    for (ModelData.UVData uv : mesh.uvs) {
-                        uvs.add(new UV(uv.u, uv.v));
-                    }
+                // UVs (vértices sem UV ficam com (0,0))
+                for (int i = 0; i < Math.min(uvCount, vertexCount); i++) {
+                    ModelData.UVData uv = mesh.uvs.get(i);
+                    uvs[(baseVertex + i) * 2] = (float) uv.u;
+                    uvs[(baseVertex + i) * 2 + 1] = (float) uv.v;
                 }
 
-                // Material
-                Material mat = new Material(mesh.material != null ? mesh.material : "default");
-                if (mesh.materialTexture != null) {
-                    ZipEntry texEntry = zip.getEntry(mesh.materialTexture);
-                    if (texEntry != null) {
-                        BufferedImage img = ImageIO.read(zip.getInputStream(texEntry));
-                        mat.setTexture(new Texture(img));
-                    } else {
-                        System.out.println("⚠ Textura não encontrada no .oj3d: " + mesh.materialTexture);
-                    }
-                }
+                Material mat = materials.get(m);
 
                 // Triângulos
+                int first = baseIndex;
                 if (mesh.triangles != null) {
                     for (int[] t : mesh.triangles) {
-                        Vertex v1 = vertices.get(t[0]);
-                        Vertex v2 = vertices.get(t[1]);
-                        Vertex v3 = vertices.get(t[2]);
-
-                        UV uv1 = (uvs.size() > t[0]) ? uvs.get(t[0]) : new UV(0, 0);
-                        UV uv2 = (uvs.size() > t[1]) ? uvs.get(t[1]) : new UV(0, 0);
-                        UV uv3 = (uvs.size() > t[2]) ? uvs.get(t[2]) : new UV(0, 0);
-
-                        if (uvs.size() <= Math.max(t[0], Math.max(t[1], t[2]))) {
+                        if (t == null || t.length < 3) throw new IOException("Triângulo com menos de 3 índices no .oj3d.");
+                        for (int k = 0; k < 3; k++) {
+                            if (t[k] < 0 || t[k] >= vertexCount) throw new IOException("Índice fora da faixa no .oj3d: " + t[k]);
+                        }
+                        if (uvCount <= Math.max(t[0], Math.max(t[1], t[2]))) {
                             System.out.println("⚠ Fallback UV aplicado para triângulo: " + t[0] + "," + t[1] + "," + t[2]);
                         }
-
-                        triangles.add(new TexturedTriangle(v1, v2, v3, uv1, uv2, uv3, mat));
+                        indices[baseIndex++] = t[0] + baseVertex;
+                        indices[baseIndex++] = t[1] + baseVertex;
+                        indices[baseIndex++] = t[2] + baseVertex;
                     }
                 }
+                submeshes.add(new IndexedMesh.Submesh(mat, first, baseIndex - first));
+                baseVertex += vertexCount;
             }
 
-            System.out.println("✅ OJ3D carregado do zip: " + triangles.size() + " triângulos.");
-            return new Mesh(triangles);
+            textures.await();
+            System.out.println("✅ OJ3D carregado do zip: " + indexTotal / 3 + " triângulos.");
+            return new IndexedMesh(positions, uvs, indices, submeshes);
         }
     }
 
-    // Estrutura interna para mapear Model.json
+    /**
+     * Decodificar texturas em paralelo (null = na thread do loader, padrão). As entradas do zip
+     * são lidas concorrentemente; a carga só termina quando todas ficam prontas.
+     */
+    @Override
+    public void setTextureExecutor(Executor executor) { this.textureExecutor = executor; }
+
+    /** Texturas já decodificadas são reaproveitadas do cache (null = sem cache, padrão). */
+    @Override
+    public void setAssetCache(AssetCache cache) { this.assetCache = cache; }
+
+    /** Layout das texturas carregadas (padrão: {@link Texture.Layout#ROW_MAJOR}). */
+    @Override
+    public void setTextureLayout(Texture.Layout layout) {
+        if (layout == null) throw new IllegalArgumentException("textureLayout não pode ser null.");
+        this.textureLayout = layout;
+    }
+
+    private static Material material(File oj3dFile, ZipFile zip, ModelData.MeshData mesh, TextureLoads textures) {
+        Material mat = new Material(mesh.material != null ? mesh.material : "default");
+        if (mesh.color != null) mat.diffuseColor = Color.decode(mesh.color);
+        if (mesh.materialTexture != null) {
+            ZipEntry texEntry = zip.getEntry(mesh.materialTexture);
+            if (texEntry != null) {
+                textures.submit(mat, AssetCache.Key.entry(oj3dFile, mesh.materialTexture), mesh.materialTexture, () -> {
+                    try (InputStream in = zip.getInputStream(texEntry)) {
+                        return ImageIO.read(in);
+                    }
+                });
+            } else {
+                System.out.println("⚠ Textura não encontrada no .oj3d: " + mesh.materialTexture);
+            }
+        }
+        return mat;
+    }
+
+    // ----------------------------
+    // v2
+
+    private IndexedMesh loadV2(File oj3dFile, ZipFile zip, ModelData modelData, TextureLoads textures) throws IOException {
+        if (modelData.version > OpenJ3DModelWriter.VERSION)
+            throw new IOException(".oj3d versão " + modelData.version + " não suportada");
+        if (modelData.positions == null || modelData.indices == null)
+            throw new IOException("Model.json v2 sem positions/indices");
+
+        List<Material> materials = new ArrayList<>();
+        if (modelData.meshes != null) {
+            for (ModelData.MeshData mesh : modelData.meshes) materials.add(material(oj3dFile, zip, mesh, textures));
+        }
+
+        int vertexCount = modelData.vertexCount, indexCount = modelData.indexCount;
+        float[] positions = new float[vertexCount * 3];
+        float[] uvs = new float[vertexCount * 2];
+        float[] normals = modelData.normals != null ? new float[vertexCount * 3] : null;
+        int[] indices = new int[indexCount];
+
+        try (FileChannel ch = FileChannel.open(oj3dFile.toPath(), StandardOpenOption.READ)) {
+            blob(ch, zip, modelData.positions, positions.length * 4).asFloatBuffer().get(positions);
+            if (modelData.uvs != null) blob(ch, zip, modelData.uvs, uvs.length * 4).asFloatBuffer().get(uvs);
+            if (normals != null) blob(ch, zip, modelData.normals, normals.length * 4).asFloatBuffer().get(normals);
+            blob(ch, zip, modelData.indices, indices.length * 4).asIntBuffer().get(indices);
+        }
+        for (int index : indices) {
+            if (index < 0 || index >= vertexCount) throw new IOException("Índice fora da faixa no .oj3d: " + index);
+        }
+
+        List<IndexedMesh.Submesh> submeshes = new ArrayList<>();
+        for (int m = 0; m < materials.size(); m++) {
+            ModelData.MeshData mesh = modelData.meshes.get(m);
+            if (mesh.firstIndex < 0 || mesh.indexCount < 0 || mesh.firstIndex + mesh.indexCount > indexCount)
+                throw new IOException("Submesh fora da faixa de índices: " + mesh.name);
+            submeshes.add(new IndexedMesh.Submesh(materials.get(m), mesh.firstIndex, mesh.indexCount));
+        }
+        textures.await();
+
+        System.out.println("✅ OJ3D v2 carregado do zip: " + indexCount / 3 + " triângulos.");
+        return new IndexedMesh(positions, uvs, normals, indices, submeshes);
+    }
+
+    /**
+     * Conteúdo de um blob v2 em little-endian. Se a entrada está sem compressão no offset
+     * indicado (confere o cabeçalho local do zip), o trecho é mapeado direto do arquivo;
+     * caso o zip tenha sido regravado por outra ferramenta, lê a entrada pelo {@link ZipFile}.
+     */
+    private static ByteBuffer blob(FileChannel ch, ZipFile zip, ModelData.Blob blob, int expectedLength) throws IOException {
+        if (blob.length != expectedLength)
+            throw new IOException("Blob " + blob.entry + " com " + blob.length + " bytes, esperado " + expectedLength);
+        ZipEntry entry = zip.getEntry(blob.entry);
+        if (entry == null) throw new IOException("Entrada não encontrada no .oj3d: " + blob.entry);
+
+        if (entry.getMethod() == ZipEntry.STORED && entry.getSize() == blob.length && storedAt(ch, blob)) {
+            return ch.map(FileChannel.MapMode.READ_ONLY, blob.offset, blob.length).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        try (InputStream in = zip.getInputStream(entry)) {
+            byte[] bytes = in.readAllBytes();
+            if (bytes.length != blob.length) throw new IOException("Entrada " + blob.entry + " com tamanho inesperado");
+            return ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    // Confere se imediatamente antes de 'offset' há o cabeçalho local da entrada (sem campo extra)
+    private static boolean storedAt(FileChannel ch, ModelData.Blob blob) throws IOException {
+        byte[] name = blob.entry.getBytes(StandardCharsets.UTF_8);
+        long header = blob.offset - LOCAL_HEADER_SIZE - name.length;
+        if (header < 0 || blob.offset + blob.length > ch.size()) return false;
+
+        ByteBuffer b = ByteBuffer.allocate(LOCAL_HEADER_SIZE + name.length).order(ByteOrder.LITTLE_ENDIAN);
+        while (b.hasRemaining()) {
+            if (ch.read(b, header + b.position()) < 0) return false;
+        }
+        if (b.getInt(0) != LOCAL_HEADER_SIG || b.getShort(8) != ZipEntry.STORED) return false;
+        if (b.getShort(26) != name.length || b.getShort(28) != 0) return false;
+        return b.slice(LOCAL_HEADER_SIZE, name.length).equals(ByteBuffer.wrap(name));
+    }
+
+    // Estrutura interna para mapear Model.json (v1 e v2)
     private static class ModelData {
+        int version; // 0 = v1
         List<MeshData> meshes;
 
+        // v2
+        int vertexCount, indexCount;
+        Blob positions, uvs, normals, indices;
+
         static class MeshData {
             String name;
             List<VertexData> vertices;
@@ -109,6 +264,10 @@ public class OpenJ3DModelLoader implements ModelLoader {
             List<int[]> triangles;
             String material;
             String materialTexture; // caminho relativo da textura
+
+            // v2: faixa de índices da submesh e cor difusa (#RRGGBB)
+            int firstIndex, indexCount;
+            String color;
         }
 
         static class VertexData {
@@ -118,6 +277,11 @@ public class OpenJ3DModelLoader implements ModelLoader {
         static class UVData {
             double u, v;
         }
+
+        static class Blob {
+            String entry;
+            long offset;
+            int length;
+        }
     }
 }
-
@@ -0,0 +1,168 @@
+package org.nerdola.openj3d.io;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.IdentityHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import javax.imageio.ImageIO;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import org.nerdola.openj3d.core.IndexedMesh;
+
+/**
+ * Grava uma {@link IndexedMesh} no formato .oj3d v2: zip em que posições, UVs, normais e
+ * índices são entradas binárias little-endian sem compressão (STORED), e o Model.json traz só
+ * metadados, submeshes e a posição de cada blob dentro do arquivo, para o
+ * {@link OpenJ3DModelLoader} mapeá-los direto em memória.
+ * <p>
+ * As posições são gravadas como estão na mesh (já na escala de renderização); carregar o
+ * arquivo convertido devolve a mesma {@link IndexedMesh} do loader de origem.
+ * <p>
+ * Também serve de conversor:
+ * {@code java org.nerdola.openj3d.io.OpenJ3DModelWriter modelo.obj|.gltf|.glb|.oj3d saida.oj3d}
+ */
+public class OpenJ3DModelWriter {
+
+    static final int VERSION = 2;
+
+    /**
+     * Grava {@code mesh} em {@code file}. Texturas dos materiais vão como PNG em "textures/".
+     */
+    public void write(IndexedMesh mesh, File file) throws IOException {
+        JsonObject model = new JsonObject();
+        model.addProperty("version", VERSION);
+        model.addProperty("vertexCount", mesh.getVertexCount());
+        model.addProperty("indexCount", mesh.getIndices().length);
+
+        try (CountingOutputStream counter = new CountingOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+             ZipOutputStream zip = new ZipOutputStream(counter)) {
+
+            model.add("positions", writeBlob(zip, counter, "positions.bin", floats(mesh.getPositions())));
+            if (mesh.hasUVs()) model.add("uvs", writeBlob(zip, counter, "uvs.bin", floats(mesh.getUVs())));
+            if (mesh.hasNormals()) model.add("normals", writeBlob(zip, counter, "normals.bin", floats(mesh.getNormals())));
+            model.add("indices", writeBlob(zip, counter, "indices.bin", ints(mesh.getIndices())));
+
+            // Uma entrada por textura, mesmo que várias submeshes compartilhem o material
+            Map<Texture, String> textures = new IdentityHashMap<>();
+            JsonArray meshes = new JsonArray();
+            for (IndexedMesh.Submesh sub : mesh.getSubmeshes()) {
+                JsonObject m = new JsonObject();
+                Material mat = sub.material;
+                m.addProperty("name", mat != null ? mat.name : "default");
+                m.addProperty("material", mat != null ? mat.name : "default");
+                m.addProperty("color", String.format(Locale.ROOT, "#%06X", sub.color.getRGB() & 0xFFFFFF));
+                m.addProperty("firstIndex", sub.firstIndex);
+                m.addProperty("indexCount", sub.indexCount);
+                if (mat != null && mat.hasTexture() && mat.texture.getLayerCount() > 0) {
+                    String path = textures.get(mat.texture);
+                    if (path == null) {
+                        path = "textures/" + textures.size() + ".png";
+                        ByteArrayOutputStream png = new ByteArrayOutputStream();
+                        ImageIO.write(mat.texture.getLayer(0), "png", png);
+                        zip.putNextEntry(new ZipEntry(path));
+                        png.writeTo(zip);
+                        zip.closeEntry();
+                        textures.put(mat.texture, path);
+                    }
+                    m.addProperty("materialTexture", path);
+                }
+                meshes.add(m);
+            }
+            model.add("meshes", meshes);
+
+            zip.putNextEntry(new ZipEntry(OpenJ3DModelLoader.MODEL_ENTRY));
+            zip.write(new Gson().toJson(model).getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+    }
+
+    /**
+     * Carrega {@code in} com o loader do seu formato (pela extensão) e grava como .oj3d v2.
+     */
+    public static void convert(File in, File out) throws IOException {
+        new OpenJ3DModelWriter().write(ModelLoader.forFile(in).loadIndexed(in), out);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Uso: OpenJ3DModelWriter <entrada.obj|.gltf|.glb|.oj3d> <saida.oj3d>");
+            System.exit(1);
+        }
+        convert(new File(args[0]), new File(args[1]));
+        System.out.println("✅ OJ3D v2 gravado: " + args[1]);
+    }
+
+    // ----------------------------
+    // Blobs
+
+    /**
+     * Grava {@code data} como entrada STORED e devolve a descrição do blob para o Model.json:
+     * nome da entrada, offset dos dados no arquivo e tamanho em bytes.
+     */
+    private static JsonObject writeBlob(ZipOutputStream zip, CountingOutputStream counter, String name, byte[] data) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        ZipEntry entry = new ZipEntry(name);
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(data.length);
+        entry.setCompressedSize(data.length);
+        entry.setCrc(crc.getValue());
+        zip.putNextEntry(entry);
+        long offset = counter.count; // logo após o cabeçalho local da entrada
+        zip.write(data);
+        zip.closeEntry();
+
+        JsonObject blob = new JsonObject();
+        blob.addProperty("entry", name);
+        blob.addProperty("offset", offset);
+        blob.addProperty("length", data.length);
+        return blob;
+    }
+
+    private static byte[] floats(float[] values) {
+        ByteBuffer b = ByteBuffer.allocate(values.length * 4).order(ByteOrder.LITTLE_ENDIAN);
+        b.asFloatBuffer().put(values);
+        return b.array();
+    }
+
+    private static byte[] ints(int[] values) {
+        ByteBuffer b = ByteBuffer.allocate(values.length * 4).order(ByteOrder.LITTLE_ENDIAN);
+        b.asIntBuffer().put(values);
+        return b.array();
+    }
+
+    /** Conta os bytes que chegam ao arquivo, para saber onde cada blob começa. */
+    private static final class CountingOutputStream extends FilterOutputStream {
+        long count;
+
+        CountingOutputStream(OutputStream out) { super(out); }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -1,4 +1,3 @@
-
 package org.nerdola.openj3d.io;
 
 import java.awt.image.BufferedImage;
@@ -7,12 +6,69 @@ import java.util.List;
 
 /**
  * Representa uma textura (ou múltiplas camadas).
+ * <p>
+ * Os pixels da camada 0 são decodificados uma única vez para um {@code int[]} ARGB empacotado,
+ * na ordem do {@link Layout} da textura. A cadeia de mipmaps (cada nível com metade da
+ * largura/altura do anterior, média de 2x2 texels, até 1x1) é montada na primeira vez que um
+ * nível é pedido. Se a imagem for alterada depois, chame {@link #invalidate()}.
  */
 public class Texture {
+
+    /**
+     * Ordem dos texels na memória. Em ROW_MAJOR uma linha da imagem é contígua; em TILED e
+     * MORTON texels vizinhos em x <em>e</em> em y ficam próximos, então triângulos girados ou
+     * amostrados na diagonal tocam menos linhas de cache.
+     */
+    public enum Layout {
+        /** Linha a linha (padrão). */
+        ROW_MAJOR,
+        /** Blocos de 4x4 texels (64 bytes) em ordem de linhas de blocos. */
+        TILED,
+        /** Curva Z: bits de x e y intercalados (dimensões arredondadas para potência de 2). */
+        MORTON
+    }
+
+    /**
+     * Um nível de mipmap já no layout da textura. O texel (x, y) fica em
+     * {@code pixels[index(x, y)]}; os arrays são compartilhados: não altere.
+     */
+    public static final class Level {
+        public final int width, height;
+        public final int[] pixels;
+        /** Deslocamento de cada coluna e de cada linha em {@link #pixels}; null em ROW_MAJOR. */
+        public final int[] columnOffsets, rowOffsets;
+
+        Level(int width, int height, int[] pixels, int[] columnOffsets, int[] rowOffsets) {
+            this.width = width;
+            this.height = height;
+            this.pixels = pixels;
+            this.columnOffsets = columnOffsets;
+            this.rowOffsets = rowOffsets;
+        }
+
+        public int index(int x, int y) {
+            return columnOffsets == null ? y * width + x : columnOffsets[x] + rowOffsets[y];
+        }
+
+        public int getRGB(int x, int y) {
+            return pixels[index(x, y)];
+        }
+    }
+
     private final List<BufferedImage> layers = new ArrayList<>();
+    private volatile Layout layout;
+
+    private volatile Level base;
+    private volatile Level[] mips;
 
     public Texture(BufferedImage base) {
+        this(base, Layout.ROW_MAJOR);
+    }
+
+    public Texture(BufferedImage base, Layout layout) {
+        if (layout == null) throw new IllegalArgumentException("layout não pode ser null.");
         layers.add(base);
+        this.layout = layout;
     }
 
     public void addLayer(BufferedImage layer) {
@@ -26,4 +82,150 @@ public class Texture {
     public int getLayerCount() {
         return layers.size();
     }
+
+    public int getWidth() { return layers.get(0).getWidth(); }
+    public int getHeight() { return layers.get(0).getHeight(); }
+
+    public Layout getLayout() { return layout; }
+
+    /**
+     * Troca o layout; os pixels já convertidos são descartados e refeitos no próximo uso.
+     */
+    public synchronized void setLayout(Layout layout) {
+        if (layout == null) throw new IllegalArgumentException("layout não pode ser null.");
+        if (layout == this.layout) return;
+        this.layout = layout;
+        invalidate();
+    }
+
+    /**
+     * Pixels ARGB da camada 0 na ordem do layout (ver {@link Level#index}). O array é
+     * compartilhado: não altere.
+     */
+    public int[] getPixels() {
+        return getLevel(0).pixels;
+    }
+
+    /** Quantidade de níveis de mipmap, incluindo o original (nível 0). */
+    public int getMipCount() {
+        int levels = 1;
+        for (int s = Math.max(getWidth(), getHeight()); s > 1; s >>= 1) levels++;
+        return levels;
+    }
+
+    /** Nível {@code level} da cadeia de mipmaps (0 = original). */
+    public Level getLevel(int level) {
+        if (level == 0) {
+            Level b = base;
+            return b != null ? b : decode();
+        }
+        Level[] m = mips;
+        return (m != null ? m : build())[level];
+    }
+
+    /** Pixels ARGB do nível {@code level} (0 = original), na ordem do layout. Não altere. */
+    public int[] getMipPixels(int level) {
+        return getLevel(level).pixels;
+    }
+
+    public int getMipWidth(int level) {
+        return getLevel(level).width;
+    }
+
+    public int getMipHeight(int level) {
+        return getLevel(level).height;
+    }
+
+    /**
+     * Descarta os pixels e mipmaps calculados (necessário se a imagem da camada 0 for alterada).
+     */
+    public synchronized void invalidate() {
+        base = null;
+        mips = null;
+    }
+
+    private synchronized Level decode() {
+        if (base == null) {
+            BufferedImage img = layers.get(0);
+            int w = img.getWidth(), h = img.getHeight();
+            base = level(img.getRGB(0, 0, w, h, null, 0, w), w, h, layout);
+        }
+        return base;
+    }
+
+    private synchronized Level[] build() {
+        if (mips != null) return mips;
+        Level[] m = new Level[getMipCount()];
+        m[0] = getLevel(0);
+        // A redução é feita sobre cópias linha a linha; cada nível é convertido no final
+        BufferedImage img = layers.get(0);
+        int w = img.getWidth(), h = img.getHeight();
+        int[] src = layout == Layout.ROW_MAJOR ? m[0].pixels : img.getRGB(0, 0, w, h, null, 0, w);
+        for (int l = 1; l < m.length; l++) {
+            int dw = Math.max(1, w >> 1), dh = Math.max(1, h >> 1);
+            src = downsample(src, w, h, dw, dh);
+            w = dw;
+            h = dh;
+            m[l] = level(src, w, h, layout);
+        }
+        mips = m;
+        return m;
+    }
+
+    // ----------------------------
+    // Layouts
+
+    private static Level level(int[] rowMajor, int w, int h, Layout layout) {
+        if (layout == Layout.ROW_MAJOR) return new Level(w, h, rowMajor, null, null);
+        int[] cols = new int[w], rows = new int[h];
+        int size;
+        if (layout == Layout.TILED) {
+            int tilesX = (w + 3) >> 2, tilesY = (h + 3) >> 2;
+            for (int x = 0; x < w; x++) cols[x] = (x >> 2) << 4 | (x & 3);
+            for (int y = 0; y < h; y++) rows[y] = (y >> 2) * tilesX << 4 | (y & 3) << 2;
+            size = tilesX * tilesY * 16;
+        } else {
+            // Z-order no quadrado 2^k x 2^k do lado menor; o que sobra do lado maior vai nos bits altos
+            int w2 = Integer.highestOneBit(Math.max(1, w * 2 - 1));
+            int h2 = Integer.highestOneBit(Math.max(1, h * 2 - 1));
+            int k = Integer.numberOfTrailingZeros(Math.min(w2, h2));
+            int mask = (1 << k) - 1;
+            for (int x = 0; x < w; x++) cols[x] = spread(x & mask) | (x >> k) << (2 * k);
+            for (int y = 0; y < h; y++) rows[y] = spread(y & mask) << 1 | (y >> k) << (2 * k);
+            size = w2 * h2;
+        }
+        int[] pixels = new int[size];
+        for (int y = 0, i = 0; y < h; y++)
+            for (int x = 0; x < w; x++, i++) pixels[cols[x] + rows[y]] = rowMajor[i];
+        return new Level(w, h, pixels, cols, rows);
+    }
+
+    // Espalha os 16 bits baixos de v nas posições pares
+    private static int spread(int v) {
+        v = (v | (v << 8)) & 0x00FF00FF;
+        v = (v | (v << 4)) & 0x0F0F0F0F;
+        v = (v | (v << 2)) & 0x33333333;
+        v = (v | (v << 1)) & 0x55555555;
+        return v;
+    }
+
+    // Média de 2x2 texels por canal; em dimensão ímpar (ou já 1) repete a última linha/coluna
+    private static int[] downsample(int[] src, int sw, int sh, int dw, int dh) {
+        int[] dst = new int[dw * dh];
+        for (int y = 0; y < dh; y++) {
+            int r0 = Math.min(sh - 1, y * 2) * sw;
+            int r1 = Math.min(sh - 1, y * 2 + 1) * sw;
+            for (int x = 0; x < dw; x++) {
+                int x0 = Math.min(sw - 1, x * 2), x1 = Math.min(sw - 1, x * 2 + 1);
+                int a = src[r0 + x0], b = src[r0 + x1], c = src[r1 + x0], d = src[r1 + x1];
+                // Soma dos canais pares (A, G) e ímpares (R, B) em paralelo, 10 bits cada
+                long ag = ((a >>> 8) & 0xFF00FFL) + ((b >>> 8) & 0xFF00FFL) + ((c >>> 8) & 0xFF00FFL) + ((d >>> 8) & 0xFF00FFL);
+                long rb = (a & 0xFF00FFL) + (b & 0xFF00FFL) + (c & 0xFF00FFL) + (d & 0xFF00FFL);
+                ag = ((ag + 0x20002L) >>> 2) & 0xFF00FFL;
+                rb = ((rb + 0x20002L) >>> 2) & 0xFF00FFL;
+                dst[y * dw + x] = (int) ((ag << 8) | rb);
+            }
+        }
+        return dst;
+    }
 }
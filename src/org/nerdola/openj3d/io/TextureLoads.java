@@ -0,0 +1,165 @@
+package org.nerdola.openj3d.io;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Texturas pedidas durante uma carga de modelo. Com executor, cada imagem é decodificada em
+ * paralelo (entre si e com a leitura da geometria) e o loader chama {@link #await()} antes de
+ * devolver a mesh; sem executor a leitura acontece na hora, na thread do loader.
+ * <p>
+ * Materiais que apontam para o mesmo arquivo recebem a mesma {@link Texture}, decodificada (e
+ * convertida para o {@link Texture.Layout} pedido) uma vez, ainda durante a carga; com
+ * {@link AssetCache} ela também é compartilhada com outras cargas.
+ * <p>
+ * Em {@link #await()} a thread do loader executa ela mesma as texturas que o executor ainda não
+ * começou, então um pool pequeno ocupado só com cargas de modelos não trava.
+ * <p>
+ * Falhas de leitura só geram aviso: o material fica sem textura, como antes. {@link #close()}
+ * descarta o que ainda estiver pendente (carga que terminou com erro ou foi cancelada).
+ */
+final class TextureLoads implements AutoCloseable {
+
+    /** Abre e decodifica a imagem (ex.: {@code ImageIO.read}); null se o formato não for reconhecido. */
+    interface Source {
+        BufferedImage read() throws IOException;
+    }
+
+    private final class Job implements Runnable {
+        final AssetCache.Key key;
+        final String name;
+        final Source source;
+        final List<Material> targets = new ArrayList<>(); // guardados pelo lock do job
+        boolean finished;
+        Texture result;
+        final AtomicBoolean claimed = new AtomicBoolean();
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        Job(AssetCache.Key key, String name, Source source) {
+            this.key = key;
+            this.name = name;
+            this.source = source;
+        }
+
+        // Roda no executor ou na thread do loader, o que chegar primeiro
+        @Override
+        public void run() {
+            if (!claimed.compareAndSet(false, true)) return;
+            try {
+                apply(this);
+            } finally {
+                done.complete(null);
+            }
+        }
+    }
+
+    private final Executor executor; // null = síncrono
+    private final AssetCache cache;  // null = sem cache
+    private final Texture.Layout layout;
+    private final List<Job> pending = new ArrayList<>();
+    private final Map<AssetCache.Key, Job> byKey = new HashMap<>();
+    private volatile boolean closed;
+
+    TextureLoads(Executor executor, AssetCache cache, Texture.Layout layout) {
+        this.executor = executor;
+        this.cache = cache;
+        this.layout = layout;
+    }
+
+    /**
+     * Lê a textura {@code name} (identificada por {@code key}) e a atribui a {@code target}
+     * quando pronta.
+     */
+    void submit(Material target, AssetCache.Key key, String name, Source source) {
+        Job job = byKey.get(key);
+        if (job != null) {
+            // Mesma imagem em outro material: a textura é atribuída a todos de uma vez
+            synchronized (job) {
+                if (!job.finished) job.targets.add(target);
+                else if (job.result != null) target.setTexture(job.result);
+            }
+            return;
+        }
+        job = new Job(key, name, source);
+        job.targets.add(target);
+        byKey.put(key, job);
+        if (executor == null) {
+            job.run();
+            return;
+        }
+        pending.add(job);
+        executor.execute(job);
+    }
+
+    private void apply(Job job) {
+        Texture texture = null;
+        try {
+            texture = read(job);
+        } finally {
+            synchronized (job) {
+                job.finished = true;
+                job.result = texture;
+                if (texture != null) for (Material m : job.targets) m.setTexture(texture);
+            }
+        }
+    }
+
+    private Texture read(Job job) {
+        if (closed) return null;
+        try {
+            Texture texture;
+            if (cache != null) {
+                texture = cache.texture(job.key, layout, job.source);
+            } else {
+                BufferedImage img = job.source.read();
+                texture = img != null ? AssetCache.prepare(new Texture(img, layout)) : null;
+            }
+            if (closed) return null;
+            if (texture == null) System.out.println("⚠ Formato de textura não reconhecido: " + job.name);
+            return texture;
+        } catch (IOException e) {
+            // Depois do close() a origem (ex.: o zip) pode já estar fechada; não é erro da textura
+            if (!closed) System.err.println("Falha ao ler textura " + job.name + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Espera todas as texturas pedidas. Se a thread for interrompida (carga cancelada), descarta
+     * as pendentes e lança {@link InterruptedIOException}.
+     */
+    void await() throws IOException {
+        try {
+            for (Job job : pending) {
+                if (Thread.interrupted()) throw new InterruptedException();
+                job.run();
+            }
+            for (Job job : pending) job.done.get();
+        } catch (InterruptedException e) {
+            close();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Carga de texturas interrompida");
+        } catch (ExecutionException | CancellationException e) {
+            throw new IOException("Falha ao carregar texturas: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        for (Job job : pending) {
+            // Os que ninguém começou não vão mais rodar
+            if (job.claimed.compareAndSet(false, true)) job.done.complete(null);
+        }
+    }
+}
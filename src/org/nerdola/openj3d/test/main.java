@@ -1,7 +1,9 @@
 package org.nerdola.openj3d.test;
 
-import org.nerdola.openj3d.core.Matrix3;
+import org.nerdola.openj3d.core.Camera3D;
+import org.nerdola.openj3d.core.Matrix4;
 import org.nerdola.openj3d.core.Mesh;
+import org.nerdola.openj3d.core.RenderTarget;
 import org.nerdola.openj3d.core.Renderer3D;
 import org.nerdola.openj3d.core.Triangle;
 import org.nerdola.openj3d.core.Vertex;
@@ -41,6 +43,10 @@ public class main {
     	Mesh cube = new OpenJ3DModelLoader().load(new File("C:\\Users\\Bernardes\\Desktop\\CrystalMonolith.oj3d"));
     	
         Renderer3D renderer = new Renderer3D();
+        RenderTarget target = new RenderTarget(800, 600); // reaproveitado entre frames
+        Camera3D camera = new Camera3D();
+        camera.setPerspective(Math.toRadians(60), 800 / 600.0, 1, 10000);
+        camera.setPos(0, 0, 1000);
 
         Window window = new Window()
                 .setWindowSize(800, 600)
@@ -54,20 +60,19 @@ public class main {
             int w = window.getWidth();
             int h = window.getHeight();
 
-            // aplica rotações
-            Matrix3 state = Matrix3.rotationY(angle).multiply(Matrix3.rotationX(angle*0.5));
-            Mesh transformed = cube.transformed(state);
-
-            // centraliza
-            for (Triangle t : transformed.getTriangles()) {
-                for (Vertex v : new Vertex[]{t.v1, t.v2, t.v3}) {
-                    v.x += w / 2.0;
-                    v.y += h / 2.0;
-                }
-            }
-
-            // renderiza mesh para BufferedImage
-            g.drawImage(renderer.render(transformed, w, h), 0, 0, null);
+            // rotações na matriz de modelo; os loaders entregam y para baixo (tela), a câmera
+            // usa y para cima: scale(1, -1, 1) mantém a orientação de antes
+            Matrix4 model = Matrix4.rotationX(angle * 0.5)
+                    .multiply(Matrix4.rotationY(angle))
+                    .multiply(Matrix4.scale(1, -1, 1));
+
+            // renderiza mesh no alvo persistente (só realoca se a janela mudar de tamanho);
+            // projeção, recorte e viewport numa passada, sem gerar uma mesh transformada
+            target.resize(w, h);
+            target.clear();
+            camera.setAspect(w / (double) h);
+            renderer.render(cube, model, camera, target);
+            g.drawImage(target.toImage(), 0, 0, null);
         });
 
         window.start();
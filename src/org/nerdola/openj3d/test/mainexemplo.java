@@ -1,10 +1,10 @@
 package org.nerdola.openj3d.test;
 
-import org.nerdola.openj3d.core.Matrix3;
+import org.nerdola.openj3d.core.Camera3D;
+import org.nerdola.openj3d.core.Matrix4;
 import org.nerdola.openj3d.core.Mesh;
+import org.nerdola.openj3d.core.RenderTarget;
 import org.nerdola.openj3d.core.Renderer3D;
-import org.nerdola.openj3d.core.Triangle;
-import org.nerdola.openj3d.core.Vertex;
 import org.nerdola.openj3d.io.ObjLoader;
 
 import javax.swing.*;
@@ -19,12 +19,16 @@ import java.io.File;
 public class mainexemplo extends Canvas {
 
     private final Renderer3D renderer = new Renderer3D();
+    private final RenderTarget target = new RenderTarget(800, 600);
+    private final Camera3D camera = new Camera3D();
     private Mesh mesh;
     private volatile boolean running = true;
     private double angle = 0.0;
 
     public mainexemplo(Mesh mesh) {
         this.mesh = mesh;
+        camera.setPerspective(Math.toRadians(60), 800 / 600.0, 1, 10000);
+        camera.setPos(0, 0, 1000);
         setSize(800, 600);
         setBackground(Color.BLACK);
     }
@@ -58,21 +62,18 @@ public class mainexemplo extends Canvas {
             g.setColor(Color.BLACK);
             g.fillRect(0, 0, w, h);
 
-            // aplica rotações na mesh (não altera a mesh original)
-            Matrix3 rotation = Matrix3.rotationY(angle).multiply(Matrix3.rotationX(angle * 0.5));
-            Mesh transformed = mesh.transformed(rotation);
-
-            // centraliza (transformed já tem vértices transformados em espaço 3D; aqui assumimos projeção ortográfica simples)
-            for (Triangle t : transformed.getTriangles()) {
-                for (Vertex v : new Vertex[]{t.v1, t.v2, t.v3}) {
-                    v.x += w / 2.0;
-                    v.y += h / 2.0;
-                }
-            }
-
-            // render
-            java.awt.image.BufferedImage img = renderer.render(transformed, w, h);
-            g.drawImage(img, 0, 0, null);
+            // rotações na matriz de modelo; os loaders entregam y para baixo (tela), a câmera
+            // usa y para cima: scale(1, -1, 1) mantém a orientação de antes
+            Matrix4 model = Matrix4.rotationX(angle * 0.5)
+                    .multiply(Matrix4.rotationY(angle))
+                    .multiply(Matrix4.scale(1, -1, 1));
+
+            // render: projeção, recorte e viewport numa passada (a mesh original não é copiada)
+            target.resize(w, h);
+            target.clear();
+            camera.setAspect(w / (double) h);
+            renderer.render(mesh, model, camera, target);
+            g.drawImage(target.toImage(), 0, 0, null);
 
         } finally {
             g.dispose();